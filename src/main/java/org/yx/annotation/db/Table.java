@@ -52,5 +52,31 @@ public @interface Table {
 	 */
 	CacheType cacheType() default CacheType.SINGLE;
 
+	/**
+	 * 进程内的近端缓存，位于redis之前。只适合读多写少的热点表，修改时会通过redis的发布订阅通知其它节点
+	 *
+	 * @return 近端缓存的最大记录数，0表示不启用
+	 */
+	int nearCacheSize() default 0;
+
+	/**
+	 * @return 近端缓存的有效期，单位秒
+	 */
+	int nearCacheDuration() default 60;
+
+	/**
+	 * 按主键查不到记录的时候，在redis中写入一个空标记，防止不存在的记录一直穿透到数据库
+	 *
+	 * @return 空标记的有效期,单位秒。0表示使用全局设置sumk.cache.absent.ttl(默认不启用)，小于0表示不启用
+	 */
+	int absentDuration() default 0;
+
+	/**
+	 * 开启sumk.db.event.async之后，修改事件默认是异步维护缓存的。这种情况下，修改完成到缓存失效之间会有短暂的时间差
+	 *
+	 * @return true表示这个表不使用异步，在当前线程里同步维护缓存
+	 */
+	boolean strictEvent() default false;
+
 	String comment() default "";
 }
@@ -28,4 +28,9 @@ public @interface SoaClient {
 
 	int timeout() default -1;
 
+	/**
+	 * @return true表示开启对冲请求，详见Client.hedge()
+	 */
+	boolean hedge() default false;
+
 }
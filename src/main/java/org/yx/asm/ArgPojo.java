@@ -20,4 +20,14 @@ public interface ArgPojo {
 	Object[] params();
 
 	Object invoke(Object owner) throws Throwable;
+
+	/**
+	 * 按参数的顺序直接给字段赋值，不经过反射
+	 * 
+	 * @param index
+	 *            参数的下标，从0开始
+	 * @param value
+	 *            参数值。基本类型的参数要传包装类，并且不能为null
+	 */
+	void setParam(int index, Object value);
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.asm;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * ArgPojos生成的参数类的反序列化。解析时按字段名找到下标，通过ArgPojo.setParam()赋值，不使用反射。<BR>
+ * 序列化仍然交给gson默认的实现
+ */
+public final class ArgPojoTypeAdapterFactory implements TypeAdapterFactory {
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		Class<?> raw = type.getRawType();
+		if (!ArgPojo.class.isAssignableFrom(raw)) {
+			return null;
+		}
+		String[] names = ArgPojos.argNames(raw);
+		if (names == null) {
+			return null;
+		}
+		try {
+			return new ArgPojoAdapter(gson, gson.getDelegateAdapter(this, type), raw, names);
+		} catch (NoSuchFieldException | NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static final class ArgPojoAdapter<T extends ArgPojo> extends TypeAdapter<T> {
+		private final TypeAdapter<T> writer;
+		private final Constructor<T> constructor;
+		private final Map<String, Integer> indexes;
+		private final TypeAdapter<?>[] adapters;
+
+		ArgPojoAdapter(Gson gson, TypeAdapter<T> writer, Class<T> clz, String[] names)
+				throws NoSuchFieldException, NoSuchMethodException {
+			this.writer = writer;
+			this.constructor = clz.getDeclaredConstructor();
+			this.constructor.setAccessible(true);
+			this.indexes = new HashMap<>(names.length * 2);
+			this.adapters = new TypeAdapter<?>[names.length];
+			for (int i = 0; i < names.length; i++) {
+				Field f = clz.getDeclaredField(names[i]);
+				this.indexes.put(gson.fieldNamingStrategy().translateName(f), i);
+				this.adapters[i] = gson.getAdapter(TypeToken.get(f.getGenericType()));
+			}
+		}
+
+		@Override
+		public void write(JsonWriter out, T value) throws IOException {
+			writer.write(out, value);
+		}
+
+		@Override
+		public T read(JsonReader in) throws IOException {
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return null;
+			}
+			T pojo;
+			try {
+				pojo = constructor.newInstance();
+			} catch (Exception e) {
+				throw new JsonIOException("Failed to create " + constructor.getDeclaringClass().getName(), e);
+			}
+			in.beginObject();
+			while (in.hasNext()) {
+				Integer index = indexes.get(in.nextName());
+				if (index == null) {
+					in.skipValue();
+					continue;
+				}
+				Object v = adapters[index].read(in);
+				if (v != null) {
+					pojo.setParam(index, v);
+				}
+			}
+			in.endObject();
+			return pojo;
+		}
+	}
+}
@@ -24,8 +24,11 @@ import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
 import static org.objectweb.asm.Opcodes.RETURN;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -35,6 +38,17 @@ import org.yx.util.UUIDSeed;
 
 public class ArgPojos {
 
+	private static final Map<Class<?>, String[]> ARG_NAMES = new ConcurrentHashMap<>();
+
+	/**
+	 * @param clz
+	 *            由create()生成的类
+	 * @return 参数名，下标跟setParam()的下标一致。不是生成的类就返回null
+	 */
+	public static String[] argNames(Class<?> clz) {
+		return ARG_NAMES.get(clz);
+	}
+
 	@SuppressWarnings("unchecked")
 	public static Class<? extends ArgPojo> create(MethodParamInfo p) throws Exception {
 		final Method method = p.getMethod();
@@ -91,9 +105,18 @@ public class ArgPojos {
 		mv.visitMaxs(1, 0);
 		mv.visitEnd();
 
+		mv = cw.visitMethod(ACC_PUBLIC, "setParam", "(ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		buildSetParam(fullName, mv, args);
+		mv.visitMaxs(2, 3);
+		mv.visitEnd();
+
 		cw.visitEnd();
 
-		return (Class<? extends ArgPojo>) AsmUtils.loadClass(fullName.replace('/', '.'), cw.toByteArray());
+		Class<? extends ArgPojo> clz = (Class<? extends ArgPojo>) AsmUtils.loadClass(fullName.replace('/', '.'),
+				cw.toByteArray());
+		ARG_NAMES.put(clz, p.getArgNames().clone());
+		return clz;
 
 	}
 
@@ -107,6 +130,32 @@ public class ArgPojos {
 		WriterHelper.buildParamArray(mv, params);
 	}
 
+	private static void buildSetParam(String fullName, MethodVisitor mv, Arg[] args) {
+		Label end = new Label();
+		if (args.length > 0) {
+			Label[] labels = new Label[args.length];
+			for (int i = 0; i < labels.length; i++) {
+				labels[i] = new Label();
+			}
+			mv.visitVarInsn(Opcodes.ILOAD, 1);
+			mv.visitTableSwitchInsn(0, args.length - 1, end, labels);
+			for (int i = 0; i < args.length; i++) {
+				mv.visitLabel(labels[i]);
+				mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitVarInsn(ALOAD, 2);
+				WriterHelper.castOrUnbox(mv, args[i].desc);
+				mv.visitFieldInsn(Opcodes.PUTFIELD, fullName, args[i].name, args[i].desc);
+				mv.visitInsn(RETURN);
+			}
+		}
+		mv.visitLabel(end);
+		if (args.length > 0) {
+			mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null);
+		}
+		mv.visitInsn(RETURN);
+	}
+
 	private static void loadObjectFields(String fullName, MethodVisitor mv, Arg[] args, Class<?>[] params) {
 		for (int i = 0; i < params.length; i++) {
 			mv.visitVarInsn(ALOAD, 0);
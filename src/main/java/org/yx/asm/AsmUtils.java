@@ -59,7 +59,7 @@ public final class AsmUtils {
 		return name.substring(0, index) + ".sumkbox" + name.substring(index);
 	}
 
-	private static ClassLoader loader() {
+	static ClassLoader loader() {
 		ClassLoader load = Thread.currentThread().getContextClassLoader();
 		if (load != null) {
 			return load;
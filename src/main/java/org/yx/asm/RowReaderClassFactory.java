@@ -0,0 +1,255 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.asm;
+
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.IALOAD;
+import static org.objectweb.asm.Opcodes.IFLE;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IFNULL;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.yx.conf.Const;
+import org.yx.log.Log;
+import org.yx.util.UUIDSeed;
+
+/**
+ * 生成从ResultSet直接读取pojo的类，省去中间的map和反射。<BR>
+ * 生成的类跟pojo在同一个包下，非private的字段直接赋值，private字段调用public的setter，
+ * 都不行的话，就调用父类的setValue(Object,int,Object)方法
+ */
+public final class RowReaderClassFactory {
+
+	private static final String RS = "java/sql/ResultSet";
+
+	/**
+	 * 字段类型对应的ResultSet的getter
+	 */
+	private static final Map<Class<?>, Method> GETTERS = new HashMap<>();
+
+	static {
+		try {
+			Object[][] getters = { { int.class, "getInt" }, { Integer.class, "getInt" }, { long.class, "getLong" },
+					{ Long.class, "getLong" }, { short.class, "getShort" }, { Short.class, "getShort" },
+					{ byte.class, "getByte" }, { Byte.class, "getByte" }, { boolean.class, "getBoolean" },
+					{ Boolean.class, "getBoolean" }, { float.class, "getFloat" }, { Float.class, "getFloat" },
+					{ double.class, "getDouble" }, { Double.class, "getDouble" }, { String.class, "getString" },
+					{ BigDecimal.class, "getBigDecimal" }, { byte[].class, "getBytes" },
+					{ java.sql.Timestamp.class, "getTimestamp" }, { java.sql.Date.class, "getDate" },
+					{ java.sql.Time.class, "getTime" } };
+			for (Object[] g : getters) {
+				GETTERS.put((Class<?>) g[0], java.sql.ResultSet.class.getMethod((String) g[1], int.class));
+			}
+		} catch (Exception e) {
+			Log.printStack("sumk.error", e);
+		}
+	}
+
+	/**
+	 * @param superClz
+	 *            生成类的父类。它要有public的无参构造函数、protected int[] indexes
+	 *            (字段对应的列序号，0表示结果集里没有这一列)，以及protected void setValue(Object,int,Object)
+	 * @param pojoClz
+	 *            pojo类
+	 * @param fields
+	 *            字段，顺序跟indexes一致
+	 * @return 生成的类。pojo跟sumk不是同一个ClassLoader，或者没有可以访问的无参构造函数时，返回null
+	 * @throws Exception
+	 *             生成失败
+	 */
+	public static Class<?> create(Class<?> superClz, Class<?> pojoClz, Field[] fields) throws Exception {
+		if (!canGenerate(pojoClz)) {
+			return null;
+		}
+		String fullName = String.join("_", pojoClz.getName(), "SumkReader", UUIDSeed.seq());
+		String internalName = fullName.replace('.', '/');
+		String superName = Type.getInternalName(superClz);
+		String pojoName = Type.getInternalName(pojoClz);
+		Log.get("sumk.asm").trace("begin generate row reader :{}", fullName);
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected String getCommonSuperClass(String type1, String type2) {
+				// 合并的局部变量都会在使用前重新赋值，不需要精确类型，也避免了加载pojo类
+				return "java/lang/Object";
+			}
+		};
+		cw.visit(Const.JVM_VERSION, ACC_PUBLIC | ACC_SUPER, internalName, null, superName, null);
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(ACC_PUBLIC, "read", "(Ljava/sql/ResultSet;)Ljava/lang/Object;", null,
+				new String[] { "java/lang/Exception" });
+		mv.visitCode();
+		mv.visitTypeInsn(NEW, pojoName);
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, pojoName, "<init>", "()V", false);
+		mv.visitVarInsn(ASTORE, 2);
+		for (int i = 0; i < fields.length; i++) {
+			readField(mv, superName, pojoClz, fields[i], i);
+		}
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return AsmUtils.loadClass(fullName, cw.toByteArray());
+	}
+
+	private static boolean canGenerate(Class<?> pojoClz) {
+		if (pojoClz.getClassLoader() != AsmUtils.loader() || Modifier.isPrivate(pojoClz.getModifiers())
+				|| Modifier.isAbstract(pojoClz.getModifiers())) {
+			return false;
+		}
+		try {
+			Constructor<?> c = pojoClz.getDeclaredConstructor();
+			return !Modifier.isPrivate(c.getModifiers());
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 局部变量：0是this，1是ResultSet，2是pojo，3是列序号，4、5存放读取到的值
+	 */
+	private static void readField(MethodVisitor mv, String superName, Class<?> pojoClz, Field f, int index) {
+		Label skip = new Label();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, superName, "indexes", "[I");
+		WriterHelper.visitInt(mv, index);
+		mv.visitInsn(IALOAD);
+		mv.visitVarInsn(ISTORE, 3);
+		mv.visitVarInsn(ILOAD, 3);
+		mv.visitJumpInsn(IFLE, skip);
+
+		Class<?> fieldType = f.getType();
+		Method getter = GETTERS.get(fieldType);
+		boolean direct = directWritable(pojoClz, f);
+		Method setter = direct ? null : setter(pojoClz, f);
+		if (getter == null || (!direct && setter == null)) {
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 2);
+			WriterHelper.visitInt(mv, index);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitVarInsn(ILOAD, 3);
+			mv.visitMethodInsn(INVOKEINTERFACE, RS, "getObject", "(I)Ljava/lang/Object;", true);
+			mv.visitMethodInsn(INVOKEVIRTUAL, superName, "setValue", "(Ljava/lang/Object;ILjava/lang/Object;)V",
+					false);
+			mv.visitLabel(skip);
+			return;
+		}
+
+		Class<?> valueType = getter.getReturnType();
+		Type type = Type.getType(valueType);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ILOAD, 3);
+		mv.visitMethodInsn(INVOKEINTERFACE, RS, getter.getName(), Type.getMethodDescriptor(getter), true);
+		mv.visitVarInsn(type.getOpcode(ISTORE), 4);
+		if (valueType.isPrimitive()) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKEINTERFACE, RS, "wasNull", "()Z", true);
+			mv.visitJumpInsn(IFNE, skip);
+		} else {
+			mv.visitVarInsn(ALOAD, 4);
+			mv.visitJumpInsn(IFNULL, skip);
+		}
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitVarInsn(type.getOpcode(ILOAD), 4);
+		if (valueType.isPrimitive() && !fieldType.isPrimitive()) {
+			WriterHelper.boxPrimitive(mv, valueType);
+		}
+		if (setter == null) {
+			mv.visitFieldInsn(PUTFIELD, Type.getInternalName(f.getDeclaringClass()), f.getName(),
+					Type.getDescriptor(fieldType));
+		} else {
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(pojoClz), setter.getName(),
+					Type.getMethodDescriptor(setter), false);
+			if (setter.getReturnType() != void.class) {
+				mv.visitInsn(POP);
+			}
+		}
+		mv.visitLabel(skip);
+	}
+
+	/**
+	 * 生成的类跟pojo在同一个包、同一个ClassLoader下，所以可以访问同一个包里声明的非private字段
+	 */
+	private static boolean directWritable(Class<?> pojoClz, Field f) {
+		int m = f.getModifiers();
+		if (Modifier.isPrivate(m) || Modifier.isFinal(m) || Modifier.isStatic(m)) {
+			return false;
+		}
+		Class<?> declaring = f.getDeclaringClass();
+		if (Modifier.isPublic(m) && Modifier.isPublic(declaring.getModifiers())) {
+			return true;
+		}
+		return declaring.getClassLoader() == pojoClz.getClassLoader()
+				&& packageName(declaring).equals(packageName(pojoClz));
+	}
+
+	private static Method setter(Class<?> pojoClz, Field f) {
+		String name = f.getName();
+		name = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+		try {
+			Method m = pojoClz.getMethod(name, f.getType());
+			if (Modifier.isStatic(m.getModifiers()) || !Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+				return null;
+			}
+			return m;
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private static String packageName(Class<?> clz) {
+		String name = clz.getName();
+		int index = name.lastIndexOf('.');
+		return index < 0 ? "" : name.substring(0, index);
+	}
+}
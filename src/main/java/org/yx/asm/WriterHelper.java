@@ -20,6 +20,7 @@ import static org.objectweb.asm.Opcodes.ALOAD;
 import static org.objectweb.asm.Opcodes.ANEWARRAY;
 import static org.objectweb.asm.Opcodes.ASTORE;
 import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
 import static org.objectweb.asm.Opcodes.DLOAD;
 import static org.objectweb.asm.Opcodes.DSTORE;
 import static org.objectweb.asm.Opcodes.DUP;
@@ -29,12 +30,14 @@ import static org.objectweb.asm.Opcodes.ICONST_0;
 import static org.objectweb.asm.Opcodes.ICONST_M1;
 import static org.objectweb.asm.Opcodes.ILOAD;
 import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
 import static org.objectweb.asm.Opcodes.ISTORE;
 import static org.objectweb.asm.Opcodes.LLOAD;
 import static org.objectweb.asm.Opcodes.LSTORE;
 import static org.objectweb.asm.Opcodes.SIPUSH;
 
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
 import org.yx.conf.AppInfo;
 
 public class WriterHelper {
@@ -202,6 +205,23 @@ public class WriterHelper {
 
 	}
 
+	/**
+	 * 栈顶的Object转换成desc对应的类型，基本类型会先转成包装类再拆箱
+	 */
+	public static void castOrUnbox(MethodVisitor mv, String desc) {
+		Type type = Type.getType(desc);
+		if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) {
+			if (!"java/lang/Object".equals(type.getInternalName())) {
+				mv.visitTypeInsn(CHECKCAST, type.getInternalName());
+			}
+			return;
+		}
+		String box = boxDesc(desc);
+		String owner = box.substring(1, box.length() - 1);
+		mv.visitTypeInsn(CHECKCAST, owner);
+		mv.visitMethodInsn(INVOKEVIRTUAL, owner, type.getClassName() + "Value", "()" + desc, false);
+	}
+
 	public static String boxDesc(String desc) {
 		switch (desc.charAt(0)) {
 		case 'Z':
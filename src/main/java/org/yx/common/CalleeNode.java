@@ -27,6 +27,7 @@ import java.util.Objects;
 import org.yx.annotation.Param;
 import org.yx.asm.ArgPojo;
 import org.yx.bean.Loader;
+import org.yx.common.limit.AdaptiveLimiter;
 import org.yx.exception.SumkException;
 import org.yx.log.Log;
 import org.yx.main.SumkThreadPool;
@@ -47,6 +48,11 @@ public abstract class CalleeNode {
 
 	protected final Method method;
 
+	/**
+	 * 自适应限流器，没有开启sumk.limit.adaptive的时候为null
+	 */
+	private final AdaptiveLimiter limiter;
+
 	public CalleeNode(Object owner, Method method, Class<? extends ArgPojo> argClz, String[] argNames, Param[] params,
 			int toplimit) {
 		this.owner = Objects.requireNonNull(owner);
@@ -55,6 +61,8 @@ public abstract class CalleeNode {
 		this.method = Objects.requireNonNull(method);
 		this.paramInfos = params == null || params.length == 0 ? null : new ParamInfo[params.length];
 		this.toplimit = toplimit;
+		this.limiter = AdaptiveLimiter
+				.createIfEnabled(method.getDeclaringClass().getSimpleName() + "." + method.getName());
 		if (this.paramInfos != null) {
 			Class<?>[] argTypes = this.getParameterTypes();
 			for (int i = 0; i < this.paramInfos.length; i++) {
@@ -79,6 +87,28 @@ public abstract class CalleeNode {
 			}
 			throw SumkThreadPool.THREAD_THRESHOLD_OVER;
 		}
+		if (this.limiter != null && !this.limiter.tryAcquire()) {
+			if (Log.get("sumk.thread").isDebugEnabled()) {
+				Log.get("sumk.thread").debug("adaptive limit reached: {}", limiter);
+			}
+			throw SumkThreadPool.THREAD_THRESHOLD_OVER;
+		}
+	}
+
+	/**
+	 * checkThreshold()成功之后，处理结束时一定要调用本方法
+	 * 
+	 * @param beginTime
+	 *            请求到达的时间，包含了排队时间
+	 */
+	public void release(long beginTime) {
+		if (this.limiter != null) {
+			this.limiter.release(System.currentTimeMillis() - beginTime);
+		}
+	}
+
+	public AdaptiveLimiter limiter() {
+		return this.limiter;
 	}
 
 	public ArgPojo getEmptyArgObj() throws Exception {
@@ -17,6 +17,7 @@ package org.yx.common;
 
 import java.util.Date;
 
+import org.yx.asm.ArgPojoTypeAdapterFactory;
 import org.yx.common.date.DateAdapters;
 import org.yx.common.date.DateTimeTypeAdapter;
 import org.yx.conf.AppInfo;
@@ -67,6 +68,9 @@ public final class GsonHelper {
 		if (AppInfo.getBoolean(module + ".gson.date.adaper", true)) {
 			DateAdapters.registerAll(gb);
 		}
+		if (AppInfo.getBoolean(module + ".gson.argpojo.adapter", true)) {
+			gb.registerTypeAdapterFactory(new ArgPojoTypeAdapterFactory());
+		}
 		return gb;
 	}
 
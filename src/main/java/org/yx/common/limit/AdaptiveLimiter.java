@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.yx.conf.AppInfo;
+
+/**
+ * 根据耗时自动调整并发上限的限流器(gradient算法)。<BR>
+ * 长期平均耗时和最近一个窗口的平均耗时之比就是梯度，耗时上升的时候上限跟着下降，耗时恢复之后上限慢慢回升。<BR>
+ * 耗时应该从请求到达开始算，这样排队的时间也会被计入，队列堆积的时候能够及早拒绝
+ */
+public final class AdaptiveLimiter {
+
+	public static boolean enabled() {
+		return AppInfo.getBoolean("sumk.limit.adaptive", false);
+	}
+
+	/**
+	 * 如果开启了自适应限流，就创建一个，否则返回null
+	 */
+	public static AdaptiveLimiter createIfEnabled(String name) {
+		return enabled() ? new AdaptiveLimiter(name) : null;
+	}
+
+	private final String name;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private final int minLimit;
+	private final int maxLimit;
+	private final double tolerance;
+	private final int windowSize;
+
+	private volatile int limit;
+
+	/**
+	 * 以下字段由this保护
+	 */
+	private double estimatedLimit;
+	private double longRtt;
+	private long windowSum;
+	private int windowCount;
+	private int windowMaxInflight;
+
+	public AdaptiveLimiter(String name) {
+		this.name = name;
+		this.minLimit = Math.max(AppInfo.getInt("sumk.limit.min", 4), 1);
+		this.maxLimit = Math.max(AppInfo.getInt("sumk.limit.max", 1000), minLimit);
+		this.tolerance = Math.max(AppInfo.getInt("sumk.limit.tolerance", 150), 100) / 100d;
+		this.windowSize = Math.max(AppInfo.getInt("sumk.limit.window", 20), 1);
+		int initial = AppInfo.getInt("sumk.limit.initial", 50);
+		this.estimatedLimit = Math.min(Math.max(initial, minLimit), maxLimit);
+		this.limit = (int) estimatedLimit;
+	}
+
+	/**
+	 * @return 成功的话，处理结束后一定要调用release()
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inflight.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @param rttMs
+	 *            从请求到达到处理完成的时间，单位毫秒
+	 */
+	public void release(long rttMs) {
+		int current = inflight.getAndDecrement();
+		this.sample(Math.max(rttMs, 1), current);
+	}
+
+	private synchronized void sample(long rtt, int inflightAtEnd) {
+		windowSum += rtt;
+		windowCount++;
+		if (inflightAtEnd > windowMaxInflight) {
+			windowMaxInflight = inflightAtEnd;
+		}
+		if (windowCount < windowSize) {
+			return;
+		}
+		double shortRtt = (double) windowSum / windowCount;
+		int maxInflight = windowMaxInflight;
+		windowSum = 0;
+		windowCount = 0;
+		windowMaxInflight = 0;
+
+		if (longRtt <= 0) {
+			longRtt = shortRtt;
+		} else {
+			longRtt = longRtt * 0.99 + shortRtt * 0.01;
+		}
+		if (longRtt / shortRtt > 2) {
+			longRtt *= 0.9;
+		}
+		if (maxInflight < estimatedLimit / 2) {
+			return;
+		}
+		double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+		double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+		newLimit = estimatedLimit * 0.8 + newLimit * 0.2;
+		estimatedLimit = Math.min(Math.max(newLimit, minLimit), maxLimit);
+		this.limit = (int) estimatedLimit;
+	}
+
+	public int limit() {
+		return limit;
+	}
+
+	public int inflight() {
+		return inflight.get();
+	}
+
+	@Override
+	public String toString() {
+		return name + " limit=" + limit + ", inflight=" + inflight.get() + ", rtt=" + (long) longRtt;
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 节点列表不可变，所有状态都在节点或ServerLoad里，所以子类可以不加锁地并发使用
+ */
+public abstract class AbstractRouter<T> implements Router<T> {
+
+	protected final WeightedServer<T>[] servers;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public AbstractRouter(Collection<WeightedServer<T>> servers) {
+		this.servers = servers.toArray(new WeightedServer[servers.size()]);
+	}
+
+	@Override
+	public List<T> allSources() {
+		List<T> list = new ArrayList<>(this.servers.length);
+		for (WeightedServer<T> s : this.servers) {
+			list.add(s.getSource());
+		}
+		return list;
+	}
+
+	@Override
+	public List<T> aliveSources() {
+		List<T> list = new ArrayList<>(this.servers.length);
+		for (WeightedServer<T> s : this.servers) {
+			if (s.isEnable()) {
+				list.add(s.getSource());
+			}
+		}
+		return list;
+	}
+
+	protected static int weight(WeightedServer<?> s) {
+		return Math.max(s.getWeight(), 1);
+	}
+
+	/**
+	 * @return 随机的一个可用节点，没有的时候返回null
+	 */
+	protected WeightedServer<T> randomEnabled() {
+		int start = ThreadLocalRandom.current().nextInt(servers.length);
+		for (int i = 0; i < servers.length; i++) {
+			WeightedServer<T> s = servers[(start + i) % servers.length];
+			if (s.isEnable()) {
+				return s;
+			}
+		}
+		return null;
+	}
+}
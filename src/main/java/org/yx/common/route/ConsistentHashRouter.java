@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 一致性哈希，每个节点按权重放置若干个虚拟节点。节点不可用的时候，顺延到环上的下一个可用节点。<BR>
+ * 没有key的时候随机选择
+ */
+public class ConsistentHashRouter<T> extends AbstractRouter<T> {
+
+	private final long[] ring;
+	private final int[] owners;
+
+	public ConsistentHashRouter(Collection<WeightedServer<T>> servers) {
+		super(servers);
+		int maxWeight = 1;
+		for (WeightedServer<T> s : this.servers) {
+			maxWeight = Math.max(maxWeight, weight(s));
+		}
+		int total = 0;
+		int[] replicas = new int[this.servers.length];
+		for (int i = 0; i < replicas.length; i++) {
+			replicas[i] = Math.max(160 * weight(this.servers[i]) / maxWeight, 10);
+			total += replicas[i];
+		}
+		long[][] points = new long[total][];
+		int k = 0;
+		for (int i = 0; i < replicas.length; i++) {
+			String name = String.valueOf(this.servers[i].getSource());
+			for (int n = 0; n < replicas[i]; n++) {
+				points[k++] = new long[] { hash(name + "#" + n), i };
+			}
+		}
+		Arrays.sort(points, (a, b) -> Long.compare(a[0], b[0]));
+		this.ring = new long[total];
+		this.owners = new int[total];
+		for (int i = 0; i < total; i++) {
+			ring[i] = points[i][0];
+			owners[i] = (int) points[i][1];
+		}
+	}
+
+	static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	@Override
+	public T select() {
+		return this.select(null);
+	}
+
+	@Override
+	public T select(Object key) {
+		long h = key == null ? ThreadLocalRandom.current().nextLong() : hash(key.toString());
+		int index = Arrays.binarySearch(ring, h);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		for (int i = 0; i < ring.length; i++) {
+			WeightedServer<T> s = servers[owners[(index + i) % ring.length]];
+			if (s.isEnable()) {
+				return s.getSource();
+			}
+		}
+		return null;
+	}
+
+}
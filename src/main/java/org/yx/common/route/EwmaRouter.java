@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机选两个可用节点，取负载较低的那个(power of two choices)。<BR>
+ * 负载 = (平均耗时 + 1) * (在途请求数 + 1) / 权重，慢节点和积压的节点都会少分到请求
+ */
+public class EwmaRouter<T> extends AbstractRouter<T> {
+
+	public EwmaRouter(Collection<WeightedServer<T>> servers) {
+		super(servers);
+	}
+
+	@Override
+	public T select() {
+		ThreadLocalRandom r = ThreadLocalRandom.current();
+		int len = servers.length;
+		int i = r.nextInt(len);
+		int j = r.nextInt(len - 1);
+		if (j >= i) {
+			j++;
+		}
+		WeightedServer<T> a = servers[i];
+		WeightedServer<T> b = servers[j];
+		boolean aOk = a.isEnable();
+		boolean bOk = b.isEnable();
+		if (aOk && bOk) {
+			return score(a) <= score(b) ? a.getSource() : b.getSource();
+		}
+		if (aOk) {
+			return a.getSource();
+		}
+		if (bOk) {
+			return b.getSource();
+		}
+		WeightedServer<T> s = this.randomEnabled();
+		return s == null ? null : s.getSource();
+	}
+
+	private double score(WeightedServer<T> s) {
+		ServerLoad load = ServerLoad.of(s.getSource());
+		return (load.ewma() + 1) * (load.active() + 1) / weight(s);
+	}
+
+}
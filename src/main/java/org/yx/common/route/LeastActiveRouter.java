@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 选择在途请求数除以权重最小的节点，相同的时候随机选一个
+ */
+public class LeastActiveRouter<T> extends AbstractRouter<T> {
+
+	public LeastActiveRouter(Collection<WeightedServer<T>> servers) {
+		super(servers);
+	}
+
+	@Override
+	public T select() {
+		int start = ThreadLocalRandom.current().nextInt(servers.length);
+		WeightedServer<T> best = null;
+		double bestScore = Double.MAX_VALUE;
+		for (int i = 0; i < servers.length; i++) {
+			WeightedServer<T> s = servers[(start + i) % servers.length];
+			if (!s.isEnable()) {
+				continue;
+			}
+			double score = (double) ServerLoad.of(s.getSource()).active() / weight(s);
+			if (score < bestScore) {
+				best = s;
+				bestScore = score;
+			}
+		}
+		return best == null ? null : best.getSource();
+	}
+
+}
@@ -21,6 +21,17 @@ public interface Router<T> {
 
 	T select();
 
+	/**
+	 * 根据key选择，相同的key尽量落在同一个节点上。只有一致性哈希等路由才会用到key
+	 * 
+	 * @param key
+	 *            一般是用户id、订单号之类的，为null的时候跟select()一样
+	 * @return 可用的节点，没有的时候返回null
+	 */
+	default T select(Object key) {
+		return select();
+	}
+
 	List<T> allSources();
 
 	List<T> aliveSources();
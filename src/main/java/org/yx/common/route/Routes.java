@@ -16,16 +16,59 @@
 package org.yx.common.route;
 
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.yx.log.Log;
 
 public final class Routes {
 
-	public static <T> Router<T> createWeightedRouter(Collection<WeightedServer<T>> servers) {
+	public static final String WEIGHTED = "weighted";
+	public static final String LEAST_ACTIVE = "leastactive";
+	public static final String EWMA = "ewma";
+	public static final String HASH = "hash";
+
+	/**
+	 * 已经告警过的错误策略名，路由表经常重建，每个名字只告警一次
+	 */
+	private static final Set<String> WARNED = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param type
+	 *            路由策略，支持weighted(加权轮询)、leastactive(最少在途)、ewma(延迟加权，二选一)、hash(一致性哈希)
+	 * @param servers
+	 *            节点
+	 * @return 线程安全的路由器
+	 */
+	public static <T> Router<T> create(String type, Collection<WeightedServer<T>> servers) {
 		if (servers == null || servers.isEmpty()) {
 			return new EmptyRouter<>();
 		}
 		if (servers.size() == 1) {
 			return new SingleRouter<>(servers.iterator().next());
 		}
-		return new WeightedRouter<>(servers);
+		if (type == null) {
+			return new WeightedRouter<>(servers);
+		}
+		switch (type.toLowerCase()) {
+		case LEAST_ACTIVE:
+			return new LeastActiveRouter<>(servers);
+		case EWMA:
+			return new EwmaRouter<>(servers);
+		case HASH:
+			return new ConsistentHashRouter<>(servers);
+		case WEIGHTED:
+			return new WeightedRouter<>(servers);
+		default:
+			if (WARNED.add(type)) {
+				Log.get("sumk.route").warn("unknown route type [{}], use {} instead. supported: {},{},{},{}", type,
+						WEIGHTED, WEIGHTED, LEAST_ACTIVE, EWMA, HASH);
+			}
+			return new WeightedRouter<>(servers);
+		}
+	}
+
+	public static <T> Router<T> createWeightedRouter(Collection<WeightedServer<T>> servers) {
+		return create(WEIGHTED, servers);
 	}
 }
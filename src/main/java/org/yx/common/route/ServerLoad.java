@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yx.conf.AppInfo;
+
+/**
+ * 节点的负载情况，包括在途的请求数和按时间衰减的平均耗时(EWMA)。<BR>
+ * 调用方在请求开始的时候调用begin()，结束的时候调用end()，路由器根据它来选择节点
+ */
+public final class ServerLoad {
+
+	private static final ConcurrentMap<Object, ServerLoad> LOADS = new ConcurrentHashMap<>();
+
+	private static final double DECAY = Math.max(AppInfo.getInt("sumk.route.ewma.decay", 10000), 1);
+
+	/**
+	 * @param source
+	 *            节点，比如Host、SumkDataSource
+	 * @return 不会为null
+	 */
+	public static ServerLoad of(Object source) {
+		ServerLoad load = LOADS.get(source);
+		if (load != null) {
+			return load;
+		}
+		return LOADS.computeIfAbsent(source, k -> new ServerLoad());
+	}
+
+	public static void remove(Object source) {
+		LOADS.remove(source);
+	}
+
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicLong ewmaBits = new AtomicLong(Double.doubleToRawLongBits(0));
+	private volatile long lastUpdate = System.currentTimeMillis();
+
+	private ServerLoad() {
+	}
+
+	public void begin() {
+		active.incrementAndGet();
+	}
+
+	/**
+	 * 请求被取消，只减少在途数，不计入耗时
+	 */
+	public void cancel() {
+		active.decrementAndGet();
+	}
+
+	/**
+	 * @param costMs
+	 *            本次请求的耗时，单位毫秒
+	 */
+	public void end(long costMs) {
+		active.decrementAndGet();
+		long now = System.currentTimeMillis();
+		double w = Math.exp(-(now - lastUpdate) / DECAY);
+		lastUpdate = now;
+		long prev, next;
+		do {
+			prev = ewmaBits.get();
+			double v = Double.longBitsToDouble(prev);
+			next = Double.doubleToRawLongBits(v * w + Math.max(costMs, 0) * (1 - w));
+		} while (!ewmaBits.compareAndSet(prev, next));
+	}
+
+	public int active() {
+		return Math.max(active.get(), 0);
+	}
+
+	/**
+	 * @return 平均耗时。长时间没有请求的节点会返回0，让它有机会被重新探测
+	 */
+	public double ewma() {
+		if (System.currentTimeMillis() - lastUpdate > DECAY * 3) {
+			return 0;
+		}
+		return Double.longBitsToDouble(ewmaBits.get());
+	}
+
+	@Override
+	public String toString() {
+		return "active=" + active() + ", ewma=" + String.format("%.1f", ewma());
+	}
+}
@@ -20,12 +20,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 加权轮询。当前的下标和权重打包在一个AtomicLong里，通过CAS更新，所以可以被多个线程并发使用
+ */
 public class WeightedRouter<T> implements Router<T> {
 
-	protected int currentIndex = -1;
-
-	protected int currentWeight;
+	/**
+	 * 高32位是currentIndex，低32位是currentWeight
+	 */
+	protected final AtomicLong cursor;
 
 	protected final int MAX_WEIGHT;
 
@@ -42,8 +47,12 @@ public class WeightedRouter<T> implements Router<T> {
 		SERVERS = ws;
 		SERVER_COUNT = SERVERS.length;
 		MAX_WEIGHT = getMaxWeightForServers();
-		GCD_WEIGHT = getGCDForServers();
-		this.currentWeight = this.MAX_WEIGHT;
+		GCD_WEIGHT = hasDynamicWeight() ? 1 : getGCDForServers();
+		this.cursor = new AtomicLong(pack(-1, this.MAX_WEIGHT));
+	}
+
+	protected static long pack(int index, int weight) {
+		return (((long) index) << 32) | (weight & 0xFFFFFFFFL);
 	}
 
 	private BigInteger gcd(BigInteger a, BigInteger b) {
@@ -71,6 +80,18 @@ public class WeightedRouter<T> implements Router<T> {
 		return gcd > 0 ? gcd : 1;
 	}
 
+	/**
+	 * 权重会变化的时候，实际权重可能不是最大公约数的倍数，只能按1递减
+	 */
+	protected boolean hasDynamicWeight() {
+		for (WeightedServer<T> s : SERVERS) {
+			if (s.dynamicWeight()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	protected int getMaxWeightForServers() {
 		int w = 0;
 		for (WeightedServer<T> s : SERVERS) {
@@ -104,25 +125,34 @@ public class WeightedRouter<T> implements Router<T> {
 
 	@Override
 	public T select() {
-		int index = 0;
-
-		for (int i = 0; i < SERVER_COUNT; i++) {
-			index = (currentIndex + 1) % SERVER_COUNT;
-			currentIndex = index;
-
-			if (index == 0) {
-				int tempWeight = currentWeight - GCD_WEIGHT;
-
-				currentWeight = tempWeight < 1 ? MAX_WEIGHT : tempWeight;
-			}
+		while (true) {
+			long old = cursor.get();
+			int currentIndex = (int) (old >> 32);
+			int currentWeight = (int) old;
+			WeightedServer<T> selected = null;
+			for (int i = 0; i < SERVER_COUNT; i++) {
+				int index = (currentIndex + 1) % SERVER_COUNT;
+				currentIndex = index;
+
+				if (index == 0) {
+					int tempWeight = currentWeight - GCD_WEIGHT;
+
+					currentWeight = tempWeight < 1 ? MAX_WEIGHT : tempWeight;
+				}
 
-			WeightedServer<T> server = SERVERS[index];
-			if (server.getWeight() >= currentWeight) {
-				if (!server.isEnable()) {
-					continue;
+				WeightedServer<T> server = SERVERS[index];
+				if (server.getWeight() >= currentWeight && server.isEnable()) {
+					selected = server;
+					break;
 				}
-				return server.getSource();
 			}
+			if (!cursor.compareAndSet(old, pack(currentIndex, currentWeight))) {
+				continue;
+			}
+			if (selected != null) {
+				return selected.getSource();
+			}
+			break;
 		}
 
 		for (int i = 0; i < SERVER_COUNT; i++) {
@@ -24,4 +24,11 @@ public interface WeightedServer<T> {
 	T getSource();
 
 	boolean isEnable();
+
+	/**
+	 * @return true表示getWeight()在运行中会变化，比如节点恢复后的预热
+	 */
+	default boolean dynamicWeight() {
+		return false;
+	}
 }
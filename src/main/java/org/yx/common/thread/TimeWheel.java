@@ -0,0 +1,255 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.thread;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.yx.log.Log;
+
+/**
+ * 哈希时间轮，适合大量、短时、多数会被取消的定时任务，比如请求超时。<BR>
+ * 添加和取消都是O(1)而且不加锁，到期时间的误差不超过一个tick。<BR>
+ * 任务在时间轮自己的线程里执行，所以任务要尽量短小，耗时的操作请放到线程池中
+ */
+public final class TimeWheel {
+
+	private static final int INIT = 0;
+	private static final int CANCELLED = 1;
+	private static final int EXPIRED = 2;
+
+	private final String name;
+	private final long tickNanos;
+	private final Bucket[] buckets;
+	private final int mask;
+	private final Queue<Timeout> pendings = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancels = new ConcurrentLinkedQueue<>();
+
+	private volatile Thread worker;
+	private long startTime;
+	private long tick;
+
+	/**
+	 * @param name
+	 *            线程名
+	 * @param tickMs
+	 *            每一格的时长，单位毫秒
+	 * @param wheelSize
+	 *            格数，会调整成2的n次方
+	 */
+	public TimeWheel(String name, long tickMs, int wheelSize) {
+		this.name = Objects.requireNonNull(name);
+		this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMs, 1));
+		int size = 1;
+		while (size < wheelSize && size < (1 << 20)) {
+			size <<= 1;
+		}
+		this.buckets = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			buckets[i] = new Bucket();
+		}
+		this.mask = size - 1;
+	}
+
+	/**
+	 * @param task
+	 *            到期时执行的任务
+	 * @param delayMs
+	 *            延迟多少毫秒
+	 * @return 可以用来取消任务
+	 */
+	public Timeout add(Runnable task, long delayMs) {
+		Objects.requireNonNull(task);
+		if (worker == null) {
+			this.start();
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMs, 0)) - startTime;
+		Timeout t = new Timeout(this, task, deadline);
+		pendings.add(t);
+		return t;
+	}
+
+	public int pendingSize() {
+		return pendings.size();
+	}
+
+	private synchronized void start() {
+		if (worker != null) {
+			return;
+		}
+		startTime = System.nanoTime();
+		Thread t = new Thread(this::loop, name);
+		t.setDaemon(true);
+		worker = t;
+		t.start();
+	}
+
+	private void loop() {
+		while (true) {
+			long deadline = tickNanos * (tick + 1);
+			long sleep = deadline - (System.nanoTime() - startTime);
+			if (sleep > 0) {
+				LockSupport.parkNanos(this, sleep);
+				continue;
+			}
+			try {
+				this.removeCancelled();
+				this.transferPendings();
+				buckets[(int) (tick & mask)].expire(deadline);
+			} catch (Throwable e) {
+				Log.printStack("sumk.error", e);
+			}
+			tick++;
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout t;
+		while ((t = cancels.poll()) != null) {
+			if (t.bucket != null) {
+				t.bucket.remove(t);
+			}
+		}
+	}
+
+	/**
+	 * 每次最多转移10万个，防止新任务太多的时候饿死已到期的任务
+	 */
+	private void transferPendings() {
+		for (int i = 0; i < 100000; i++) {
+			Timeout t = pendings.poll();
+			if (t == null) {
+				return;
+			}
+			if (t.state.get() != INIT) {
+				continue;
+			}
+			long calculated = t.deadline / tickNanos;
+			t.remainingRounds = (calculated - tick) / buckets.length;
+			long ticks = Math.max(calculated, tick);
+			buckets[(int) (ticks & mask)].add(t);
+		}
+	}
+
+	public static final class Timeout {
+		private final TimeWheel wheel;
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(INIT);
+
+		long remainingRounds;
+		Timeout next;
+		Timeout prev;
+		Bucket bucket;
+
+		Timeout(TimeWheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return false表示已经执行或者已经取消了
+		 */
+		public boolean cancel() {
+			if (!state.compareAndSet(INIT, CANCELLED)) {
+				return false;
+			}
+			wheel.cancels.add(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+
+		void expire() {
+			if (!state.compareAndSet(INIT, EXPIRED)) {
+				return;
+			}
+			try {
+				task.run();
+			} catch (Throwable e) {
+				Log.printStack("sumk.error", e);
+			}
+		}
+	}
+
+	/**
+	 * 双向链表，只在时间轮的线程里访问
+	 */
+	private static final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout t) {
+			t.bucket = this;
+			if (head == null) {
+				head = tail = t;
+				return;
+			}
+			tail.next = t;
+			t.prev = tail;
+			tail = t;
+		}
+
+		void expire(long deadline) {
+			Timeout t = head;
+			while (t != null) {
+				Timeout next = t.next;
+				if (t.remainingRounds <= 0 && t.deadline <= deadline) {
+					remove(t);
+					t.expire();
+				} else if (t.isCancelled()) {
+					remove(t);
+				} else if (t.remainingRounds > 0) {
+					t.remainingRounds--;
+				}
+				t = next;
+			}
+		}
+
+		void remove(Timeout t) {
+			if (t.bucket != this) {
+				return;
+			}
+			Timeout next = t.next;
+			if (t.prev != null) {
+				t.prev.next = next;
+			}
+			if (next != null) {
+				next.prev = t.prev;
+			}
+			if (t == head) {
+				head = next;
+			}
+			if (t == tail) {
+				tail = t.prev;
+			}
+			t.prev = null;
+			t.next = null;
+			t.bucket = null;
+		}
+	}
+}
@@ -15,8 +15,10 @@
  */
 package org.yx.db;
 
+import org.yx.db.sql.NearCaches;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.PojoMetaHolder;
+import org.yx.redis.RecordBatch;
 import org.yx.redis.RecordReq;
 import org.yx.util.StringUtil;
 
@@ -42,6 +44,7 @@ public class DBUtil {
 		if (pm == null || pm.isNoCache()) {
 			return total;
 		}
+		RecordBatch batch = RecordReq.batch(pm);
 		for (T src : pojos) {
 			if (src == null) {
 				continue;
@@ -50,9 +53,11 @@ public class DBUtil {
 			if (StringUtil.isEmpty(id)) {
 				continue;
 			}
-			RecordReq.del(pm, id);
+			batch.del(id);
 			total++;
 		}
+		batch.execute();
+		NearCaches.broadcast(pm, batch.ids());
 		return total;
 	}
 }
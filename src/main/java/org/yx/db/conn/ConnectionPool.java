@@ -233,6 +233,13 @@ public final class ConnectionPool implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * @return true表示已经打开过写连接，当前线程可能有未提交的修改
+	 */
+	public boolean hasWriteConnection() {
+		return this.writeConn != null;
+	}
+
 	public String getDbName() {
 		return dbName;
 	}
@@ -30,12 +30,16 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 
 import org.yx.common.context.ActionContext;
+import org.yx.common.route.ServerLoad;
 import org.yx.db.event.EventLane;
+import org.yx.db.sql.DBSettings;
+import org.yx.db.sql.SqlCaches;
 import org.yx.log.Log;
 import org.yx.log.Logs;
 
@@ -47,6 +51,19 @@ public final class SumkConnection implements Connection {
 
 	private final boolean originAutoCommit;
 	private boolean autoCommit;
+	private final long openTime = System.currentTimeMillis();
+
+	/**
+	 * copy()出来的连接跟原连接共用底层连接，只关闭其中一个，所以只有原连接计入数据源的负载。<BR>
+	 * 数据源的负载按连接统计：在途数是打开的连接数，耗时是连接从打开到关闭的时长(包含事务里的业务代码)，
+	 * 不是单条sql的执行时间。所以ewma路由对数据源来说，比较的是连接的占用时长
+	 */
+	private final boolean counted;
+
+	/**
+	 * 按sql缓存的PreparedStatement，最近最少使用的会被关闭。只在本连接的生命周期内有效
+	 */
+	private LinkedHashMap<String, PreparedStatement> statements;
 
 	@Override
 	public boolean isReadOnly() throws SQLException {
@@ -54,9 +71,17 @@ public final class SumkConnection implements Connection {
 	}
 
 	public SumkConnection(Connection inner, SumkDataSource ds) {
+		this(inner, ds, true);
+	}
+
+	private SumkConnection(Connection inner, SumkDataSource ds, boolean counted) {
 		this.inner = inner;
 		this.dataSource = ds;
 		this.originAutoCommit = originAutoCommit();
+		this.counted = counted;
+		if (counted) {
+			ServerLoad.of(ds).begin();
+		}
 	}
 
 	private boolean originAutoCommit() {
@@ -95,6 +120,68 @@ public final class SumkConnection implements Connection {
 		return stmt;
 	}
 
+	/**
+	 * 优先从缓存中取PreparedStatement，用完要调用release()放回去。<BR>
+	 * 取出的statement会从缓存中移除，所以不会被同时使用两次
+	 */
+	public PreparedStatement prepareCached(String sql) throws SQLException {
+		if (this.statements != null) {
+			PreparedStatement ps = this.statements.remove(sql);
+			if (ps != null && !ps.isClosed()) {
+				SqlCaches.statementHit();
+				return ps;
+			}
+		}
+		if (DBSettings.statementCacheSize() > 0) {
+			SqlCaches.statementMiss();
+		}
+		return inner.prepareStatement(sql);
+	}
+
+	/**
+	 * 将prepareCached()取出的statement放回缓存。如果不能缓存，就直接关闭
+	 */
+	public void release(String sql, PreparedStatement ps) throws SQLException {
+		int max = DBSettings.statementCacheSize();
+		if (max <= 0 || this.inner == null) {
+			ps.close();
+			return;
+		}
+		try {
+			ps.clearParameters();
+			ps.clearBatch();
+		} catch (SQLException e) {
+			ps.close();
+			throw e;
+		}
+		if (this.statements == null) {
+			this.statements = new LinkedHashMap<>(16, 0.75f, true);
+		}
+		PreparedStatement old = this.statements.put(sql, ps);
+		if (old != null && old != ps) {
+			old.close();
+		}
+		while (this.statements.size() > max) {
+			Map.Entry<String, PreparedStatement> eldest = this.statements.entrySet().iterator().next();
+			this.statements.remove(eldest.getKey());
+			eldest.getValue().close();
+		}
+	}
+
+	private void closeStatements() {
+		if (this.statements == null) {
+			return;
+		}
+		for (PreparedStatement ps : this.statements.values()) {
+			try {
+				ps.close();
+			} catch (Exception e) {
+				Log.get("sumk.conn").warn(e.getMessage(), e);
+			}
+		}
+		this.statements = null;
+	}
+
 	@Override
 	public CallableStatement prepareCall(String sql) throws SQLException {
 		CallableStatement stmt = inner.prepareCall(sql);
@@ -148,6 +235,10 @@ public final class SumkConnection implements Connection {
 			Log.get("sumk.conn.close").trace("{} - 关闭连接", this);
 		}
 		EventLane.remove(this);
+		if (counted) {
+			ServerLoad.of(dataSource).end(System.currentTimeMillis() - openTime);
+		}
+		this.closeStatements();
 		try {
 			this.recoverAutoCommit();
 		} catch (Exception e) {
@@ -393,7 +484,7 @@ public final class SumkConnection implements Connection {
 	}
 
 	public SumkConnection copy() {
-		return new SumkConnection(this.inner, this.dataSource);
+		return new SumkConnection(this.inner, this.dataSource, false);
 	}
 
 	private void recoverAutoCommit() throws SQLException {
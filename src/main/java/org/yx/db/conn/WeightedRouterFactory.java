@@ -60,6 +60,10 @@ public class WeightedRouterFactory implements RouterFactory {
 		return new RWDataSource(write, read);
 	}
 
+	/**
+	 * 路由策略由sumk.db.router.{name}或sumk.db.router指定，见Routes。leastactive和ewma使用的负载是按连接统计的，
+	 * 见SumkConnection
+	 */
 	protected Router<SumkDataSource> createWeightedRouter(String name, DBType type,
 			List<WeightedServer<SumkDataSource>> wds) {
 		if (wds.isEmpty()) {
@@ -69,7 +73,7 @@ public class WeightedRouterFactory implements RouterFactory {
 				SumkException.throwException(83587871, "you have not config " + type + " datasource for " + name);
 			}
 		}
-		return Routes.createWeightedRouter(wds);
+		return Routes.create(AppInfo.get("sumk.db.router." + name, AppInfo.get("sumk.db.router", null)), wds);
 	}
 
 	/**
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.event;
+
+import static org.yx.conf.AppInfo.LN;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.yx.common.JobStep;
+import org.yx.conf.AppInfo;
+import org.yx.db.sql.DBSettings;
+import org.yx.db.sql.PojoMeta;
+import org.yx.db.sql.PojoMetaHolder;
+import org.yx.log.Log;
+import org.yx.main.SumkServer;
+import org.yx.main.SumkThreadPool;
+
+/**
+ * 修改事件的异步分发，通过sumk.db.event.async开启。<BR>
+ * 同一个表的事件总是落在同一个队列里，按顺序处理。跟队尾事件完全相同的事件会被合并掉，
+ * 因为连续执行两次相同的缓存维护，跟执行一次的效果是一样的。<BR>
+ * 队列满了的时候，调用线程会等待队列腾出空间，以保证同一个表的事件不乱序。@Table(strictEvent=true)的表总是同步处理
+ */
+public final class DBEventDispatcher {
+
+	private static volatile Lane[] lanes;
+	private static boolean started;
+
+	private static final LongAdder ASYNC = new LongAdder();
+	private static final LongAdder COALESCED = new LongAdder();
+	private static final LongAdder BLOCKED = new LongAdder();
+
+	/**
+	 * @return true表示已经交给后台处理(或者被合并了)，false表示要由调用者同步处理
+	 */
+	static boolean offer(DBEvent event) {
+		if (!ModifyEvent.class.isInstance(event) || !DBSettings.asyncEvent() || SumkServer.isDestoryed()) {
+			return false;
+		}
+		PojoMeta pm = PojoMetaHolder.getTableMeta(event.getTable());
+		if (pm != null && pm.isStrictEvent()) {
+			return false;
+		}
+		Lane[] ls = lanes;
+		if (ls == null && (ls = start()) == null) {
+			return false;
+		}
+		Lane lane = ls[(event.getTable().hashCode() & Integer.MAX_VALUE) % ls.length];
+		return lane.offer((ModifyEvent) event);
+	}
+
+	private static synchronized Lane[] start() {
+		if (started) {
+			return lanes;
+		}
+		started = true;
+		if (SumkServer.isDestoryed()) {
+			return null;
+		}
+		int count = Math.max(AppInfo.getInt("sumk.db.event.threads", 1), 1);
+		int capacity = Math.max(AppInfo.getInt("sumk.db.event.queue.size", 10000), 1);
+		Lane[] ls = new Lane[count];
+		for (int i = 0; i < count; i++) {
+			ls[i] = new Lane(capacity);
+			SumkThreadPool.loop(ls[i], "sumk-dbevent-" + i);
+		}
+		Log.get("sumk.db.event").info("async db event started,threads:{},capacity:{}", count, capacity);
+		lanes = ls;
+		return ls;
+	}
+
+	/**
+	 * 判断两个事件对缓存的影响是否完全相同
+	 */
+	private static boolean sameEffect(ModifyEvent a, ModifyEvent b) {
+		if (a.getClass() != b.getClass() || !Objects.equals(a.getTable(), b.getTable())) {
+			return false;
+		}
+		if (a instanceof DeleteEvent) {
+			return Objects.equals(((DeleteEvent) a).getWheres(), ((DeleteEvent) b).getWheres());
+		}
+		if (a instanceof InsertEvent) {
+			return Objects.equals(((InsertEvent) a).getPojos(), ((InsertEvent) b).getPojos());
+		}
+		if (a instanceof UpdateEvent) {
+			UpdateEvent u1 = (UpdateEvent) a;
+			UpdateEvent u2 = (UpdateEvent) b;
+			return u1.isFullUpdate() == u2.isFullUpdate() && u1.isUpdateDBID() == u2.isUpdateDBID()
+					&& Objects.equals(u1.getWheres(), u2.getWheres()) && Objects.equals(u1.getTo(), u2.getTo())
+					&& Objects.equals(u1.getIncrMap(), u2.getIncrMap());
+		}
+		return false;
+	}
+
+	public static String info() {
+		Lane[] ls = lanes;
+		StringBuilder sb = new StringBuilder();
+		sb.append("db.event").append("  async:").append(ASYNC.sum()).append("  coalesced:").append(COALESCED.sum())
+				.append("  blocked:").append(BLOCKED.sum());
+		if (ls != null) {
+			sb.append("  pending:");
+			for (Lane lane : ls) {
+				sb.append(lane.size()).append(' ');
+			}
+		}
+		return sb.append(LN).toString();
+	}
+
+	private static final class Lane implements JobStep {
+		private final ArrayDeque<ModifyEvent> queue = new ArrayDeque<>();
+		private final int capacity;
+		private Thread worker;
+
+		Lane(int capacity) {
+			this.capacity = capacity;
+		}
+
+		synchronized boolean offer(ModifyEvent event) {
+			ModifyEvent last = queue.peekLast();
+			if (last != null && sameEffect(last, event)) {
+				COALESCED.increment();
+				return true;
+			}
+			while (queue.size() >= capacity) {
+				if (Thread.currentThread() == worker || SumkServer.isDestoryed()) {
+					return false;
+				}
+				BLOCKED.increment();
+				try {
+					this.wait(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+			queue.addLast(event);
+			ASYNC.increment();
+			this.notifyAll();
+			return true;
+		}
+
+		synchronized int size() {
+			return queue.size();
+		}
+
+		@Override
+		public boolean run() throws Exception {
+			ModifyEvent event;
+			synchronized (this) {
+				worker = Thread.currentThread();
+				if (queue.isEmpty()) {
+					this.wait(1000);
+				}
+				boolean full = queue.size() >= capacity;
+				event = queue.pollFirst();
+				if (full) {
+					this.notifyAll();
+				}
+			}
+			if (event != null) {
+				DBEventPublisher.dispatch(event);
+			}
+			return true;
+		}
+
+		@Override
+		public void close() {
+			ModifyEvent event;
+			while ((event = this.poll()) != null) {
+				DBEventPublisher.dispatch(event);
+			}
+		}
+
+		private synchronized ModifyEvent poll() {
+			return queue.pollFirst();
+		}
+	}
+}
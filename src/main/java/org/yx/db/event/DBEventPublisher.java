@@ -18,17 +18,33 @@ package org.yx.db.event;
 import org.yx.db.listener.DBEventListener;
 import org.yx.listener.ListenerGroup;
 import org.yx.listener.ListenerGroupImpl;
+import org.yx.log.Log;
 
 public final class DBEventPublisher {
 
 	private static final ListenerGroup<DBEventListener> group = new ListenerGroupImpl<>();
 
+	/**
+	 * 开启异步的时候，修改事件会放到队列里由后台线程处理。队列满了就阻塞等待，直到队列有空位。<BR>
+	 * 在后台线程里发布事件、等待时被中断或者系统正在关闭的时候，不再等待，直接在当前线程处理
+	 */
 	public static void publish(DBEvent event) {
+		if (DBEventDispatcher.offer(event)) {
+			return;
+		}
 		group.listen(event);
 	}
 
+	static void dispatch(DBEvent event) {
+		try {
+			group.listen(event);
+		} catch (Throwable e) {
+			Log.printStack("sumk.db.listener", e);
+		}
+	}
+
 	public static ListenerGroup<DBEventListener> group() {
 		return group;
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -20,10 +20,12 @@ import java.util.Map;
 
 import org.yx.annotation.Bean;
 import org.yx.db.event.DeleteEvent;
+import org.yx.db.sql.NearCaches;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.PojoMetaHolder;
 import org.yx.listener.SumkEvent;
 import org.yx.log.Log;
+import org.yx.redis.RecordBatch;
 import org.yx.redis.RecordReq;
 
 @Bean
@@ -44,10 +46,12 @@ public class DeleteListener implements DBEventListener {
 			if (wheres == null || wheres.isEmpty()) {
 				return;
 			}
+			RecordBatch batch = RecordReq.batch(pm);
 			for (Map<String, Object> src : wheres) {
-				String id = pm.getRedisID(src, true);
-				RecordReq.del(pm, id);
+				batch.del(pm.getRedisID(src, true));
 			}
+			batch.execute();
+			NearCaches.broadcast(pm, batch.ids());
 		} catch (Exception e) {
 			Log.printStack("sumk.db.listener", e);
 		}
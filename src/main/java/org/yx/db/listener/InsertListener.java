@@ -15,17 +15,19 @@
  */
 package org.yx.db.listener;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import org.yx.annotation.Bean;
-import org.yx.db.DBGson;
 import org.yx.db.enums.CacheType;
 import org.yx.db.event.InsertEvent;
+import org.yx.db.sql.NearCaches;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.PojoMetaHolder;
 import org.yx.listener.SumkEvent;
 import org.yx.log.Log;
+import org.yx.redis.RecordBatch;
 import org.yx.redis.RecordReq;
 
 @Bean
@@ -43,17 +45,20 @@ public class InsertListener implements DBEventListener {
 			if (pm == null || pm.isNoCache() || list == null) {
 				return;
 			}
+			RecordBatch batch = RecordReq.batch(pm);
 			for (Map<String, Object> map : list) {
 				String id = pm.getRedisID(map, false);
 				if (id == null) {
 					continue;
 				}
 				if (pm.cacheType() == CacheType.LIST) {
-					RecordReq.del(pm, id);
-					return;
+					batch.del(id);
+					continue;
 				}
-				RecordReq.set(pm, id, DBGson.toJson(map));
+				batch.set(id, Collections.singletonList(map));
 			}
+			batch.execute();
+			NearCaches.broadcast(pm, batch.ids());
 		} catch (Exception e) {
 			Log.printStack("sumk.db.listener", e);
 		}
@@ -16,17 +16,20 @@
 package org.yx.db.listener;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.yx.annotation.Bean;
-import org.yx.db.DBGson;
 import org.yx.db.enums.CacheType;
 import org.yx.db.event.QueryEvent;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.PojoMetaHolder;
 import org.yx.listener.SumkEvent;
 import org.yx.log.Log;
+import org.yx.redis.RecordBatch;
 import org.yx.redis.RecordReq;
 
 @Bean
@@ -44,37 +47,36 @@ public class SelectListener implements DBEventListener {
 				return;
 			}
 			List<Map<String, Object>> in = event.getIn();
-			if (in == null || in.size() != 1) {
+			if (in == null || in.isEmpty()) {
 				return;
 			}
-
-			Map<String, Object> where = in.get(0);
-			if (!pm.isOnlyRedisID(where)) {
-				return;
-			}
-			String id = pm.getRedisID(where, false);
-			if (id == null) {
-				return;
-			}
-
-			List<Object> list = new ArrayList<>(4);
+			Map<String, List<Object>> results = new HashMap<>();
 			for (Object obj : event.getResult()) {
-				if (id.equals(pm.getRedisID(obj, false))) {
-					list.add(obj);
+				String id = pm.getRedisID(obj, false);
+				if (id != null) {
+					results.computeIfAbsent(id, k -> new ArrayList<>(2)).add(obj);
 				}
 			}
-			if (list.isEmpty()) {
-				return;
-			}
-
-			if (pm.cacheType() == CacheType.LIST) {
-				RecordReq.set(pm, id, DBGson.toJson(list));
-				return;
-			}
-			if (list.size() != 1 || list.get(0) == null) {
-				return;
+			RecordBatch batch = RecordReq.batch(pm);
+			Set<String> handled = new HashSet<>();
+			for (Map<String, Object> where : in) {
+				if (!pm.isOnlyRedisID(where)) {
+					continue;
+				}
+				String id = pm.getRedisID(where, false);
+				if (id == null || !handled.add(id)) {
+					continue;
+				}
+				List<Object> list = results.get(id);
+				if (list == null) {
+					batch.absent(id);
+					continue;
+				}
+				if (pm.cacheType() == CacheType.LIST || list.size() == 1) {
+					batch.set(id, list);
+				}
 			}
-			RecordReq.set(pm, id, DBGson.toJson(list.get(0)));
+			batch.execute();
 		} catch (Exception e) {
 			Log.printStack("sumk.db.listener", e);
 		}
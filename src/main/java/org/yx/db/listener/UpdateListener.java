@@ -15,19 +15,21 @@
  */
 package org.yx.db.listener;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.yx.annotation.Bean;
-import org.yx.db.DBGson;
 import org.yx.db.enums.CacheType;
 import org.yx.db.event.UpdateEvent;
 import org.yx.db.sql.ColumnMeta;
+import org.yx.db.sql.NearCaches;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.PojoMetaHolder;
 import org.yx.listener.SumkEvent;
 import org.yx.log.Log;
+import org.yx.redis.RecordBatch;
 import org.yx.redis.RecordReq;
 
 @Bean
@@ -45,17 +47,21 @@ public class UpdateListener implements DBEventListener {
 				return;
 			}
 			List<Map<String, Object>> wheres = event.getWheres();
+			RecordBatch batch = RecordReq.batch(pm);
 			for (Map<String, Object> where : wheres) {
 
-				handleUpdate(event, pm, where);
+				handleUpdate(event, pm, where, batch);
 			}
+			batch.execute();
+			NearCaches.broadcast(pm, batch.ids());
 
 		} catch (Exception e) {
 			Log.printStack("sumk.db.listener", e);
 		}
 	}
 
-	private void handleUpdate(UpdateEvent event, PojoMeta pm, Map<String, Object> where) throws Exception {
+	private void handleUpdate(UpdateEvent event, PojoMeta pm, Map<String, Object> where, RecordBatch batch)
+			throws Exception {
 		String id = pm.getRedisID(where, true);
 		Map<String, Object> to = new HashMap<>(event.getTo());
 		if (!event.isUpdateDBID()) {
@@ -75,17 +81,17 @@ public class UpdateListener implements DBEventListener {
 		if (event.isFullUpdate()) {
 			String id_new = pm.getRedisID(to, true);
 			if (!id.equals(id_new)) {
-				RecordReq.del(pm, id);
+				batch.del(id);
 			}
 			if (pm.cacheType() == CacheType.LIST || event.getIncrMap() != null) {
-				RecordReq.del(pm, id_new);
+				batch.del(id_new);
 			} else {
-				RecordReq.set(pm, id_new, DBGson.toJson(to));
+				batch.set(id_new, Collections.singletonList(to));
 			}
 			return;
 		}
 
-		RecordReq.del(pm, id);
+		batch.del(id);
 
 		Map<String, Object> where2 = new HashMap<>(where);
 		where2.putAll(to);
@@ -94,7 +100,7 @@ public class UpdateListener implements DBEventListener {
 		if (id.equals(id_new)) {
 			return;
 		}
-		RecordReq.del(pm, id_new);
+		batch.del(id_new);
 	}
 
 }
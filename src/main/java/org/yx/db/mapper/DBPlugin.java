@@ -32,6 +32,7 @@ import org.yx.db.conn.DataSources;
 import org.yx.db.event.DBEventPublisher;
 import org.yx.db.listener.DBEventListener;
 import org.yx.db.sql.DBSettings;
+import org.yx.db.sql.NearCaches;
 import org.yx.exception.SumkException;
 import org.yx.log.Logs;
 import org.yx.util.SumkDate;
@@ -54,6 +55,11 @@ public class DBPlugin implements Plugin {
 		preHotDataSource();
 	}
 
+	@Override
+	public void afterStarted() {
+		NearCaches.startListen();
+	}
+
 	protected void preHotDataSource() {
 		if (AppInfo.getBoolean("sumk.db.pool.prehot.disable", false)) {
 			return;
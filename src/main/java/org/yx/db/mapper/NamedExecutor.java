@@ -19,10 +19,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.yx.db.sql.InsertResult;
 import org.yx.db.sql.MapedSql;
 import org.yx.db.sql.SqlBuilder;
+import org.yx.db.visit.ResultSetUtils;
 import org.yx.db.visit.Visitors;
 import org.yx.exception.SumkException;
 
@@ -80,6 +82,19 @@ public final class NamedExecutor {
 		}
 	}
 
+	/**
+	 * 流式查询，statement在方法返回之前关闭
+	 * 
+	 * @return 读取的行数
+	 */
+	public static int forEach(SqlParser sql, Map<String, Object> map, Consumer<Map<String, Object>> consumer) {
+		try {
+			return Visitors.streamVisitor(ResultSetUtils::mapReader, consumer).visit(createSqlBuilder(sql, map));
+		} catch (Exception e) {
+			throw SumkException.create(e);
+		}
+	}
+
 	public static List<Object[]> listInArray(SqlParser sql, Map<String, Object> map) {
 		try {
 			return Visitors.arrayListQueryVisitor.visit(createSqlBuilder(sql, map));
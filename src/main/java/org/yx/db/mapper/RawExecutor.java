@@ -17,9 +17,11 @@ package org.yx.db.mapper;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.yx.db.sql.InsertResult;
 import org.yx.db.sql.RawSqlBuilder;
+import org.yx.db.visit.ResultSetUtils;
 import org.yx.db.visit.Visitors;
 import org.yx.exception.SumkException;
 
@@ -93,6 +95,44 @@ public class RawExecutor {
 		}
 	}
 
+	/**
+	 * 流式查询，结果集不会一次性加载到内存，适用于导出等数据量很大的场景
+	 * 
+	 * @param sql
+	 *            以?为占位符的原生sql
+	 * @param consumer
+	 *            处理每一行数据，statement在方法返回之前关闭
+	 * @param params
+	 *            参数
+	 * @return 读取的行数
+	 */
+	public static int forEach(String sql, Consumer<Map<String, Object>> consumer, Object... params) {
+		try {
+			return Visitors.streamVisitor(ResultSetUtils::mapReader, consumer).visit(new RawSqlBuilder(sql, params));
+		} catch (Exception e) {
+			throw SumkException.create(e);
+		}
+	}
+
+	/**
+	 * 跟forEach()类似，但每一行是按列的顺序组成的数组
+	 * 
+	 * @param sql
+	 *            以?为占位符的原生sql
+	 * @param consumer
+	 *            处理每一行数据，statement在方法返回之前关闭
+	 * @param params
+	 *            参数
+	 * @return 读取的行数
+	 */
+	public static int forEachInOrder(String sql, Consumer<Object[]> consumer, Object... params) {
+		try {
+			return Visitors.streamVisitor(ResultSetUtils::arrayReader, consumer).visit(new RawSqlBuilder(sql, params));
+		} catch (Exception e) {
+			throw SumkException.create(e);
+		}
+	}
+
 	/**
 	 * 只有一个列的list方法<BR>
 	 * sum等函数是特殊的singleColumnList，它返回的list的size为1
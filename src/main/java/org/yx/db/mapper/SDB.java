@@ -17,6 +17,7 @@ package org.yx.db.mapper;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.yx.db.sql.InsertResult;
 import org.yx.exception.SumkException;
@@ -35,6 +36,15 @@ public class SDB {
 		return NamedExecutor.list(SqlHolder.findSql(name), map);
 	}
 
+	/**
+	 * 流式查询，适用于结果集很大的场景。consumer在statement打开期间逐行调用
+	 * 
+	 * @return 读取的行数
+	 */
+	public static int forEach(String name, Map<String, Object> map, Consumer<Map<String, Object>> consumer) {
+		return NamedExecutor.forEach(SqlHolder.findSql(name), map, consumer);
+	}
+
 	public static List<Object[]> listInArray(String name, Map<String, Object> map) {
 		return NamedExecutor.listInArray(SqlHolder.findSql(name), map);
 	}
@@ -40,6 +40,11 @@ public abstract class AbstractSqlBuilder<T> implements SqlBuilder {
 
 	protected String sub;
 
+	/**
+	 * 批量模式下，每个对象或where条件生成一条sql，通过JDBC的addBatch()一起执行
+	 */
+	protected boolean batch;
+
 	protected void sub(String sub) {
 		if (this.sub != null) {
 			SumkException.throwException(14323543, "sub已经设置了，这个属性只允许调用一次");
@@ -0,0 +1,438 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.yx.bean.Loader;
+import org.yx.common.UnsafeByteArrayOutputStream;
+import org.yx.db.DBGson;
+
+/**
+ * 根据ColumnMeta[]生成的紧凑二进制格式。<BR>
+ * 格式：TAG(1字节) + VERSION(1字节) + 表结构指纹(4字节) + 记录数(varint) + 记录列表。<BR>
+ * 每条记录由null位图和非null字段组成，字段按ColumnMeta的顺序排列，整数使用zigzag varint。<BR>
+ * TAG为0，json不可能以它开头，所以json和二进制可以在redis中共存。表结构变化后，指纹对不上的记录被当作未命中
+ */
+public class BinaryRecordCodec implements RecordCodec {
+
+	public static final BinaryRecordCodec inst = new BinaryRecordCodec();
+
+	public static final byte TAG = 0;
+	public static final byte VERSION = 1;
+
+	private static final int BOOLEAN = 1, BYTE = 2, SHORT = 3, INT = 4, LONG = 5, FLOAT = 6, DOUBLE = 7, CHAR = 8,
+			STRING = 9, BYTES = 10, BIG_DECIMAL = 11, BIG_INTEGER = 12, DATE = 13, SQL_DATE = 14, TIME = 15,
+			TIMESTAMP = 16, LOCAL_DATE = 17, LOCAL_TIME = 18, LOCAL_DATE_TIME = 19, OTHER = 20;
+
+	private final ConcurrentMap<Class<?>, Schema> schemas = new ConcurrentHashMap<>();
+
+	public static boolean isBinary(byte[] data) {
+		return data != null && data.length > 6 && data[0] == TAG;
+	}
+
+	private Schema schema(PojoMeta pm) {
+		Schema s = schemas.get(pm.pojoClz);
+		if (s != null) {
+			return s;
+		}
+		s = new Schema(pm.fieldMetas);
+		Schema old = schemas.putIfAbsent(pm.pojoClz, s);
+		return old != null ? old : s;
+	}
+
+	@Override
+	public byte[] encode(PojoMeta pm, List<?> records) throws Exception {
+		Schema schema = schema(pm);
+		Output out = new Output(64 * records.size());
+		out.write(TAG);
+		out.write(VERSION);
+		out.writeFixedInt(schema.fingerprint);
+		out.writeVarInt(records.size());
+		int bitmapSize = (schema.columns.length + 7) >>> 3;
+		Object[] values = new Object[schema.columns.length];
+		for (Object rec : records) {
+			if (Map.class.isInstance(rec)) {
+				@SuppressWarnings("unchecked")
+				Map<String, Object> map = (Map<String, Object>) rec;
+				rec = pm.buildPojo(map);
+			}
+			byte[] bitmap = new byte[bitmapSize];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = schema.columns[i].field.get(rec);
+				if (values[i] == null) {
+					bitmap[i >>> 3] |= 1 << (i & 7);
+				}
+			}
+			out.write(bitmap, 0, bitmap.length);
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) {
+					writeValue(out, schema.types[i], values[i]);
+				}
+			}
+		}
+		return out.toByteArray();
+	}
+
+	@Override
+	public List<Object> decode(PojoMeta pm, byte[] data) throws Exception {
+		if (!isBinary(data) || data[1] != VERSION) {
+			return null;
+		}
+		Schema schema = schema(pm);
+		Input in = new Input(data, 2);
+		if (in.readFixedInt() != schema.fingerprint) {
+			return null;
+		}
+		int count = in.readVarInt();
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<Object> list = new ArrayList<>(count);
+		int bitmapSize = (schema.columns.length + 7) >>> 3;
+		for (int n = 0; n < count; n++) {
+			int bitmapStart = in.pos;
+			in.pos += bitmapSize;
+			Object obj = Loader.newInstance(pm.pojoClz);
+			for (int i = 0; i < schema.columns.length; i++) {
+				if ((data[bitmapStart + (i >>> 3)] & (1 << (i & 7))) != 0) {
+					continue;
+				}
+				ColumnMeta cm = schema.columns[i];
+				cm.field.set(obj, readValue(in, schema.types[i], cm.field.getGenericType()));
+			}
+			list.add(obj);
+		}
+		return list;
+	}
+
+	private static void writeValue(Output out, int type, Object v) {
+		switch (type) {
+		case BOOLEAN:
+			out.write(((Boolean) v) ? 1 : 0);
+			return;
+		case BYTE:
+			out.write((Byte) v);
+			return;
+		case SHORT:
+		case INT:
+			out.writeVarInt(zigzag(((Number) v).intValue()));
+			return;
+		case LONG:
+			out.writeVarLong(zigzag(((Number) v).longValue()));
+			return;
+		case FLOAT:
+			out.writeFixedInt(Float.floatToIntBits((Float) v));
+			return;
+		case DOUBLE:
+			out.writeFixedLong(Double.doubleToLongBits((Double) v));
+			return;
+		case CHAR:
+			out.writeVarInt((Character) v);
+			return;
+		case STRING:
+			out.writeBytes(((String) v).getBytes(StandardCharsets.UTF_8));
+			return;
+		case BYTES:
+			out.writeBytes((byte[]) v);
+			return;
+		case BIG_DECIMAL:
+			BigDecimal d = (BigDecimal) v;
+			out.writeVarInt(zigzag(d.scale()));
+			out.writeBytes(d.unscaledValue().toByteArray());
+			return;
+		case BIG_INTEGER:
+			out.writeBytes(((BigInteger) v).toByteArray());
+			return;
+		case DATE:
+		case SQL_DATE:
+		case TIME:
+			out.writeVarLong(zigzag(((Date) v).getTime()));
+			return;
+		case TIMESTAMP:
+			Timestamp ts = (Timestamp) v;
+			out.writeVarLong(zigzag(ts.getTime()));
+			out.writeVarInt(ts.getNanos());
+			return;
+		case LOCAL_DATE:
+			out.writeVarLong(zigzag(((LocalDate) v).toEpochDay()));
+			return;
+		case LOCAL_TIME:
+			out.writeVarLong(((LocalTime) v).toNanoOfDay());
+			return;
+		case LOCAL_DATE_TIME:
+			LocalDateTime dt = (LocalDateTime) v;
+			out.writeVarLong(zigzag(dt.toLocalDate().toEpochDay()));
+			out.writeVarLong(dt.toLocalTime().toNanoOfDay());
+			return;
+		default:
+			out.writeBytes(DBGson.toJson(v).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static Object readValue(Input in, int type, Type genericType) {
+		switch (type) {
+		case BOOLEAN:
+			return in.read() != 0;
+		case BYTE:
+			return (byte) in.read();
+		case SHORT:
+			return (short) unzigzag(in.readVarInt());
+		case INT:
+			return unzigzag(in.readVarInt());
+		case LONG:
+			return unzigzag(in.readVarLong());
+		case FLOAT:
+			return Float.intBitsToFloat(in.readFixedInt());
+		case DOUBLE:
+			return Double.longBitsToDouble(in.readFixedLong());
+		case CHAR:
+			return (char) in.readVarInt();
+		case STRING:
+			return new String(in.readBytes(), StandardCharsets.UTF_8);
+		case BYTES:
+			return in.readBytes();
+		case BIG_DECIMAL:
+			int scale = unzigzag(in.readVarInt());
+			return new BigDecimal(new BigInteger(in.readBytes()), scale);
+		case BIG_INTEGER:
+			return new BigInteger(in.readBytes());
+		case DATE:
+			return new Date(unzigzag(in.readVarLong()));
+		case SQL_DATE:
+			return new java.sql.Date(unzigzag(in.readVarLong()));
+		case TIME:
+			return new Time(unzigzag(in.readVarLong()));
+		case TIMESTAMP:
+			Timestamp ts = new Timestamp(unzigzag(in.readVarLong()));
+			ts.setNanos(in.readVarInt());
+			return ts;
+		case LOCAL_DATE:
+			return LocalDate.ofEpochDay(unzigzag(in.readVarLong()));
+		case LOCAL_TIME:
+			return LocalTime.ofNanoOfDay(in.readVarLong());
+		case LOCAL_DATE_TIME:
+			LocalDate date = LocalDate.ofEpochDay(unzigzag(in.readVarLong()));
+			return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readVarLong()));
+		default:
+			return DBGson.fromJson(new String(in.readBytes(), StandardCharsets.UTF_8), genericType);
+		}
+	}
+
+	private static int zigzag(int n) {
+		return (n << 1) ^ (n >> 31);
+	}
+
+	private static long zigzag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+
+	private static int unzigzag(int n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static long unzigzag(long n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	private static int typeOf(Class<?> clz) {
+		if (clz == boolean.class || clz == Boolean.class) {
+			return BOOLEAN;
+		}
+		if (clz == byte.class || clz == Byte.class) {
+			return BYTE;
+		}
+		if (clz == short.class || clz == Short.class) {
+			return SHORT;
+		}
+		if (clz == int.class || clz == Integer.class) {
+			return INT;
+		}
+		if (clz == long.class || clz == Long.class) {
+			return LONG;
+		}
+		if (clz == float.class || clz == Float.class) {
+			return FLOAT;
+		}
+		if (clz == double.class || clz == Double.class) {
+			return DOUBLE;
+		}
+		if (clz == char.class || clz == Character.class) {
+			return CHAR;
+		}
+		if (clz == String.class) {
+			return STRING;
+		}
+		if (clz == byte[].class) {
+			return BYTES;
+		}
+		if (clz == BigDecimal.class) {
+			return BIG_DECIMAL;
+		}
+		if (clz == BigInteger.class) {
+			return BIG_INTEGER;
+		}
+		if (clz == Date.class) {
+			return DATE;
+		}
+		if (clz == java.sql.Date.class) {
+			return SQL_DATE;
+		}
+		if (clz == Time.class) {
+			return TIME;
+		}
+		if (clz == Timestamp.class) {
+			return TIMESTAMP;
+		}
+		if (clz == LocalDate.class) {
+			return LOCAL_DATE;
+		}
+		if (clz == LocalTime.class) {
+			return LOCAL_TIME;
+		}
+		if (clz == LocalDateTime.class) {
+			return LOCAL_DATE_TIME;
+		}
+		return OTHER;
+	}
+
+	private static final class Schema {
+		final ColumnMeta[] columns;
+		final int[] types;
+		final int fingerprint;
+
+		Schema(ColumnMeta[] columns) {
+			this.columns = columns;
+			this.types = new int[columns.length];
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < columns.length; i++) {
+				this.types[i] = typeOf(columns[i].field.getType());
+				sb.append(columns[i].getFieldName()).append(':').append(columns[i].field.getType().getName())
+						.append(',');
+			}
+			this.fingerprint = sb.toString().hashCode();
+		}
+	}
+
+	private static final class Output extends UnsafeByteArrayOutputStream {
+
+		Output(int size) {
+			super(size);
+		}
+
+		void writeVarInt(int v) {
+			while ((v & ~0x7F) != 0) {
+				write((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			write(v);
+		}
+
+		void writeVarLong(long v) {
+			while ((v & ~0x7FL) != 0) {
+				write((int) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+			write((int) v);
+		}
+
+		void writeFixedInt(int v) {
+			write(v >>> 24);
+			write(v >>> 16);
+			write(v >>> 8);
+			write(v);
+		}
+
+		void writeFixedLong(long v) {
+			writeFixedInt((int) (v >>> 32));
+			writeFixedInt((int) v);
+		}
+
+		void writeBytes(byte[] bs) {
+			writeVarInt(bs.length);
+			write(bs, 0, bs.length);
+		}
+	}
+
+	private static final class Input {
+		final byte[] data;
+		int pos;
+
+		Input(byte[] data, int pos) {
+			this.data = data;
+			this.pos = pos;
+		}
+
+		int read() {
+			return data[pos++] & 0xFF;
+		}
+
+		int readVarInt() {
+			int ret = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = read();
+				ret |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					break;
+				}
+			}
+			return ret;
+		}
+
+		long readVarLong() {
+			long ret = 0;
+			for (int shift = 0; shift < 70; shift += 7) {
+				int b = read();
+				ret |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					break;
+				}
+			}
+			return ret;
+		}
+
+		int readFixedInt() {
+			return (read() << 24) | (read() << 16) | (read() << 8) | read();
+		}
+
+		long readFixedLong() {
+			return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+		}
+
+		byte[] readBytes() {
+			int len = readVarInt();
+			byte[] bs = new byte[len];
+			System.arraycopy(data, pos, bs, 0, len);
+			pos += len;
+			return bs;
+		}
+	}
+}
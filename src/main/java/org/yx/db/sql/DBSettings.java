@@ -23,6 +23,11 @@ public final class DBSettings {
 	private static boolean FROM_CACHE;
 	private static boolean TO_CACHE;
 	private static int MAX_LOG_PARAM_LENGTH;
+	private static boolean SINGLE_FLIGHT;
+	private static int CACHE_REFRESH_WINDOW;
+	private static int BATCH_SIZE;
+	private static int STATEMENT_CACHE_SIZE;
+	private static boolean ASYNC_EVENT;
 
 	private static int LIMIT_AS_NO_LIMIT;
 
@@ -46,6 +51,41 @@ public final class DBSettings {
 		return MAX_LOG_PARAM_LENGTH;
 	}
 
+	/**
+	 * @return true表示缓存没命中的时候，合并相同主键的并发查询
+	 */
+	public static boolean singleFlight() {
+		return SINGLE_FLIGHT;
+	}
+
+	/**
+	 * 缓存剩余有效期小于这个值(毫秒)的时候，有一定概率被当成没命中，从而提前刷新，越接近过期概率越大。0表示不提前刷新
+	 */
+	public static int cacheRefreshWindow() {
+		return CACHE_REFRESH_WINDOW;
+	}
+
+	/**
+	 * @return 批量模式下，每执行一次executeBatch()最多包含的sql数
+	 */
+	public static int batchSize() {
+		return BATCH_SIZE;
+	}
+
+	/**
+	 * @return 每个连接缓存的PreparedStatement数，0表示不缓存
+	 */
+	public static int statementCacheSize() {
+		return STATEMENT_CACHE_SIZE;
+	}
+
+	/**
+	 * @return true表示修改事件(维护缓存)在后台线程中异步处理
+	 */
+	public static boolean asyncEvent() {
+		return ASYNC_EVENT;
+	}
+
 	public static synchronized void register() {
 		if (LIMIT_AS_NO_LIMIT > 0) {
 			return;
@@ -57,6 +97,11 @@ public final class DBSettings {
 				TO_CACHE = AppInfo.getBoolean("sumk.db.toCache", true);
 				LIMIT_AS_NO_LIMIT = AppInfo.getInt("sumk.db.asnolimit", 5000);
 				MAX_LOG_PARAM_LENGTH = AppInfo.getInt("sumk.sql.param.maxlength", 5000);
+				SINGLE_FLIGHT = AppInfo.getBoolean("sumk.db.singleflight", true);
+				CACHE_REFRESH_WINDOW = AppInfo.getInt("sumk.db.cache.refresh.window", 0);
+				BATCH_SIZE = Math.max(AppInfo.getInt("sumk.db.batch.size", 500), 1);
+				STATEMENT_CACHE_SIZE = AppInfo.getInt("sumk.db.statement.cache", 32);
+				ASYNC_EVENT = AppInfo.getBoolean("sumk.db.event.async", false);
 			} catch (Exception e) {
 				Logs.db().info(e.getMessage(), e);
 			}
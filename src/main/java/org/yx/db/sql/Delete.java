@@ -49,6 +49,18 @@ public class Delete extends AbstractSqlBuilder<Integer> implements Executable {
 		return this;
 	}
 
+	/**
+	 * 使用JDBC的批量模式，每个删除条件生成一条sql，通过addBatch()一起执行
+	 * 
+	 * @param batch
+	 *            默认是false，即多个条件用OR连接成一条语句
+	 * @return 当前对象
+	 */
+	public Delete batch(boolean batch) {
+		this.batch = batch;
+		return this;
+	}
+
 	public Delete tableClass(Class<?> tableClass) {
 		this.tableClass = tableClass;
 		return this;
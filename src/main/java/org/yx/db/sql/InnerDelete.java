@@ -15,10 +15,13 @@
  */
 package org.yx.db.sql;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.yx.common.ItemJoiner;
 import org.yx.db.event.DeleteEvent;
+import org.yx.exception.SumkException;
 
 public abstract class InnerDelete {
 	protected Delete delete;
@@ -30,9 +33,14 @@ public abstract class InnerDelete {
 	protected MapedSql toMapedSql(StringBuilder sb, MapedSql ms) throws InstantiationException, IllegalAccessException {
 		PojoMeta pojoMeta = delete.parsePojoMeta(true);
 		ItemJoiner orItem = new ItemJoiner(" OR ", " WHERE ", null);
-		boolean isSingle = delete.in.size() == 1;
+		boolean isSingle = delete.in.size() == 1 || delete.batch;
+		List<MapedSql> items = delete.batch ? new ArrayList<>(delete.in.size()) : null;
 		for (Map<String, Object> oneWhere : delete.in) {
 			delete.checkMap(oneWhere, pojoMeta);
+			MapedSql target = ms;
+			if (items != null) {
+				target = new MapedSql(null, new ArrayList<>(ms.getParamters()));
+			}
 			ItemJoiner andItem = isSingle ? new ItemJoiner(" AND ", null, null) : new ItemJoiner(" AND ", " ( ", " ) ");
 			for (ColumnMeta fm : pojoMeta.fieldMetas) {
 				if (!oneWhere.containsKey(fm.getFieldName())) {
@@ -44,14 +52,26 @@ public abstract class InnerDelete {
 					continue;
 				}
 				andItem.item().append(fm.dbColumn).append("=?");
-				ms.addParam(value);
+				target.addParam(value);
+			}
+			if (items != null) {
+				if (andItem.isEmpty()) {
+					SumkException.throwException(64342245, "can not delete all records");
+				}
+				target.sql = new StringBuilder(sb).append(" WHERE ").append(andItem.toCharSequence()).toString();
+				items.add(target);
+				continue;
 			}
 			orItem.item().append(andItem.toCharSequence());
 		}
+		DeleteEvent event = new DeleteEvent(pojoMeta.getTableName(), delete.in);
+		if (items != null) {
+			return MapedSql.batch(items, event);
+		}
 
 		sb.append(orItem.toCharSequence(true));
 		ms.sql = sb.toString();
-		ms.event = new DeleteEvent(pojoMeta.getTableName(), delete.in);
+		ms.event = event;
 		return ms;
 	}
 }
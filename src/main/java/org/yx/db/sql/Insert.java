@@ -61,6 +61,19 @@ public class Insert extends AbstractSqlBuilder<Integer> {
 		return this;
 	}
 
+	/**
+	 * 使用JDBC的批量模式，每条记录一个INSERT语句，复用同一个PreparedStatement。<BR>
+	 * 记录很多的时候，可以避免sql超过max_allowed_packet。mysql的连接串最好加上rewriteBatchedStatements=true
+	 * 
+	 * @param batch
+	 *            默认是false，即所有记录拼成一条INSERT语句
+	 * @return 当前对象
+	 */
+	public Insert batch(boolean batch) {
+		this.batch = batch;
+		return this;
+	}
+
 	public Insert tableClass(Class<?> tableClass) {
 		this.tableClass = tableClass;
 		return this;
@@ -74,36 +87,30 @@ public class Insert extends AbstractSqlBuilder<Integer> {
 
 	private MapedSql batchInsert() throws Exception {
 		MapedSql ms = new MapedSql();
-		ItemJoiner columns = ItemJoiner.create(",", " ( ", " ) ");
-		ItemJoiner placeholder = ItemJoiner.create(",", " ( ", " ) ");
 		ColumnMeta[] fms = pojoMeta.fieldMetas;
 		int recodeSize = in.size();
-		for (ColumnMeta fm : fms) {
-			String name = fm.dbColumn;
-			columns.item().append(name);
-			placeholder.item().append('?');
+		List<MapedSql> items = this.batch ? new ArrayList<>(recodeSize) : null;
+		String shape = null;
+		if (this.batch || recodeSize <= 16) {
+			shape = "INSERT#" + pojoMeta.getTableName() + "#" + (this.batch ? 1 : recodeSize);
+			ms.sql = SqlCaches.getTemplate(shape);
 		}
-		if (pojoMeta.isSoftDelete()) {
-			String columnName = pojoMeta.softDelete.columnName;
-			columns.item().append(columnName);
-			placeholder.item().append('?');
-		}
-		StringBuilder sql = new StringBuilder();
-		sql.append("INSERT INTO ").append(pojoMeta.getTableName()).append(columns.toCharSequence(true))
-				.append(" VALUES ");
-		CharSequence place = placeholder.toCharSequence(true);
-		for (int i = 0; i < recodeSize; i++) {
-			if (i > 0) {
-				sql.append(',');
+		if (ms.sql == null) {
+			ms.sql = this.buildInsertSql(recodeSize);
+			if (shape != null) {
+				SqlCaches.putTemplate(shape, ms.sql);
 			}
-			sql.append(place);
 		}
-		ms.sql = sql.toString();
 
 		List<Map<String, Object>> cacheList = new ArrayList<>(recodeSize);
 		for (int i = 0; i < recodeSize; i++) {
 			Map<String, Object> pojoMap = this.in.get(i);
 			Map<String, Object> map = new HashMap<>();
+			MapedSql target = ms;
+			if (items != null) {
+				target = new MapedSql(ms.sql, new ArrayList<>());
+				items.add(target);
+			}
 
 			for (ColumnMeta fm : fms) {
 				Object value = fm.value(pojoMap);
@@ -115,7 +122,7 @@ public class Insert extends AbstractSqlBuilder<Integer> {
 						fm.setValue(src.get(i), value);
 					}
 				}
-				ms.addParam(value);
+				target.addParam(value);
 				map.put(fm.getFieldName(), value);
 			}
 			if (map.isEmpty()) {
@@ -123,15 +130,48 @@ public class Insert extends AbstractSqlBuilder<Integer> {
 			}
 			cacheList.add(map);
 			if (pojoMeta.isSoftDelete()) {
-				ms.addParam(pojoMeta.softDelete.validValue);
+				target.addParam(pojoMeta.softDelete.validValue);
 			}
 		}
 
 		InsertEvent event = new InsertEvent(pojoMeta.getTableName(), cacheList);
+		if (items != null) {
+			return MapedSql.batch(items, event);
+		}
 		ms.event = event;
 		return ms;
 	}
 
+	private String buildInsertSql(int recodeSize) {
+		ItemJoiner columns = ItemJoiner.create(",", " ( ", " ) ");
+		ItemJoiner placeholder = ItemJoiner.create(",", " ( ", " ) ");
+		for (ColumnMeta fm : pojoMeta.fieldMetas) {
+			String name = fm.dbColumn;
+			columns.item().append(name);
+			placeholder.item().append('?');
+		}
+		if (pojoMeta.isSoftDelete()) {
+			String columnName = pojoMeta.softDelete.columnName;
+			columns.item().append(columnName);
+			placeholder.item().append('?');
+		}
+		StringBuilder sql = new StringBuilder();
+		sql.append("INSERT INTO ").append(pojoMeta.getTableName()).append(columns.toCharSequence(true))
+				.append(" VALUES ");
+		CharSequence place = placeholder.toCharSequence(true);
+		if (this.batch) {
+			sql.append(place);
+		} else {
+			for (int i = 0; i < recodeSize; i++) {
+				if (i > 0) {
+					sql.append(',');
+				}
+				sql.append(place);
+			}
+		}
+		return sql.toString();
+	}
+
 	private boolean canUseAutoID(PojoMeta pm) {
 		ColumnMeta[] ids = pm.getPrimaryIDs();
 		if (ids.length != 1) {
@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.yx.db.DBGson;
+import org.yx.db.enums.CacheType;
+import org.yx.db.visit.PojoResultHandler;
+
+/**
+ * 跟以前版本兼容的json格式。也能读取二进制格式的记录，便于灰度切换
+ */
+public class JsonRecordCodec implements RecordCodec {
+
+	public static final JsonRecordCodec inst = new JsonRecordCodec();
+
+	public static boolean isJson(byte[] data) {
+		return data != null && data.length > 0 && (data[0] == '{' || data[0] == '[');
+	}
+
+	@Override
+	public byte[] encode(PojoMeta pm, List<?> records) throws Exception {
+		Object obj = records.size() == 1 && pm.cacheType() != CacheType.LIST ? records.get(0) : records;
+		return DBGson.toJson(obj).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public List<Object> decode(PojoMeta pm, byte[] data) throws Exception {
+		if (!isJson(data)) {
+			return BinaryRecordCodec.inst.decode(pm, data);
+		}
+		String json = new String(data, StandardCharsets.UTF_8);
+		return PojoResultHandler.handler.parseFromJson(pm, Collections.singletonList(json));
+	}
+
+}
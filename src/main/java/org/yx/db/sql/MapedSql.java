@@ -41,6 +41,31 @@ public class MapedSql {
 	String sql;
 	private List<Object> paramters;
 	DBEvent event;
+	private List<MapedSql> batch;
+
+	/**
+	 * 批量模式，通过PreparedStatement的addBatch()执行
+	 * 
+	 * @param items
+	 *            每一条要执行的sql和它的参数，相邻的相同sql会共用一个PreparedStatement
+	 * @param event
+	 *            所有sql合并起来的事件
+	 * @return 批量执行的MapedSql，它的sql是第一条的sql，仅用于日志
+	 */
+	static MapedSql batch(List<MapedSql> items, DBEvent event) {
+		MapedSql ms = new MapedSql();
+		ms.sql = items.isEmpty() ? "" : items.get(0).sql;
+		ms.batch = items;
+		ms.event = event;
+		return ms;
+	}
+
+	/**
+	 * @return 批量模式下每一条要执行的sql，为null表示不是批量模式
+	 */
+	public List<MapedSql> getBatch() {
+		return batch;
+	}
 
 	public String getSql() {
 		return sql;
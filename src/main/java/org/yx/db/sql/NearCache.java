@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的记录缓存，key跟redis中的key相同。<BR>
+ * 缓存的是解析后的pojo，取出的时候返回的是浅拷贝，所以调用者修改返回值不会污染缓存
+ */
+public final class NearCache {
+
+	private final ConcurrentMap<String, CachedRecords> map = new ConcurrentHashMap<>();
+	private final PojoMeta pm;
+	private final int maxSize;
+	private final long durationInMs;
+
+	/**
+	 * 每次失效都会加1。读取redis之前记下它，回填的时候如果发生了变化，就放弃回填，防止旧数据覆盖新数据
+	 */
+	private final AtomicLong version = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	NearCache(PojoMeta pm, int maxSize, int durationInSecond) {
+		this.pm = pm;
+		this.maxSize = maxSize;
+		this.durationInMs = durationInSecond * 1000L;
+	}
+
+	public long version() {
+		return version.get();
+	}
+
+	public List<Object> get(String key) throws Exception {
+		CachedRecords c = map.get(key);
+		if (c == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		if (c.expireTime < System.currentTimeMillis()) {
+			map.remove(key, c);
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		List<Object> ret = new ArrayList<>(c.pojos.length);
+		for (Object obj : c.pojos) {
+			ret.add(pm.shallowCopy(obj));
+		}
+		return ret;
+	}
+
+	/**
+	 * @param key
+	 *            跟redis的key相同
+	 * @param pojos
+	 *            缓存中存放的是它们的拷贝
+	 * @param versionBeforeLoad
+	 *            加载数据之前的version()
+	 */
+	public void put(String key, List<Object> pojos, long versionBeforeLoad) throws Exception {
+		if (pojos == null || pojos.isEmpty() || versionBeforeLoad != version.get()) {
+			return;
+		}
+		Object[] copies = new Object[pojos.size()];
+		for (int i = 0; i < copies.length; i++) {
+			copies[i] = pm.shallowCopy(pojos.get(i));
+		}
+		if (map.size() >= maxSize) {
+			this.evictSome();
+		}
+		map.put(key, new CachedRecords(copies, System.currentTimeMillis() + durationInMs));
+	}
+
+	public void remove(String key) {
+		version.incrementAndGet();
+		map.remove(key);
+	}
+
+	public void clear() {
+		version.incrementAndGet();
+		map.clear();
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * 先清除过期的，如果还是太多，就随便删掉一部分，腾出四分之一的空间
+	 */
+	private void evictSome() {
+		long now = System.currentTimeMillis();
+		map.entrySet().removeIf(en -> en.getValue().expireTime < now);
+		int needRemove = map.size() - maxSize * 3 / 4;
+		Iterator<String> it = map.keySet().iterator();
+		while (needRemove-- > 0 && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "size=" + map.size() + ", hits=" + hits.get() + ", misses=" + misses.get();
+	}
+
+	private static final class CachedRecords {
+		final Object[] pojos;
+		final long expireTime;
+
+		CachedRecords(Object[] pojos, long expireTime) {
+			this.pojos = pojos;
+			this.expireTime = expireTime;
+		}
+	}
+}
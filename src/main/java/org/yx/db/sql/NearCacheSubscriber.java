@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import org.yx.common.JobStep;
+import org.yx.conf.AppInfo;
+import org.yx.log.Log;
+import org.yx.redis.SeniorRedis;
+
+import redis.clients.jedis.JedisPubSub;
+
+final class NearCacheSubscriber extends JedisPubSub implements JobStep {
+
+	private final SeniorRedis redis;
+	private final String channel;
+
+	NearCacheSubscriber(SeniorRedis redis, String channel) {
+		this.redis = redis;
+		this.channel = channel;
+	}
+
+	@Override
+	public void onMessage(String ch, String message) {
+		try {
+			NearCaches.onMessage(message);
+		} catch (Exception e) {
+			Log.get("sumk.db.nearcache").error(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public boolean run() throws Exception {
+		try {
+			redis.exec(jedis -> {
+				jedis.subscribe(this, channel);
+				return null;
+			}, 1);
+		} finally {
+			// 订阅断开期间可能漏掉了失效通知
+			NearCaches.clearAll();
+			Thread.sleep(AppInfo.getLong("sumk.db.nearcache.resubscribe", 3000));
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (this.isSubscribed()) {
+			this.unsubscribe();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.yx.conf.AppInfo;
+import org.yx.log.Log;
+import org.yx.main.SumkThreadPool;
+import org.yx.redis.Redis;
+import org.yx.redis.RedisPool;
+import org.yx.redis.SeniorRedis;
+import org.yx.util.S;
+
+/**
+ * 近端缓存的失效通知。本节点修改数据后，通过redis的发布订阅通知其它节点删除对应的近端缓存
+ */
+public final class NearCaches {
+
+	private static final Logger log = Log.get("sumk.db.nearcache");
+
+	private static String channel() {
+		return AppInfo.get("sumk.db.nearcache.channel", "__sumk_near_cache");
+	}
+
+	private static Redis redis() {
+		return RedisPool.get(AppInfo.get("sumk.db.nearcache.redis", null));
+	}
+
+	/**
+	 * 只删除本节点的近端缓存
+	 */
+	public static void evict(PojoMeta pm, String id) {
+		NearCache near = pm.nearCache();
+		if (near == null || id == null) {
+			return;
+		}
+		near.remove(pm.getPre() + id);
+	}
+
+	/**
+	 * 通知所有节点(包括自己)删除这些id对应的近端缓存
+	 */
+	public static void broadcast(PojoMeta pm, Collection<String> ids) {
+		if (pm.nearCache() == null || ids == null || ids.isEmpty()) {
+			return;
+		}
+		Redis redis = redis();
+		if (redis == null) {
+			return;
+		}
+		String[] msg = new String[ids.size() + 1];
+		msg[0] = pm.getTableName();
+		int i = 1;
+		for (String id : ids) {
+			msg[i++] = id;
+		}
+		try {
+			redis.publish(channel(), S.json().toJson(msg));
+		} catch (Exception e) {
+			log.error("near cache broadcast failed," + e.getMessage(), e);
+		}
+	}
+
+	static void onMessage(String message) {
+		String[] msg = S.json().fromJson(message, String[].class);
+		if (msg == null || msg.length < 2) {
+			return;
+		}
+		PojoMeta pm = PojoMetaHolder.getTableMeta(msg[0]);
+		if (pm == null) {
+			return;
+		}
+		for (int i = 1; i < msg.length; i++) {
+			evict(pm, msg[i]);
+		}
+		log.trace("{} evict {}", msg[0], msg.length - 1);
+	}
+
+	static void clearAll() {
+		for (PojoMeta pm : PojoMetaHolder.allPojoMeta()) {
+			if (pm.nearCache() != null) {
+				pm.nearCache().clear();
+			}
+		}
+	}
+
+	public static synchronized void startListen() {
+		boolean used = PojoMetaHolder.allPojoMeta().stream().anyMatch(pm -> pm.nearCache() != null);
+		Redis redis = redis();
+		if (!used || redis == null) {
+			return;
+		}
+		if (!SeniorRedis.class.isInstance(redis)) {
+			log.warn("near cache will not be notified by other nodes,because redis is {}", redis);
+			return;
+		}
+		String channel = channel();
+		log.info("near cache subscribe {} on {}", channel, redis);
+		SumkThreadPool.loop(new NearCacheSubscriber((SeniorRedis) redis, channel), "sumk-nearcache");
+	}
+}
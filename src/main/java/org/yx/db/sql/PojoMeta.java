@@ -22,7 +22,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 
 import org.yx.annotation.db.SoftDelete;
@@ -54,11 +56,14 @@ public final class PojoMeta implements Cloneable {
 
 	private VisitCounter counter;
 	private int ttlSec;
+	private int absentTtlSec;
 
 	private String pre;
 
 	private long lastHitTime;
 	private String tableName;
+	private NearCache nearCache;
+	private RecordCodec recordCodec;
 	final SoftDeleteMeta softDelete;
 
 	private Map<String, ColumnMeta> columnDBNameMap = new HashMap<>();
@@ -92,6 +97,20 @@ public final class PojoMeta implements Cloneable {
 		return table.cacheType();
 	}
 
+	/**
+	 * @return true表示修改事件总是同步处理
+	 */
+	public boolean isStrictEvent() {
+		return table.strictEvent();
+	}
+
+	/**
+	 * @return 进程内的近端缓存，没有启用的时候返回null
+	 */
+	public NearCache nearCache() {
+		return this.nearCache;
+	}
+
 	public boolean isPrimeKeySameWithReids() {
 		return primaryIDs == redisIDs;
 	}
@@ -112,6 +131,17 @@ public final class PojoMeta implements Cloneable {
 		this.lastHitTime = lastHitTime;
 	}
 
+	/**
+	 * @return 写缓存时使用的编码器
+	 */
+	public RecordCodec recordCodec() {
+		return recordCodec;
+	}
+
+	public void setRecordCodec(RecordCodec recordCodec) {
+		this.recordCodec = Objects.requireNonNull(recordCodec);
+	}
+
 	public VisitCounter getCounter() {
 		return counter;
 	}
@@ -120,6 +150,13 @@ public final class PojoMeta implements Cloneable {
 		return ttlSec;
 	}
 
+	/**
+	 * @return 空标记在缓存中的有效期，单位秒。0表示不启用空标记
+	 */
+	public int getAbsentTtlSec() {
+		return absentTtlSec;
+	}
+
 	PojoMeta(Table table, ColumnMeta[] fieldMetas, Class<?> pojoClz) {
 		super();
 		this.table = table;
@@ -161,16 +198,34 @@ public final class PojoMeta implements Cloneable {
 		} else {
 			this.ttlSec = -1;
 		}
+		int absent = table.absentDuration();
+		if (absent > 0) {
+			this.absentTtlSec = absent;
+		} else if (absent == 0) {
+			this.absentTtlSec = Math.max(AppInfo.getInt("sumk.cache.absent.ttl", 0), 0);
+		}
 		int maxHit = table.maxHit();
 		@SuppressWarnings("unchecked")
 		IntFunction<VisitCounter> factory = (IntFunction<VisitCounter>) StartContext.inst().get(VisitCounter.class);
 		this.counter = factory != null ? factory.apply(maxHit) : new DefaultVisitCounter(maxHit);
+		@SuppressWarnings("unchecked")
+		Function<PojoMeta, RecordCodec> codecFactory = (Function<PojoMeta, RecordCodec>) StartContext.inst()
+				.get(RecordCodec.class);
+		if (codecFactory != null) {
+			this.recordCodec = codecFactory.apply(this);
+		} else {
+			this.recordCodec = "binary".equals(AppInfo.get("sumk.db.cache.codec", "json")) ? BinaryRecordCodec.inst
+					: JsonRecordCodec.inst;
+		}
 
 		String _pre = table.preInCache();
 
 		this.pre = StringUtil.isEmpty(_pre) ? "{" + this.pojoClz.getSimpleName() + "}" : _pre;
 		this.tableName = StringUtil.isEmpty(table.value())
 				? DBNameResolvers.getResolver().resolveTableName(this.pojoClz.getSimpleName()) : table.value();
+		if (table.nearCacheSize() > 0 && table.cacheType() != CacheType.NOCACHE) {
+			this.nearCache = new NearCache(this, table.nearCacheSize(), table.nearCacheDuration());
+		}
 	}
 
 	public String getTableName() {
@@ -266,6 +321,46 @@ public final class PojoMeta implements Cloneable {
 		return obj;
 	}
 
+	/**
+	 * @param columns
+	 *            跟values一一对应
+	 * @param values
+	 *            字段的值，为null的不设置
+	 * @return 新创建的pojo对象
+	 * @throws Exception
+	 *             异常
+	 */
+	public Object buildPojo(ColumnMeta[] columns, Object[] values) throws Exception {
+		Object obj = Loader.newInstance(this.pojoClz);
+		for (int i = 0; i < columns.length; i++) {
+			Object v = values[i];
+			if (v == null) {
+				continue;
+			}
+			columns[i].setValue(obj, v);
+		}
+		return obj;
+	}
+
+	/**
+	 * @param src
+	 *            pojo或者map
+	 * @return 浅拷贝，跟src的类型相同
+	 * @throws Exception
+	 *             异常
+	 */
+	@SuppressWarnings("unchecked")
+	public Object shallowCopy(Object src) throws Exception {
+		if (Map.class.isInstance(src)) {
+			return new HashMap<>((Map<String, Object>) src);
+		}
+		Object obj = Loader.newInstance(this.pojoClz);
+		for (ColumnMeta m : this.fieldMetas) {
+			m.field.set(obj, m.field.get(src));
+		}
+		return obj;
+	}
+
 	@SuppressWarnings("unchecked")
 	public Map<String, Object> populateByDbColumn(Object source, boolean withnull)
 			throws InstantiationException, IllegalAccessException {
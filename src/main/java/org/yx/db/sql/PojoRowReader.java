@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import org.yx.db.visit.RowReader;
+
+/**
+ * 由org.yx.asm.RowReaderClassFactory生成的子类的父类，每个statement创建一个实例
+ */
+public abstract class PojoRowReader implements RowReader<Object> {
+
+	protected ColumnMeta[] fields;
+
+	/**
+	 * 跟fields一一对应，是字段在结果集里的列序号(从1开始)，0表示结果集里没有这个字段
+	 */
+	protected int[] indexes;
+
+	final PojoRowReader bind(ColumnMeta[] fields, int[] indexes) {
+		this.fields = fields;
+		this.indexes = indexes;
+		return this;
+	}
+
+	/**
+	 * 生成的代码不能直接赋值的字段，比如java.util.Date类型，会通过这个方法设置
+	 */
+	protected void setValue(Object owner, int fieldIndex, Object value) throws Exception {
+		if (value != null) {
+			fields[fieldIndex].setValue(owner, value);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.lang.reflect.Field;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.yx.asm.RowReaderClassFactory;
+import org.yx.bean.Loader;
+import org.yx.conf.AppInfo;
+import org.yx.log.Log;
+
+public final class PojoRowReaders {
+
+	private static final ConcurrentMap<Class<?>, Optional<Class<?>>> READER_CLASSES = new ConcurrentHashMap<>();
+
+	/**
+	 * @param pm
+	 *            表结构
+	 * @param columns
+	 *            结果集中每一列对应的字段，下标0对应第1列
+	 * @return 字节码生成的RowReader。如果不能生成，或者sumk.db.rowreader.asm为false，就返回null
+	 */
+	public static PojoRowReader create(PojoMeta pm, ColumnMeta[] columns) throws Exception {
+		if (!AppInfo.getBoolean("sumk.db.rowreader.asm", true)) {
+			return null;
+		}
+		Class<?> clz = READER_CLASSES.computeIfAbsent(pm.pojoClz, k -> Optional.ofNullable(generate(pm)))
+				.orElse(null);
+		if (clz == null) {
+			return null;
+		}
+		ColumnMeta[] fields = pm.fieldMetas;
+		int[] indexes = new int[fields.length];
+		for (int i = 0; i < columns.length; i++) {
+			for (int j = 0; j < fields.length; j++) {
+				if (fields[j] == columns[i]) {
+					indexes[j] = i + 1;
+					break;
+				}
+			}
+		}
+		return ((PojoRowReader) Loader.newInstance(clz)).bind(fields, indexes);
+	}
+
+	private static Class<?> generate(PojoMeta pm) {
+		ColumnMeta[] metas = pm.fieldMetas;
+		Field[] fields = new Field[metas.length];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = metas[i].field;
+		}
+		try {
+			return RowReaderClassFactory.create(PojoRowReader.class, pm.pojoClz, fields);
+		} catch (Throwable e) {
+			Log.get("sumk.asm").warn(pm.pojoClz.getName() + " generate row reader failed," + e.getMessage(), e);
+			return null;
+		}
+	}
+}
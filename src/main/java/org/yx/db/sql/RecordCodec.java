@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.util.List;
+
+/**
+ * 缓存记录的编解码器，用于将pojo写入redis以及从redis读取
+ */
+public interface RecordCodec {
+
+	/**
+	 * @param pm
+	 *            表结构
+	 * @param records
+	 *            pojo或者map(key是java字段名)。对于SINGLE类型，它只有一个元素
+	 * @return 写入redis的值
+	 * @throws Exception
+	 *             异常
+	 */
+	byte[] encode(PojoMeta pm, List<?> records) throws Exception;
+
+	/**
+	 * @param pm
+	 *            表结构
+	 * @param data
+	 *            redis中的值
+	 * @return pojo列表。如果data不是本编码器能识别的格式，就返回null
+	 * @throws Exception
+	 *             异常
+	 */
+	List<Object> decode(PojoMeta pm, byte[] data) throws Exception;
+}
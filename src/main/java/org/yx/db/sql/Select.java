@@ -18,17 +18,23 @@ package org.yx.db.sql;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Consumer;
 
+import org.yx.common.context.ActionContext;
+import org.yx.db.conn.ConnectionPool;
 import org.yx.db.event.DBEventPublisher;
 import org.yx.db.event.QueryEvent;
 import org.yx.db.visit.Exchange;
 import org.yx.db.visit.PojoResultHandler;
 import org.yx.db.visit.ResultHandler;
+import org.yx.db.visit.RowReader;
 import org.yx.db.visit.SumkDbVisitor;
+import org.yx.db.visit.Visitors;
 import org.yx.exception.SumkException;
 import org.yx.util.Asserts;
 import org.yx.util.CollectionUtil;
@@ -400,9 +406,16 @@ public class Select extends SelectBuilder {
 			List<Map<String, Object>> origin = this.in;
 			Exchange exchange = new Exchange(origin);
 
-			if (fromCache && this.selectColumns == null && _compare == null && this.orderby == null
-					&& this.offset == 0) {
+			boolean cacheable = fromCache && this.selectColumns == null && _compare == null && this.orderby == null
+					&& this.offset == 0;
+			if (cacheable) {
 				exchange.findFromCache(pojoMeta);
+				if (exchange.getPojoData() != null && exchange.getPojoData().size() > 0) {
+					List<T> tmp = handler.parseFromPojo(pojoMeta, exchange.getPojoData());
+					if (tmp != null && tmp.size() > 0) {
+						list.addAll(tmp);
+					}
+				}
 				if (exchange.getData() != null && exchange.getData().size() > 0) {
 					List<T> tmp = handler.parseFromJson(pojoMeta, exchange.getData());
 					if (tmp != null && tmp.size() > 0) {
@@ -416,20 +429,27 @@ public class Select extends SelectBuilder {
 			}
 
 			this.in = exchange.getLeftIn();
-			List<T> dbData = handler.parse(pojoMeta, this.accept(visitor));
+			String flightKey = cacheable ? this.flightKey(this.in, handler) : null;
+			SelectFlights.Flight<T> flight = flightKey == null
+					? new SelectFlights.Flight<>(this.queryFromDB(handler), true)
+					: SelectFlights.run(flightKey, pojoMeta, () -> this.queryFromDB(handler));
+			List<T> dbData = flight.data;
 			this.in = origin;
-			if (dbData == null || dbData.isEmpty()) {
+			boolean empty = dbData == null || dbData.isEmpty();
+			if (empty && pojoMeta.getAbsentTtlSec() <= 0) {
 				return list;
 			}
-			list.addAll(dbData);
+			if (!empty) {
+				list.addAll(dbData);
+			}
 			List<Map<String, Object>> eventIn = fromCache ? exchange.getLeftIn() : this.in;
 
-			if (this.toCache && selectColumns == null && _compare == null && this.offset == 0
+			if (flight.leader && this.toCache && selectColumns == null && _compare == null && this.offset == 0
 					&& (limit <= 0 || limit >= DBSettings.asNoLimit()) && CollectionUtil.isNotEmpty(eventIn)) {
 
 				QueryEvent event = new QueryEvent(this.parsePojoMeta(true).getTableName());
 				event.setIn(eventIn);
-				event.setResult(dbData);
+				event.setResult(empty ? Collections.emptyList() : dbData);
 				DBEventPublisher.publish(event);
 			}
 			if (this.limit > 0 && list.size() > this.limit) {
@@ -441,6 +461,60 @@ public class Select extends SelectBuilder {
 		}
 	}
 
+	/**
+	 * 默认的visitor使用RowReader直接把结果集转化成pojo，不经过中间的map
+	 */
+	private <T> List<T> queryFromDB(ResultHandler handler) throws Exception {
+		if (this.visitor != Visitors.queryVisitorForORM) {
+			return handler.parse(pojoMeta, this.accept(visitor));
+		}
+		RowReader.Factory<T> factory = md -> handler.rowReader(pojoMeta, md);
+		return Visitors.listVisitor(factory).visit(this);
+	}
+
+	/**
+	 * 只有全部是按redis主键查询，并且没有打开过写连接的时候，才能合并查询
+	 * 
+	 * @return 合并查询用的key，null表示不合并
+	 */
+	private String flightKey(List<Map<String, Object>> leftIn, ResultHandler handler) throws Exception {
+		if (!DBSettings.singleFlight() || CollectionUtil.isEmpty(leftIn) || ActionContext.get().isTest()
+				|| ConnectionPool.localPoolSize() == 0 || ConnectionPool.get().hasWriteConnection()) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(32).append(ConnectionPool.get().getDbName()).append('#')
+				.append(pojoMeta.getTableName()).append('#').append(handler.getClass().getName()).append('#')
+				.append(this.limit);
+		for (Map<String, Object> map : leftIn) {
+			if (!pojoMeta.isOnlyRedisID(map)) {
+				return null;
+			}
+			sb.append('#').append(pojoMeta.getRedisID(map, false));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 流式查询，适用于导出等结果集很大的场景。每读取一行，就转化成pojo(或map)交给consumer。<BR>
+	 * 它直接查询数据库，不读缓存，也不写缓存
+	 * 
+	 * @param <T>
+	 *            跟queryList()的元素类型一致
+	 * @param consumer
+	 *            处理每一条记录，它在statement打开期间被调用
+	 * @return 读取的记录数
+	 */
+	public <T> int forEach(Consumer<T> consumer) {
+		try {
+			ResultHandler handler = this.resultHandler();
+			this.pojoMeta = this.parsePojoMeta(true);
+			RowReader.Factory<T> factory = md -> handler.rowReader(pojoMeta, md);
+			return Visitors.streamVisitor(factory, consumer).visit(this);
+		} catch (Exception e) {
+			throw SumkException.create(e);
+		}
+	}
+
 	public <T> T queryOne() {
 		List<T> list = this.queryList();
 		if (list == null || list.isEmpty()) {
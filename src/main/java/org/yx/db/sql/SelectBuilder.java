@@ -63,6 +63,14 @@ public class SelectBuilder extends AbstractSqlBuilder<List<Map<String, Object>>>
 	public MapedSql toMapedSql() throws Exception {
 		List<Object> paramters = new ArrayList<>(10);
 		this.pojoMeta = parsePojoMeta(true);
+		String shape = this.shapeKey();
+		if (shape != null) {
+			String cached = SqlCaches.getTemplate(shape);
+			if (cached != null) {
+				this.fillShapeParams(paramters);
+				return new MapedSql(cached, paramters);
+			}
+		}
 		StringBuilder sql = new StringBuilder();
 		sql.append("SELECT ").append(this.buildField()).append(" FROM ").append(this.pojoMeta.getTableName());
 		CharSequence where = this.buildWhere(paramters);
@@ -79,9 +87,66 @@ public class SelectBuilder extends AbstractSqlBuilder<List<Map<String, Object>>>
 		if (this.limit > 0) {
 			buildLimitAndOffset(sql);
 		}
+		if (shape != null) {
+			SqlCaches.putTemplate(shape, sql.toString());
+		}
 		return new MapedSql(sql.toString(), paramters);
 	}
 
+	/**
+	 * 只有in条件的查询才缓存sql模板。模板由表、in条件的字段名及顺序、是否为null、排序、分页决定
+	 * 
+	 * @return 不能缓存的时候返回null
+	 */
+	protected String shapeKey() {
+		if (this._compare != null || this.selectColumns != null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder(64);
+		sb.append(this.getClass().getName()).append('#').append(this.pojoMeta.getTableName()).append('#')
+				.append(this.allowEmptyWhere).append('#').append(this.limit).append('#').append(this.offset);
+		if (this.orderby != null) {
+			for (Order order : this.orderby) {
+				sb.append(order.desc ? "#-" : "#+").append(order.name);
+			}
+		}
+		if (this.in != null) {
+			for (Map<String, Object> map : this.in) {
+				if (CollectionUtil.isEmpty(map)) {
+					continue;
+				}
+				sb.append('|');
+				for (Map.Entry<String, Object> en : map.entrySet()) {
+					if (this.pojoMeta.getByFieldName(en.getKey()) == null) {
+						return null;
+					}
+					sb.append(en.getKey()).append(en.getValue() == null ? "~," : ",");
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 参数的顺序要跟buildWhere()一致
+	 */
+	private void fillShapeParams(List<Object> paramters) {
+		this.buildValid(paramters);
+		if (this.in == null) {
+			return;
+		}
+		for (Map<String, Object> map : this.in) {
+			if (CollectionUtil.isEmpty(map)) {
+				continue;
+			}
+			map.forEach((k, v) -> {
+				if (v != null) {
+					paramters.add(v);
+				}
+			});
+		}
+	}
+
 	/**
 	 * 组装分页，也就是offset和limit
 	 * 
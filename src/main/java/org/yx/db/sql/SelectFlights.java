@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 合并相同的数据库查询。缓存失效的时候，同一个主键的并发查询只有一个会真正访问数据库，其它的等待它的结果
+ */
+final class SelectFlights {
+
+	private static final ConcurrentMap<String, CompletableFuture<List<?>>> FLIGHTS = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	static <T> Flight<T> run(String key, PojoMeta pm, Callable<List<T>> loader) throws Exception {
+		CompletableFuture<List<?>> mine = new CompletableFuture<>();
+		CompletableFuture<List<?>> running = FLIGHTS.putIfAbsent(key, mine);
+		if (running != null) {
+			return new Flight<>((List<T>) copy(pm, await(running)), false);
+		}
+		try {
+			List<T> data = loader.call();
+			mine.complete(data);
+			return new Flight<>(data, true);
+		} catch (Throwable e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			FLIGHTS.remove(key, mine);
+		}
+	}
+
+	private static List<?> await(CompletableFuture<List<?>> running) throws Exception {
+		try {
+			return running.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 结果可能会被修改，所以等待者拿到的是拷贝
+	 */
+	private static List<Object> copy(PojoMeta pm, List<?> list) throws Exception {
+		if (list == null) {
+			return null;
+		}
+		List<Object> ret = new ArrayList<>(list.size());
+		for (Object obj : list) {
+			ret.add(obj == null ? null : pm.shallowCopy(obj));
+		}
+		return ret;
+	}
+
+	static final class Flight<T> {
+		final List<T> data;
+
+		/**
+		 * true表示是自己查询的数据库，false表示用的是别人的结果
+		 */
+		final boolean leader;
+
+		Flight(List<T> data, boolean leader) {
+			this.data = data;
+			this.leader = leader;
+		}
+	}
+}
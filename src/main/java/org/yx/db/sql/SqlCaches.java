@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import static org.yx.conf.AppInfo.LN;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.yx.conf.AppInfo;
+
+/**
+ * sql模板缓存，以及它和PreparedStatement缓存的命中统计。<BR>
+ * 模板的key由表名、条件字段、是否为null等决定sql文本的因素组成，相同形状的查询直接复用sql文本
+ */
+public final class SqlCaches {
+
+	private static final ConcurrentMap<String, String> TEMPLATES = new ConcurrentHashMap<>();
+
+	private static final LongAdder TEMPLATE_HITS = new LongAdder();
+	private static final LongAdder TEMPLATE_MISSES = new LongAdder();
+	private static final LongAdder STATEMENT_HITS = new LongAdder();
+	private static final LongAdder STATEMENT_MISSES = new LongAdder();
+
+	static String getTemplate(String key) {
+		String sql = TEMPLATES.get(key);
+		if (sql == null) {
+			TEMPLATE_MISSES.increment();
+		} else {
+			TEMPLATE_HITS.increment();
+		}
+		return sql;
+	}
+
+	/**
+	 * 超过sumk.db.sql.template.size(默认2000)的时候，清空后重新缓存
+	 */
+	static void putTemplate(String key, String sql) {
+		if (TEMPLATES.size() >= AppInfo.getInt("sumk.db.sql.template.size", 2000)) {
+			TEMPLATES.clear();
+		}
+		TEMPLATES.put(key, sql);
+	}
+
+	public static void statementHit() {
+		STATEMENT_HITS.increment();
+	}
+
+	public static void statementMiss() {
+		STATEMENT_MISSES.increment();
+	}
+
+	public static String info() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("sql.template").append("  size:").append(TEMPLATES.size()).append("  hits:")
+				.append(TEMPLATE_HITS.sum()).append("  misses:").append(TEMPLATE_MISSES.sum()).append(LN);
+		sb.append("statement.cache").append("  hits:").append(STATEMENT_HITS.sum()).append("  misses:")
+				.append(STATEMENT_MISSES.sum()).append(LN);
+		for (PojoMeta pm : PojoMetaHolder.allPojoMeta()) {
+			if (pm.nearCache() != null) {
+				sb.append("nearcache.").append(pm.getTableName()).append("  ").append(pm.nearCache()).append(LN);
+			}
+		}
+		return sb.toString();
+	}
+}
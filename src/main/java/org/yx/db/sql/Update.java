@@ -15,7 +15,9 @@
  */
 package org.yx.db.sql;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.yx.common.ItemJoiner;
@@ -136,6 +138,19 @@ public class Update extends AbstractSqlBuilder<Integer> implements Executable {
 		return this;
 	}
 
+	/**
+	 * 使用JDBC的批量模式，每个where条件生成一条UPDATE语句，通过addBatch()一起执行。<BR>
+	 * 注意：如果一条记录同时满足多个where条件，incrNum()会被累加多次
+	 * 
+	 * @param batch
+	 *            默认是false，即多个where条件用OR连接成一条语句
+	 * @return 当前对象
+	 */
+	public Update batch(boolean batch) {
+		this.batch = batch;
+		return this;
+	}
+
 	public Update tableClass(Class<?> tableClass) {
 		this.tableClass = tableClass;
 		return this;
@@ -187,12 +202,17 @@ public class Update extends AbstractSqlBuilder<Integer> implements Executable {
 		}
 
 		ItemJoiner orItem = new ItemJoiner(" OR ", " WHERE ", null);
-		boolean isSingle = in.size() == 1;
+		boolean isSingle = in.size() == 1 || this.batch;
+		List<MapedSql> items = this.batch ? new ArrayList<>(in.size()) : null;
 		for (Map<String, Object> where : this.in) {
 			if (where.isEmpty()) {
 				continue;
 			}
 			this.checkMap(where, this.pojoMeta);
+			MapedSql target = ms;
+			if (items != null) {
+				target = new MapedSql(null, new ArrayList<>(ms.getParamters()));
+			}
 			ItemJoiner andItem = isSingle ? new ItemJoiner(" AND ", null, null) : new ItemJoiner(" AND ", " ( ", " ) ");
 			for (ColumnMeta fm : fms) {
 				Object value = null;
@@ -205,7 +225,7 @@ public class Update extends AbstractSqlBuilder<Integer> implements Executable {
 					continue;
 				}
 				andItem.item().append(fm.dbColumn).append("=? ");
-				ms.addParam(value);
+				target.addParam(value);
 			}
 			if (andItem.isEmpty()) {
 				continue;
@@ -213,23 +233,35 @@ public class Update extends AbstractSqlBuilder<Integer> implements Executable {
 			if (softDelete != null) {
 				if (softDelete.equalValid) {
 					andItem.item().append(softDelete.columnName).append("=? ");
-					ms.addParam(softDelete.validValue);
+					target.addParam(softDelete.validValue);
 				} else {
 					andItem.item().append(softDelete.columnName).append(" != ? ");
-					ms.addParam(softDelete.inValidValue);
+					target.addParam(softDelete.inValidValue);
 				}
 			}
 			CharSequence one = andItem.toCharSequence();
+			if (items != null) {
+				target.sql = new StringBuilder(sb).append(" WHERE ").append(one).toString();
+				items.add(target);
+				continue;
+			}
 			orItem.item().append(one);
 		}
+		UpdateEvent event = new UpdateEvent(pojoMeta.getTableName(), to, this.incrMap, this.in, this.fullUpdate,
+				this.updateDBID);
+		if (items != null) {
+			if (items.isEmpty()) {
+				SumkException.throwException(345445, "where cannot be null");
+			}
+			return MapedSql.batch(items, event);
+		}
 		CharSequence whereStr = orItem.toCharSequence(true);
 		if (whereStr == null || whereStr.length() == 0) {
 			SumkException.throwException(345445, "where cannot be null");
 		}
 		sb.append(whereStr);
 		ms.sql = sb.toString();
-		ms.event = new UpdateEvent(pojoMeta.getTableName(), to, this.incrMap, this.in, this.fullUpdate,
-				this.updateDBID);
+		ms.event = event;
 		return ms;
 	}
 
@@ -15,16 +15,20 @@
  */
 package org.yx.db.visit;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
+import org.yx.db.sql.DBSettings;
+import org.yx.db.sql.JsonRecordCodec;
+import org.yx.db.sql.NearCache;
 import org.yx.db.sql.PojoMeta;
 import org.yx.log.Log;
 import org.yx.redis.RecordReq;
 import org.yx.redis.RedisPool;
-import org.yx.util.StringUtil;
 
 public class Exchange {
 
@@ -32,6 +36,8 @@ public class Exchange {
 
 	private List<String> data;
 
+	private List<Object> pojoData;
+
 	public Exchange(List<Map<String, Object>> leftIn) {
 		this.leftIn = leftIn == null ? null : Collections.unmodifiableList(leftIn);
 	}
@@ -44,6 +50,13 @@ public class Exchange {
 		return data;
 	}
 
+	/**
+	 * @return 已经解析成pojo的缓存数据，来自近端缓存或者非json格式的redis记录。可以直接返回给调用者
+	 */
+	public List<Object> getPojoData() {
+		return pojoData;
+	}
+
 	public void findFromCache(PojoMeta pm) {
 		List<Map<String, Object>> origin = this.leftIn;
 
@@ -51,41 +64,111 @@ public class Exchange {
 			return;
 		}
 		try {
+			NearCache near = pm.nearCache();
 			List<String> redisList = new ArrayList<>(origin.size());
 			List<Map<String, Object>> redisConditions = new ArrayList<>(origin.size());
 
 			List<Map<String, Object>> notFound = new ArrayList<>(origin.size());
 			for (Map<String, Object> map : origin) {
 				if (pm.isOnlyRedisID(map)) {
-					redisList.add(pm.getRedisID(map, false));
+					String id = pm.getRedisID(map, false);
+					if (near != null && this.findFromNear(pm, near, id)) {
+						continue;
+					}
+					redisList.add(id);
 					redisConditions.add(map);
 				} else {
 					notFound.add(map);
 				}
 			}
 			if (redisList.isEmpty()) {
+				if (this.pojoData != null) {
+					this.leftIn = Collections.unmodifiableList(notFound);
+				}
 				return;
 			}
-			List<String> redisData = RecordReq.getMultiValue(pm, redisList);
+			long nearVersion = near == null ? 0 : near.version();
+			int refreshWindow = DBSettings.cacheRefreshWindow();
+			long[] pttls = refreshWindow > 0 ? new long[redisList.size()] : null;
+			List<byte[]> redisData = RecordReq.getMultiBytes(pm, redisList, pttls);
 			if (redisData == null || redisData.isEmpty()) {
+				if (this.pojoData != null) {
+					notFound.addAll(redisConditions);
+					this.leftIn = Collections.unmodifiableList(notFound);
+				}
 				return;
 			}
 			this.data = new ArrayList<>(redisData.size());
 			for (int i = 0; i < redisConditions.size(); i++) {
 				Map<String, Object> conditon = redisConditions.get(i);
 
-				if (i < redisData.size() && StringUtil.isNotEmpty(redisData.get(i))) {
-					this.data.add(redisData.get(i));
+				byte[] bs = i < redisData.size() ? redisData.get(i) : null;
+				if (pttls != null && bs != null && refreshEarly(pttls[i], refreshWindow)) {
+					bs = null;
+				}
+				if (RecordReq.isAbsent(bs)) {
 					continue;
 				}
+				if (bs != null && bs.length > 0) {
+					List<Object> pojos;
+					if (JsonRecordCodec.isJson(bs)) {
+						if (near == null) {
+							this.data.add(new String(bs, StandardCharsets.UTF_8));
+							continue;
+						}
+						pojos = JsonRecordCodec.inst.decode(pm, bs);
+					} else {
+						pojos = pm.recordCodec().decode(pm, bs);
+					}
+					if (pojos != null) {
+						if (near != null) {
+							near.put(pm.getPre() + redisList.get(i), pojos, nearVersion);
+						}
+						this.addPojoData(pojos);
+						continue;
+					}
+				}
 
 				notFound.add(conditon);
 			}
 			this.leftIn = Collections.unmodifiableList(notFound);
 		} catch (Exception e) {
 			this.data = null;
+			this.pojoData = null;
+			this.leftIn = origin;
 			Log.printStack("sumk.sql", e);
 		}
 	}
 
+	/**
+	 * 越接近过期，越有可能返回true。这样热点数据会在过期前被某个请求提前刷新，而不是过期的时候一起穿透到数据库
+	 * 
+	 * @param pttl
+	 *            剩余有效期，单位毫秒
+	 * @param window
+	 *            提前刷新的时间窗口，单位毫秒
+	 */
+	private static boolean refreshEarly(long pttl, int window) {
+		if (pttl < 0) {
+			return false;
+		}
+		return -window * Math.log(ThreadLocalRandom.current().nextDouble()) >= pttl;
+	}
+
+	private boolean findFromNear(PojoMeta pm, NearCache near, String id) throws Exception {
+		List<Object> pojos = near.get(pm.getPre() + id);
+		if (pojos == null) {
+			return false;
+		}
+		this.addPojoData(pojos);
+		return true;
+	}
+
+	private void addPojoData(List<Object> pojos) {
+		if (this.pojoData == null) {
+			this.pojoData = new ArrayList<>();
+		}
+		this.pojoData.addAll(pojos);
+	}
+
 }
@@ -15,6 +15,7 @@
  */
 package org.yx.db.visit;
 
+import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -71,6 +72,26 @@ public class MapResultHandler implements ResultHandler {
 		return (List<T>) list;
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> List<T> parseFromPojo(PojoMeta pm, List<Object> pojos)
+			throws InstantiationException, IllegalAccessException {
+		List<Map<String, Object>> list = new ArrayList<>(pojos.size());
+		for (Object obj : pojos) {
+			Map<String, Object> map = pm.populate(obj, false);
+			if (map.size() > 0) {
+				list.add(map);
+			}
+		}
+		return (List<T>) list;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> RowReader<T> rowReader(PojoMeta pm, ResultSetMetaData md) throws Exception {
+		return (RowReader<T>) ResultSetUtils.mapReader(md, pm);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> List<T> parse(PojoMeta pm, List<Map<String, Object>> list) {
@@ -15,6 +15,7 @@
  */
 package org.yx.db.visit;
 
+import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -62,6 +63,12 @@ public class PojoResultHandler implements ResultHandler {
 		return (List<T>) list;
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> RowReader<T> rowReader(PojoMeta pm, ResultSetMetaData md) throws Exception {
+		return (RowReader<T>) ResultSetUtils.pojoReader(md, pm);
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> List<T> parse(PojoMeta pm, List<Map<String, Object>> list) throws Exception {
@@ -15,6 +15,8 @@
  */
 package org.yx.db.visit;
 
+import java.sql.ResultSetMetaData;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -25,4 +27,39 @@ public interface ResultHandler {
 	<T> List<T> parseFromJson(PojoMeta pm, List<String> jsons) throws Exception;
 
 	<T> List<T> parse(PojoMeta pm, List<Map<String, Object>> list) throws Exception;
+
+	/**
+	 * 处理缓存中已经解析好的pojo对象，它们来自近端缓存或者二进制格式的记录
+	 * 
+	 * @param pm
+	 *            表结构
+	 * @param pojos
+	 *            pojo的拷贝
+	 * @return 跟parseFromJson()的返回值类型一致
+	 * @throws Exception
+	 *             异常
+	 */
+	@SuppressWarnings("unchecked")
+	default <T> List<T> parseFromPojo(PojoMeta pm, List<Object> pojos) throws Exception {
+		return (List<T>) pojos;
+	}
+
+	/**
+	 * 流式查询时使用，每次只转化一行。默认实现是先读成map，再调用parse()
+	 * 
+	 * @param pm
+	 *            表结构
+	 * @param md
+	 *            结果集的元数据
+	 * @return 跟parse()返回的元素类型一致
+	 * @throws Exception
+	 *             异常
+	 */
+	default <T> RowReader<T> rowReader(PojoMeta pm, ResultSetMetaData md) throws Exception {
+		RowReader<Map<String, Object>> mapReader = ResultSetUtils.mapReader(md, pm);
+		return rs -> {
+			List<T> list = this.parse(pm, Collections.singletonList(mapReader.read(rs)));
+			return list == null || list.isEmpty() ? null : list.get(0);
+		};
+	}
 }
@@ -25,9 +25,95 @@ import java.util.Objects;
 
 import org.yx.db.sql.ColumnMeta;
 import org.yx.db.sql.PojoMeta;
+import org.yx.db.sql.PojoRowReaders;
 import org.yx.util.Asserts;
 
 public class ResultSetUtils {
+
+	public static RowReader<Map<String, Object>> mapReader(ResultSetMetaData md) throws java.sql.SQLException {
+		final int columnCount = md.getColumnCount();
+		final String[] names = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			names[i] = md.getColumnName(i + 1);
+		}
+		return rs -> {
+			Map<String, Object> rowData = new HashMap<>(columnCount * 2);
+			for (int i = 0; i < columnCount; i++) {
+				rowData.put(names[i], rs.getObject(i + 1));
+			}
+			return rowData;
+		};
+	}
+
+	/**
+	 * @return map的key是java字段名
+	 */
+	public static RowReader<Map<String, Object>> mapReader(ResultSetMetaData md, PojoMeta pm)
+			throws java.sql.SQLException {
+		final ColumnMeta[] columns = columns(md, pm);
+		return rs -> {
+			Map<String, Object> rowData = new HashMap<>(columns.length * 2);
+			for (int i = 0; i < columns.length; i++) {
+				rowData.put(columns[i].getFieldName(), rs.getObject(i + 1));
+			}
+			return rowData;
+		};
+	}
+
+	/**
+	 * 优先使用字节码生成的RowReader，不能生成的时候再使用反射
+	 */
+	public static RowReader<Object> pojoReader(ResultSetMetaData md, PojoMeta pm) throws Exception {
+		final ColumnMeta[] columns = columns(md, pm);
+		RowReader<Object> generated = PojoRowReaders.create(pm, columns);
+		if (generated != null) {
+			return generated;
+		}
+		final Object[] values = new Object[columns.length];
+		return rs -> {
+			for (int i = 0; i < columns.length; i++) {
+				values[i] = rs.getObject(i + 1);
+			}
+			return pm.buildPojo(columns, values);
+		};
+	}
+
+	public static RowReader<Object[]> arrayReader(ResultSetMetaData md) throws java.sql.SQLException {
+		final int len = md.getColumnCount();
+		return rs -> {
+			Object[] data = new Object[len];
+			for (int i = 0; i < len; i++) {
+				data[i] = rs.getObject(i + 1);
+			}
+			return data;
+		};
+	}
+
+	public static <T> List<T> toList(ResultSet rs, RowReader.Factory<T> factory) throws Exception {
+		List<T> list = new ArrayList<>(10);
+		if (rs == null) {
+			return list;
+		}
+		RowReader<T> reader = factory.create(rs.getMetaData());
+		while (rs.next()) {
+			T t = reader.read(rs);
+			if (t != null) {
+				list.add(t);
+			}
+		}
+		rs.close();
+		return list;
+	}
+
+	private static ColumnMeta[] columns(ResultSetMetaData md, PojoMeta pm) throws java.sql.SQLException {
+		ColumnMeta[] columns = new ColumnMeta[md.getColumnCount()];
+		for (int i = 0; i < columns.length; i++) {
+			ColumnMeta cm = pm.getByColumnDBName(md.getColumnName(i + 1));
+			columns[i] = Objects.requireNonNull(cm, md.getColumnName(i + 1) + " has no mapper");
+		}
+		return columns;
+	}
+
 	public static List<Map<String, Object>> toMapList(ResultSet rs) throws java.sql.SQLException {
 		List<Map<String, Object>> list = new ArrayList<>(10);
 		if (rs == null) {
@@ -51,15 +137,12 @@ public class ResultSetUtils {
 		if (rs == null) {
 			return list;
 		}
-		ResultSetMetaData md = rs.getMetaData();
-		int columnCount = md.getColumnCount();
+		ColumnMeta[] columns = columns(rs.getMetaData(), pm);
 		Map<String, Object> rowData;
 		while (rs.next()) {
-			rowData = new HashMap<>(columnCount * 2);
-			for (int i = 1; i <= columnCount; i++) {
-				ColumnMeta cm = pm.getByColumnDBName(md.getColumnName(i));
-				Objects.requireNonNull(cm, md.getColumnName(i) + " has no mapper");
-				rowData.put(cm.getFieldName(), rs.getObject(i));
+			rowData = new HashMap<>(columns.length * 2);
+			for (int i = 0; i < columns.length; i++) {
+				rowData.put(columns[i].getFieldName(), rs.getObject(i + 1));
 			}
 			list.add(rowData);
 		}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.visit;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * 流式查询时，每次读取结果集的一行。同一个RowReader只会在一个线程中使用，实现类可以复用内部的缓冲区
+ */
+@FunctionalInterface
+public interface RowReader<T> {
+
+	/**
+	 * @param rs
+	 *            已经调用过next()的结果集
+	 * @return 当前行转化后的对象
+	 * @throws Exception
+	 *             异常
+	 */
+	T read(ResultSet rs) throws Exception;
+
+	/**
+	 * 根据结果集的元数据创建RowReader，列的映射关系只需要解析一次
+	 */
+	@FunctionalInterface
+	public static interface Factory<T> {
+		RowReader<T> create(ResultSetMetaData md) throws Exception;
+	}
+}
@@ -26,6 +26,7 @@ import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
+import org.yx.db.conn.SumkConnection;
 import org.yx.db.sql.MapedSql;
 import org.yx.db.sql.MapedSql.JsonWriterVisitor;
 import org.yx.exception.SumkException;
@@ -56,7 +57,24 @@ public class SumkStatement {
 	private int sqlTime;
 	private int modifyCount = -1;
 
+	/**
+	 * 不为null表示statement来自这个连接的缓存，关闭的时候要放回去
+	 */
+	private SumkConnection owner;
+
 	static SumkStatement create(Connection conn, MapedSql maped) throws Exception {
+		if (conn instanceof SumkConnection) {
+			SumkConnection sc = (SumkConnection) conn;
+			PreparedStatement ps = sc.prepareCached(maped.getSql());
+			try {
+				SumkStatement st = new SumkStatement(ps, maped);
+				st.owner = sc;
+				return st;
+			} catch (Exception e) {
+				ps.close();
+				throw e;
+			}
+		}
 		return new SumkStatement(conn.prepareStatement(maped.getSql()), maped);
 	}
 
@@ -64,11 +82,21 @@ public class SumkStatement {
 		return new SumkStatement(conn.prepareStatement(maped.getSql(), Statement.RETURN_GENERATED_KEYS), maped);
 	}
 
+	/**
+	 * 流式查询用的statement，结果集只能向前读取
+	 */
+	static SumkStatement createStreaming(Connection conn, MapedSql maped, int fetchSize) throws Exception {
+		PreparedStatement ps = conn.prepareStatement(maped.getSql(), ResultSet.TYPE_FORWARD_ONLY,
+				ResultSet.CONCUR_READ_ONLY);
+		ps.setFetchSize(fetchSize);
+		return new SumkStatement(ps, maped);
+	}
+
 	private SumkStatement(PreparedStatement statement, MapedSql maped) throws Exception {
 		this.statement = new AtomicReference<>(statement);
 		this.maped = maped;
 		beginTime = System.currentTimeMillis();
-		attachParams();
+		attachParams(maped.getParamters());
 	}
 
 	public int executeUpdate() throws SQLException {
@@ -88,6 +116,55 @@ public class SumkStatement {
 		return modifyCount;
 	}
 
+	/**
+	 * 把当前的参数加入批处理
+	 */
+	public void addBatch() throws SQLException {
+		PreparedStatement statement = this.statement.get();
+		if (statement == null) {
+			SumkException.throwException(234132, "连接已关闭");
+		}
+		statement.addBatch();
+	}
+
+	/**
+	 * 设置新的参数，并加入批处理。sql要跟创建时的一样
+	 */
+	public void addBatch(List<Object> params) throws Exception {
+		attachParams(params);
+		addBatch();
+	}
+
+	/**
+	 * 执行已经加入的批处理，可以多次调用。
+	 * 驱动返回SUCCESS_NO_INFO(比如mysql的rewriteBatchedStatements)的时候，按修改了1条记录计算
+	 * 
+	 * @return 本次修改的记录数
+	 */
+	public int executeBatch() throws SQLException {
+		PreparedStatement statement = this.statement.get();
+		if (statement == null) {
+			SumkException.throwException(234132, "连接已关闭");
+		}
+		int count = 0;
+		try {
+			for (int c : statement.executeBatch()) {
+				if (c > 0) {
+					count += c;
+				} else if (c == Statement.SUCCESS_NO_INFO) {
+					count++;
+				}
+			}
+		} catch (Exception e) {
+			sqlTime = (int) (System.currentTimeMillis() - beginTime);
+			close(e);
+			throw e;
+		}
+		sqlTime = (int) (System.currentTimeMillis() - beginTime);
+		modifyCount = Math.max(modifyCount, 0) + count;
+		return count;
+	}
+
 	public ResultSet executeQuery() throws Exception {
 		PreparedStatement statement = this.statement.get();
 		if (statement == null) {
@@ -135,18 +212,21 @@ public class SumkStatement {
 					writer.name("modifyCount").value(modifyCount);
 				}
 			});
+			if (owner != null) {
+				owner.release(maped.getSql(), statement);
+				return;
+			}
 			statement.close();
 		} catch (SQLException e1) {
 			Logs.db().error(e1.getMessage(), e1);
 		}
 	}
 
-	private void attachParams() throws Exception {
+	private void attachParams(List<Object> params) throws Exception {
 		PreparedStatement statement = this.statement.get();
 		if (statement == null) {
 			SumkException.throwException(234132, "连接已关闭");
 		}
-		List<Object> params = maped.getParamters();
 		int size = params.size();
 		if (size > 0) {
 			for (int i = 0; i < size; i++) {
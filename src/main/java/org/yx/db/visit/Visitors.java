@@ -17,18 +17,23 @@ package org.yx.db.visit;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import org.yx.conf.AppInfo;
 import org.yx.db.DBType;
 import org.yx.db.conn.ConnectionPool;
 import org.yx.db.event.EventLane;
+import org.yx.db.sql.DBSettings;
 import org.yx.db.sql.InsertResult;
 import org.yx.db.sql.MapedSql;
 import org.yx.db.sql.PojoMeta;
 import org.yx.db.sql.SelectBuilder;
 import org.yx.db.sql.SqlBuilder;
+import org.yx.log.Logs;
 
 public final class Visitors {
 
@@ -59,15 +64,71 @@ public final class Visitors {
 	public static final SumkDbVisitor<Integer> modifyVisitor = builder -> {
 		Connection conn = ConnectionPool.get().connection(DBType.WRITE);
 		MapedSql maped = builder.toMapedSql();
-		SumkStatement statement = SumkStatement.create(conn, maped);
-		int ret = statement.executeUpdate();
-		statement.close();
+		int ret;
+		if (maped.getBatch() != null) {
+			ret = executeBatch(conn, maped.getBatch());
+		} else {
+			SumkStatement statement = SumkStatement.create(conn, maped);
+			ret = statement.executeUpdate();
+			statement.close();
+		}
 		if (ret > 0) {
 			EventLane.pubuish(conn, maped.getEvent());
 		}
 		return ret;
 	};
 
+	/**
+	 * 相邻的相同sql共用一个PreparedStatement，每DBSettings.batchSize()条执行一次
+	 */
+	private static int executeBatch(Connection conn, List<MapedSql> items) throws Exception {
+		logRewriteBatch(conn);
+		int total = 0;
+		int size = items.size();
+		int batchSize = DBSettings.batchSize();
+		int i = 0;
+		while (i < size) {
+			MapedSql first = items.get(i);
+			SumkStatement statement = SumkStatement.create(conn, first);
+			try {
+				statement.addBatch();
+				int count = 1;
+				for (i++; i < size && items.get(i).getSql().equals(first.getSql()); i++) {
+					if (count == batchSize) {
+						total += statement.executeBatch();
+						count = 0;
+					}
+					statement.addBatch(items.get(i).getParamters());
+					count++;
+				}
+				total += statement.executeBatch();
+			} finally {
+				statement.close();
+			}
+		}
+		return total;
+	}
+
+	private static volatile boolean rewriteBatchChecked;
+
+	/**
+	 * mysql只有在连接串中设置了rewriteBatchedStatements=true，才会把批处理合并成一个请求发送
+	 */
+	private static void logRewriteBatch(Connection conn) {
+		if (rewriteBatchChecked) {
+			return;
+		}
+		rewriteBatchChecked = true;
+		try {
+			String url = conn.getMetaData().getURL();
+			if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("rewriteBatchedStatements=true")) {
+				Logs.db().info("batch sql will be sent one by one,add rewriteBatchedStatements=true to the jdbc url");
+			}
+		} catch (Exception e) {
+			Logs.db().debug(e.getMessage(), e);
+		}
+	}
+
 	public static final SumkDbVisitor<InsertResult> insertWithAutoGeneratedKeysVisitor = builder -> {
 		Connection conn = ConnectionPool.get().connection(DBType.WRITE);
 		MapedSql maped = builder.toMapedSql();
@@ -98,6 +159,61 @@ public final class Visitors {
 		return list;
 	};
 
+	/**
+	 * 使用RowReader逐行转化，不经过中间的map
+	 * 
+	 * @param factory
+	 *            根据结果集的元数据创建RowReader
+	 * @return visit()返回全部的记录
+	 */
+	public static <T> SumkDbVisitor<List<T>> listVisitor(RowReader.Factory<T> factory) {
+		return new QueryVisitor<>(rs -> ResultSetUtils.toList(rs, factory));
+	}
+
+	/**
+	 * 流式查询，每读到一行就交给consumer处理，不会把整个结果集加载到内存。<BR>
+	 * statement在visit()返回之前就关闭了，所以consumer不能把结果集留到外面再用
+	 * 
+	 * @param factory
+	 *            根据结果集的元数据创建RowReader
+	 * @param consumer
+	 *            处理每一行数据
+	 * @return visit()的返回值是读取的行数
+	 */
+	public static <T> SumkDbVisitor<Integer> streamVisitor(RowReader.Factory<T> factory,
+			Consumer<? super T> consumer) {
+		return builder -> {
+			MapedSql maped = builder.toMapedSql();
+			Connection conn = ConnectionPool.get().connection(DBType.ANY);
+			SumkStatement statement = SumkStatement.createStreaming(conn, maped, streamFetchSize(conn));
+			try {
+				ResultSet rs = statement.executeQuery();
+				RowReader<T> reader = factory.create(rs.getMetaData());
+				int count = 0;
+				while (rs.next()) {
+					consumer.accept(reader.read(rs));
+					count++;
+				}
+				rs.close();
+				return count;
+			} finally {
+				statement.close();
+			}
+		};
+	}
+
+	/**
+	 * mysql驱动只有在fetchSize为Integer.MIN_VALUE的时候才会逐行读取，其它数据库使用sumk.db.stream.fetchsize
+	 */
+	private static int streamFetchSize(Connection conn) throws SQLException {
+		int size = AppInfo.getInt("sumk.db.stream.fetchsize", 0);
+		if (size != 0) {
+			return size;
+		}
+		String driver = conn.getMetaData().getDriverName();
+		return driver != null && driver.toLowerCase().contains("mysql") ? Integer.MIN_VALUE : 1000;
+	}
+
 	public static final SumkDbVisitor<List<Map<String, Object>>> queryVisitor = new QueryVisitor<>(
 			ResultSetUtils::toMapList);
 
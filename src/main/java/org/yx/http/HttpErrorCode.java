@@ -91,4 +91,9 @@ public interface HttpErrorCode extends ErrorCode {
 	 * 接口没有定义，类似于404
 	 */
 	int ACT_NOT_FOUND = 954;
+
+	/**
+	 * 接口返回的CompletableFuture在sumk.http.async.timeout内没有完成
+	 */
+	int TIMEOUT = 955;
 }
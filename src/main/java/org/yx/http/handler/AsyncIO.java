@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.http.handler;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+
+import org.yx.common.UnsafeByteArrayOutputStream;
+import org.yx.http.HttpErrorCode;
+import org.yx.http.kit.HttpException;
+import org.yx.http.kit.HttpSettings;
+import org.yx.http.kit.InnerHttpUtil;
+
+/**
+ * 异步模式下请求体和响应体的非阻塞读写，基于servlet 3.1的ReadListener和WriteListener
+ */
+public final class AsyncIO {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * 读取请求体并放到WebContext里，这样ReqDataHandler就不会再阻塞地读一次
+	 * 
+	 * @return 读完的时候完成。不需要读的时候返回已经完成的future
+	 */
+	public static CompletableFuture<Void> readBody(WebContext ctx) throws IOException {
+		HttpServletRequest req = ctx.httpRequest();
+		if (ctx.data() != null || ctx.httpNode().isEmptyArgument() || req.getParameter("data") != null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		ServletInputStream in = req.getInputStream();
+		@SuppressWarnings("resource")
+		UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream(
+				InnerHttpUtil.getKit().expectReqDataSize(req.getContentLength()));
+		in.setReadListener(new ReadListener() {
+			private final byte[] buf = new byte[BUFFER_SIZE];
+			private int count;
+
+			/**
+			 * 请求体超长之后，剩下的数据仍然要读完，但是直接丢弃
+			 */
+			@Override
+			public void onDataAvailable() throws IOException {
+				int n;
+				while (in.isReady() && !in.isFinished() && (n = in.read(buf)) != -1) {
+					if (future.isDone()) {
+						continue;
+					}
+					count += n;
+					if (count > HttpSettings.maxHttpBody()) {
+						future.completeExceptionally(HttpException.create(HttpErrorCode.BODY_TOO_BIG, "请求数据太长"));
+						continue;
+					}
+					output.write(buf, 0, n);
+				}
+			}
+
+			@Override
+			public void onAllDataRead() throws IOException {
+				if (future.isDone()) {
+					return;
+				}
+				ctx.sign(req.getParameter("sign"));
+				ctx.data(output.extractRawData());
+				output.close();
+				future.complete(null);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				future.completeExceptionally(t);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 在可写的时候分段写出，不阻塞线程
+	 * 
+	 * @return 全部交给容器之后完成
+	 */
+	public static CompletableFuture<Void> writeBody(WebContext ctx, byte[] data) throws IOException {
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		ServletOutputStream out = ctx.httpResponse().getOutputStream();
+		out.setWriteListener(new WriteListener() {
+			private int pos;
+
+			@Override
+			public void onWritePossible() throws IOException {
+				while (out.isReady()) {
+					if (future.isDone()) {
+						return;
+					}
+					if (pos >= data.length) {
+						future.complete(null);
+						return;
+					}
+					int n = Math.min(BUFFER_SIZE, data.length - pos);
+					out.write(data, pos, n);
+					pos += n;
+				}
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				future.completeExceptionally(t);
+			}
+		});
+		return future;
+	}
+}
@@ -16,8 +16,13 @@
 package org.yx.http.handler;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.slf4j.Logger;
+import org.yx.common.context.ActionContext;
+import org.yx.http.HttpContextHolder;
+import org.yx.http.start.HttpExcutors;
 import org.yx.log.Log;
 
 public final class HttpHandlerChain implements HttpHandler {
@@ -55,4 +60,62 @@ public final class HttpHandlerChain implements HttpHandler {
 			UploadFileHolder.remove();
 		}
 	}
+
+	/**
+	 * 异步执行，要在请求线程里调用。处理器可以通过WebContext.pending()挂起，
+	 * 完成之后在http线程池里恢复上下文，接着执行后面的处理器
+	 * 
+	 * @param ctx
+	 *            已经startAsync的上下文
+	 * @param before
+	 *            在第一个处理器之前要等待的操作，比如读取请求体
+	 * @return 所有处理器执行完成的时候完成
+	 */
+	public CompletableFuture<Void> handleAsync(WebContext ctx, CompletableFuture<?> before) {
+		ctx.actionContext(ActionContext.get());
+		return this.resume(ctx, before, 0);
+	}
+
+	private CompletableFuture<Void> resume(WebContext ctx, CompletableFuture<?> pending, int index) {
+		if (pending.isDone() && !pending.isCompletedExceptionally()) {
+			return this.handleFrom(ctx, index);
+		}
+		return pending.thenComposeAsync(v -> {
+			HttpContextHolder.set(ctx.httpRequest(), ctx.httpResponse());
+			ActionContext.recover(ctx.actionContext());
+			try {
+				return this.handleFrom(ctx, index);
+			} finally {
+				HttpContextHolder.clear();
+				ActionContext.remove();
+			}
+		}, HttpExcutors.getThreadPool());
+	}
+
+	private CompletableFuture<Void> handleFrom(WebContext ctx, int index) {
+		for (int i = index; i < this.handlers.length; i++) {
+			if (ctx.isClosed()) {
+				break;
+			}
+			HttpHandler h = this.handlers[i];
+			if (h.order() < ctx.getLowestOrder()) {
+				continue;
+			}
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("{} - {} async", ctx.rawAct(), h.getClass().getSimpleName());
+			}
+			try {
+				h.handle(ctx);
+			} catch (Throwable e) {
+				CompletableFuture<Void> f = new CompletableFuture<>();
+				f.completeExceptionally(e);
+				return f;
+			}
+			CompletionStage<?> pending = ctx.takePending();
+			if (pending != null) {
+				return this.resume(ctx, pending.toCompletableFuture(), i + 1);
+			}
+		}
+		return CompletableFuture.completedFuture(null);
+	}
 }
@@ -15,13 +15,23 @@
  */
 package org.yx.http.handler;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.yx.annotation.Bean;
 import org.yx.annotation.ErrorHandler.ExceptionStrategy;
+import org.yx.conf.AppInfo;
 import org.yx.exception.BizException;
+import org.yx.http.HttpErrorCode;
 import org.yx.http.act.HttpActionNode;
 import org.yx.http.invoke.WebHandler;
 import org.yx.http.kit.HttpException;
 import org.yx.log.Log;
+import org.yx.util.M;
 
 @Bean
 public class InvokeHandler implements HttpHandler {
@@ -35,22 +45,57 @@ public class InvokeHandler implements HttpHandler {
 	public void handle(WebContext ctx) throws Throwable {
 		HttpActionNode info = ctx.httpNode();
 		Object ret = null;
-		if (info.errorHandler != null) {
+		try {
+			ret = WebHandler.handle(ctx);
+		} catch (Exception e) {
+			throw this.mapException(info, e);
+		}
+		if (!CompletionStage.class.isInstance(ret)) {
+			ctx.result(ret);
+			return;
+		}
+		CompletableFuture<?> future = ((CompletionStage<?>) ret).toCompletableFuture();
+		if (!ctx.isAsync()) {
 			try {
-				ret = WebHandler.handle(ctx);
-			} catch (Exception e) {
-				if (BizException.class.isInstance(e)
-						&& ExceptionStrategy.IF_NO_BIZEXCEPTION == info.errorHandler.strategy()) {
-					throw e;
-				}
-				Log.get("sumk.http.error").error("业务处理含有原始异常", e);
-
-				throw HttpException.create(info.errorHandler.code(), info.errorHandler.message());
+				ctx.result(future.get(AppInfo.getLong("sumk.http.async.timeout", 60000), TimeUnit.MILLISECONDS));
+			} catch (ExecutionException e) {
+				throw this.mapException(info, e.getCause());
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				throw HttpException.create(HttpErrorCode.TIMEOUT,
+						M.get("sumk.http.error." + HttpErrorCode.TIMEOUT, "请求处理超时", ctx.rawAct()));
 			}
-		} else {
-			ret = WebHandler.handle(ctx);
+			return;
+		}
+		ctx.pending(future.handle((v, e) -> {
+			if (e != null) {
+				throw new CompletionException(this.mapException(info, unwrap(e)));
+			}
+			ctx.result(v);
+			return null;
+		}));
+	}
+
+	private static Throwable unwrap(Throwable e) {
+		while (CompletionException.class.isInstance(e) && e.getCause() != null) {
+			e = e.getCause();
 		}
-		ctx.result(ret);
+		return e;
+	}
+
+	/**
+	 * 配置了ErrorHandler的时候，把原始异常转换成它指定的错误码
+	 */
+	private Throwable mapException(HttpActionNode info, Throwable e) {
+		if (info.errorHandler == null || !Exception.class.isInstance(e)) {
+			return e;
+		}
+		if (BizException.class.isInstance(e) && ExceptionStrategy.IF_NO_BIZEXCEPTION == info.errorHandler.strategy()) {
+			return e;
+		}
+		Log.get("sumk.http.error").error("业务处理含有原始异常", e);
+
+		return HttpException.create(info.errorHandler.code(), info.errorHandler.message());
 	}
 
 }
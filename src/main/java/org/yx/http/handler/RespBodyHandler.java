@@ -28,6 +28,10 @@ public class RespBodyHandler implements HttpHandler {
 	@Override
 	public void handle(WebContext ctx) throws Throwable {
 		byte[] data = (byte[]) ctx.result();
+		if (ctx.isAsync()) {
+			ctx.pending(AsyncIO.writeBody(ctx, data));
+			return;
+		}
 		ctx.httpResponse().getOutputStream().write(data);
 	}
 
@@ -17,11 +17,14 @@ package org.yx.http.handler;
 
 import java.nio.charset.Charset;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.yx.annotation.http.Web;
+import org.yx.common.context.ActionContext;
 import org.yx.http.act.HttpActionNode;
 
 public class WebContext {
@@ -43,6 +46,18 @@ public class WebContext {
 	private transient Object attach;
 	private boolean failed;
 
+	/**
+	 * 异步模式才有
+	 */
+	private AsyncContext asyncContext;
+	private transient ActionContext actionContext;
+
+	/**
+	 * 处理器要等待异步操作的时候设置，链路在它完成后接着执行
+	 */
+	private CompletionStage<?> pending;
+	private volatile boolean closed;
+
 	public Object getAttach() {
 		return attach;
 	}
@@ -150,6 +165,47 @@ public class WebContext {
 		return this.node.action;
 	}
 
+	public boolean isAsync() {
+		return asyncContext != null;
+	}
+
+	public AsyncContext asyncContext() {
+		return asyncContext;
+	}
+
+	public void asyncContext(AsyncContext asyncContext) {
+		this.asyncContext = asyncContext;
+	}
+
+	ActionContext actionContext() {
+		return actionContext;
+	}
+
+	void actionContext(ActionContext actionContext) {
+		this.actionContext = actionContext;
+	}
+
+	CompletionStage<?> takePending() {
+		CompletionStage<?> p = this.pending;
+		this.pending = null;
+		return p;
+	}
+
+	void pending(CompletionStage<?> pending) {
+		this.pending = pending;
+	}
+
+	/**
+	 * @return 异步请求已经结束(比如超时)，后面的处理器不需要再执行
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public void close() {
+		this.closed = true;
+	}
+
 	public boolean isFailed() {
 		return failed;
 	}
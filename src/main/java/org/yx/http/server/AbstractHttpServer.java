@@ -18,11 +18,20 @@ package org.yx.http.server;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
+import org.yx.common.CalleeNode;
 import org.yx.common.context.ActionContext;
 import org.yx.conf.AppInfo;
 import org.yx.exception.BizException;
@@ -31,10 +40,12 @@ import org.yx.http.HttpContextHolder;
 import org.yx.http.HttpErrorCode;
 import org.yx.http.act.HttpActionInfo;
 import org.yx.http.act.HttpActions;
+import org.yx.http.handler.AsyncIO;
 import org.yx.http.handler.WebContext;
 import org.yx.http.kit.HttpSettings;
 import org.yx.http.kit.InnerHttpUtil;
 import org.yx.http.log.HttpLogs;
+import org.yx.http.start.HttpExcutors;
 import org.yx.log.Logs;
 import org.yx.util.M;
 import org.yx.util.StringUtil;
@@ -50,6 +61,8 @@ public abstract class AbstractHttpServer extends AbstractCommonHttpServlet {
 		final long beginTime = System.currentTimeMillis();
 		Throwable ex = null;
 		WebContext wc = null;
+		CalleeNode acquired = null;
+		boolean async = false;
 		try {
 			final Charset charset = InnerHttpUtil.charset(req);
 			this.setRespHeader(req, resp, charset);
@@ -80,10 +93,19 @@ public abstract class AbstractHttpServer extends AbstractCommonHttpServlet {
 				}
 			}
 			rawAct = info.rawAct();
+			// jetty直接用sumk的线程池，请求在解析出接口名之前就已经排过队了，所以http只能在这里限流，
+			// 排队时间也不在beginTime里。rpc在I/O线程里拿许可，见AdmissionFilter
 			info.node().checkThreshold();
+			acquired = info.node();
 			HttpContextHolder.set(req, resp);
 			ActionContext.newContext(rawAct, UUIDSeed.seq18(), req.getParameter("thisIsTest"));
 			wc = new WebContext(rawAct, info.node(), req, resp, beginTime, charset);
+			if (this.isAsync(req)) {
+				AsyncContext ac = req.startAsync();
+				async = true;
+				this.handleAsync(ac, wc, acquired);
+				return;
+			}
 			handle(wc);
 
 		} catch (Throwable e) {
@@ -94,15 +116,119 @@ public abstract class AbstractHttpServer extends AbstractCommonHttpServlet {
 				log.error("处理异常发生错误。可能是网络问题，也可能是异常处理出问题(不该发生)", e2);
 			}
 		} finally {
-			long time = System.currentTimeMillis() - beginTime;
-			HttpLogs.log(wc, req, ex, time);
-			HttpContextHolder.clear();
-			ActionContext.remove();
-			if (wc != null) {
+			if (async) {
+				HttpContextHolder.clear();
+				ActionContext.remove();
+			} else {
+				this.finish(req, wc, acquired, ex, beginTime);
+			}
+		}
+	}
+
+	private void finish(HttpServletRequest req, WebContext wc, CalleeNode acquired, Throwable ex, long beginTime) {
+		if (acquired != null) {
+			acquired.release(beginTime);
+		}
+		long time = System.currentTimeMillis() - beginTime;
+		HttpLogs.log(wc, req, ex, time);
+		HttpContextHolder.clear();
+		ActionContext.remove();
+		if (wc != null) {
+
+			InnerHttpUtil.record(wc.rawAct(), time, ex == null && !wc.isFailed());
+		}
+	}
+
+	/**
+	 * @return true表示使用servlet 3.1的异步模式，请求线程在等待请求体、响应体和CompletableFuture的时候会被释放
+	 */
+	protected boolean isAsync(HttpServletRequest req) {
+		return false;
+	}
+
+	/**
+	 * 异步模式下执行处理器链，要在请求线程里调用。<BR>
+	 * 默认实现是等before完成后，在http线程池里调用handle(wc)，子类可以换成真正的异步实现
+	 * 
+	 * @param before
+	 *            第一个处理器之前要等待完成的操作
+	 */
+	protected CompletableFuture<Void> handleAsync(WebContext wc, CompletableFuture<?> before) {
+		final ActionContext actionContext = ActionContext.get();
+		return before.thenRunAsync(() -> {
+			HttpContextHolder.set(wc.httpRequest(), wc.httpResponse());
+			ActionContext.recover(actionContext);
+			try {
+				this.handle(wc);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new CompletionException(e);
+			} finally {
+				HttpContextHolder.clear();
+				ActionContext.remove();
+			}
+		}, HttpExcutors.getThreadPool());
+	}
 
-				InnerHttpUtil.record(wc.rawAct(), time, ex == null && !wc.isFailed());
+	private void handleAsync(AsyncContext ac, WebContext wc, CalleeNode acquired) {
+		final HttpServletRequest req = wc.httpRequest();
+		final HttpServletResponse resp = wc.httpResponse();
+		final ActionContext actionContext = ActionContext.get();
+		final AtomicBoolean finished = new AtomicBoolean();
+		wc.asyncContext(ac);
+		ac.setTimeout(AppInfo.getLong("sumk.http.async.timeout", 60000));
+		Consumer<Throwable> onEnd = e -> {
+			if (!finished.compareAndSet(false, true)) {
+				return;
 			}
+			wc.close();
+			HttpContextHolder.set(req, resp);
+			ActionContext.recover(actionContext);
+			Throwable ex = null;
+			try {
+				if (e != null) {
+					ex = e;
+					while (CompletionException.class.isInstance(ex) && ex.getCause() != null) {
+						ex = ex.getCause();
+					}
+					ex = resp.isCommitted() ? ex : handleError(req, resp, ex);
+				}
+			} catch (Exception e2) {
+				log.error("处理异常发生错误。可能是网络问题，也可能是异常处理出问题(不该发生)", e2);
+			} finally {
+				this.finish(req, wc, acquired, ex, wc.beginTime());
+				ac.complete();
+			}
+		};
+		ac.addListener(new AsyncListener() {
+
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				onEnd.accept(new TimeoutException("http request timeout"));
+			}
+
+			@Override
+			public void onError(AsyncEvent event) throws IOException {
+				onEnd.accept(event.getThrowable());
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) throws IOException {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) throws IOException {
+			}
+		});
+		CompletableFuture<Void> future;
+		try {
+			future = this.handleAsync(wc, AsyncIO.readBody(wc));
+		} catch (Throwable e) {
+			onEnd.accept(e);
+			return;
 		}
+		future.whenComplete((v, e) -> onEnd.accept(e));
 	}
 
 	protected void sendError(HttpServletRequest req, HttpServletResponse resp, int code, String errorMsg) {
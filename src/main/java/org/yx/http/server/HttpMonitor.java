@@ -37,6 +37,8 @@ import org.yx.common.ActStatis;
 import org.yx.common.Monitors;
 import org.yx.common.Statis;
 import org.yx.conf.AppInfo;
+import org.yx.db.event.DBEventDispatcher;
+import org.yx.db.sql.SqlCaches;
 import org.yx.http.act.HttpActions;
 import org.yx.http.kit.InnerHttpUtil;
 import org.yx.http.user.UserSession;
@@ -84,6 +86,7 @@ public class HttpMonitor extends AbstractCommonHttpServlet {
 		this.outputThreadPool(req, writer);
 		this.outputSchedulePool(req, writer);
 		this.outputLogLevels(req, writer);
+		this.outputDB(req, writer);
 		this.outputLocalSessions(req, writer);
 
 		writer.flush();
@@ -196,4 +199,13 @@ public class HttpMonitor extends AbstractCommonHttpServlet {
 		writer.append(Monitors.logLevels());
 		writer.append(TYPE_SPLIT);
 	}
+
+	private void outputDB(HttpServletRequest req, Writer writer) throws IOException {
+		if (!"1".equals(req.getParameter("db"))) {
+			return;
+		}
+		writer.append(SqlCaches.info());
+		writer.append(DBEventDispatcher.info());
+		writer.append(TYPE_SPLIT);
+	}
 }
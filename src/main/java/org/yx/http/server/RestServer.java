@@ -15,13 +15,18 @@
  */
 package org.yx.http.server;
 
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+
 import org.yx.annotation.Bean;
 import org.yx.annotation.http.SumkServlet;
+import org.yx.conf.AppInfo;
 import org.yx.http.handler.HttpHandlerChain;
 import org.yx.http.handler.WebContext;
 
 @Bean
-@SumkServlet(value = { "/rest/*" }, loadOnStartup = 1, appKey = "rest")
+@SumkServlet(value = { "/rest/*" }, loadOnStartup = 1, appKey = "rest", asyncSupported = true)
 public class RestServer extends AbstractHttpServer {
 
 	private static final long serialVersionUID = 7437235491L;
@@ -30,4 +35,17 @@ public class RestServer extends AbstractHttpServer {
 	protected void handle(WebContext wc) throws Throwable {
 		HttpHandlerChain.inst.handle(wc);
 	}
+
+	/**
+	 * 开启sumk.http.async之后，请求体和响应体使用非阻塞读写，@Web方法也可以返回CompletableFuture
+	 */
+	@Override
+	protected boolean isAsync(HttpServletRequest req) {
+		return req.isAsyncSupported() && AppInfo.getBoolean("sumk.http.async", false);
+	}
+
+	@Override
+	protected CompletableFuture<Void> handleAsync(WebContext wc, CompletableFuture<?> before) {
+		return HttpHandlerChain.inst.handleAsync(wc, before);
+	}
 }
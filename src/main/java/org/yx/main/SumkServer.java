@@ -37,6 +37,7 @@ import org.yx.conf.SystemConfigHolder;
 import org.yx.log.Log;
 import org.yx.log.Logs;
 import org.yx.redis.RedisPool;
+import org.yx.rpc.codec.Compressions;
 import org.yx.util.StringUtil;
 
 public final class SumkServer {
@@ -200,6 +201,7 @@ public final class SumkServer {
 			RedisPool.shutdown();
 		} catch (Throwable e2) {
 		}
+		Compressions.shutdown();
 		InnerIOC.clear();
 		SumkThreadPool.shutdown();
 		Logs.system().info("sumk server stoped!!!");
@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.yx.db.sql.NearCaches;
+import org.yx.db.sql.PojoMeta;
+import org.yx.log.Log;
+import org.yx.util.Asserts;
+
+import redis.clients.jedis.Pipeline;
+
+/**
+ * 同一个表的多个缓存操作，在execute()的时候通过pipeline一次性发送给redis。<BR>
+ * 操作按照添加的顺序执行，相邻的删除操作会合并成一个DEL命令
+ */
+public final class RecordBatch {
+
+	private static final Logger logger = Log.get("sumk.db.redis");
+	private static final byte[] NX = "NX".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] EX = "EX".getBytes(StandardCharsets.UTF_8);
+
+	private final PojoMeta pm;
+	private final List<String> ids = new ArrayList<>();
+
+	/**
+	 * 跟ids一一对应，null表示删除，absentMarker()表示空标记
+	 */
+	private final List<byte[]> values = new ArrayList<>();
+
+	RecordBatch(PojoMeta pm) {
+		this.pm = pm;
+	}
+
+	/**
+	 * 编码失败的时候，会转为删除操作
+	 * 
+	 * @param id
+	 *            redis主键
+	 * @param records
+	 *            pojo或map。SINGLE类型的表只有一个元素
+	 * @return 当前对象
+	 */
+	public RecordBatch set(String id, List<?> records) {
+		if (records == null || records.isEmpty()) {
+			return this;
+		}
+		Asserts.notEmpty(id, "key of redis value cannot be null");
+		try {
+			return this.add(id, pm.recordCodec().encode(pm, records));
+		} catch (Exception e) {
+			logger.warn(pm.getTableName() + " encode failed,delete " + id + " from cache." + e.getMessage(), e);
+			return this.del(id);
+		}
+	}
+
+	RecordBatch add(String id, byte[] value) {
+		this.ids.add(id);
+		this.values.add(value);
+		return this;
+	}
+
+	public RecordBatch del(String id) {
+		return this.add(id, null);
+	}
+
+	/**
+	 * 写入空标记，表示数据库中没有这条记录。只有在key不存在的时候才会写入，不会覆盖并发写入的真实记录。<BR>
+	 * 表没有启用空标记的时候，什么都不做
+	 */
+	public RecordBatch absent(String id) {
+		if (pm.getAbsentTtlSec() <= 0 || id == null) {
+			return this;
+		}
+		return this.add(id, RecordReq.absentMarker());
+	}
+
+	public int size() {
+		return this.ids.size();
+	}
+
+	/**
+	 * @return 所有被操作的id，可能有重复
+	 */
+	public List<String> ids() {
+		return this.ids;
+	}
+
+	public void execute() {
+		int size = ids.size();
+		if (size == 0) {
+			return;
+		}
+		byte[][] keys = new byte[size][];
+		for (int i = 0; i < size; i++) {
+			keys[i] = RecordReq.getKey(pm, ids.get(i)).getBytes(StandardCharsets.UTF_8);
+		}
+		Redis redis = RedisPool.get(pm.getTableName());
+		if (size > 1 && SeniorRedis.class.isInstance(redis)) {
+			SeniorRedis sr = (SeniorRedis) redis;
+			sr.exec(jedis -> {
+				Pipeline pipeline = jedis.pipelined();
+				this.fill(pipeline, keys);
+				pipeline.sync();
+				return null;
+			}, sr.tryCount());
+		} else {
+			for (int i = 0; i < size; i++) {
+				byte[] v = values.get(i);
+				if (v == null) {
+					redis.del(keys[i]);
+				} else if (v == RecordReq.absentMarker()) {
+					redis.set(keys[i], v, NX, EX, pm.getAbsentTtlSec());
+				} else {
+					redis.setex(keys[i], pm.getTtlSec(), v);
+				}
+			}
+		}
+		for (String id : ids) {
+			NearCaches.evict(pm, id);
+		}
+		logger.trace("{} >> BATCH {} : {}", pm.getTableName(), size, ids);
+	}
+
+	private void fill(Pipeline pipeline, byte[][] keys) {
+		int ttl = pm.getTtlSec();
+		int delBegin = -1;
+		for (int i = 0; i < keys.length; i++) {
+			byte[] v = values.get(i);
+			if (v == null) {
+				if (delBegin < 0) {
+					delBegin = i;
+				}
+				continue;
+			}
+			if (delBegin >= 0) {
+				pipeline.del(copyOf(keys, delBegin, i));
+				delBegin = -1;
+			}
+			if (v == RecordReq.absentMarker()) {
+				pipeline.set(keys[i], v, NX, EX, pm.getAbsentTtlSec());
+				continue;
+			}
+			pipeline.setex(keys[i], ttl, v);
+		}
+		if (delBegin >= 0) {
+			pipeline.del(copyOf(keys, delBegin, keys.length));
+		}
+	}
+
+	private static byte[][] copyOf(byte[][] keys, int from, int to) {
+		byte[][] ret = new byte[to - from][];
+		System.arraycopy(keys, from, ret, 0, ret.length);
+		return ret;
+	}
+}
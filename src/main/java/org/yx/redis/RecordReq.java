@@ -15,21 +15,40 @@
  */
 package org.yx.redis;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
+import org.yx.db.sql.NearCaches;
 import org.yx.db.sql.PojoMeta;
 import org.yx.exception.SumkException;
 import org.yx.log.Log;
 import org.yx.util.Asserts;
 
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
 public final class RecordReq {
 
 	private static Logger logger = Log.get("sumk.db.redis");
 
+	/**
+	 * 空标记，表示数据库中没有这条记录。它跟json和二进制格式的首字节都不一样
+	 */
+	private static final byte[] ABSENT = { '~' };
+
+	static byte[] absentMarker() {
+		return ABSENT;
+	}
+
+	public static boolean isAbsent(byte[] bs) {
+		return bs != null && bs.length == 1 && bs[0] == ABSENT[0];
+	}
+
 	public static String get(PojoMeta m, String id) {
 		if (!m.getCounter().visit()) {
 			return null;
@@ -58,13 +77,52 @@ public final class RecordReq {
 		String key = getKey(m, id);
 		String tableName = m.getTableName();
 		RedisPool.get(tableName).setex(key, m.getTtlSec(), json);
+		NearCaches.evict(m, id);
 		logger.trace("{} >> SET {} = {}", tableName, key, json);
 	}
 
+	/**
+	 * 使用表的RecordCodec编码之后，写入redis。如果编码失败，就删除该记录，防止缓存中留下旧数据
+	 * 
+	 * @param m
+	 *            表结构
+	 * @param id
+	 *            redis主键
+	 * @param records
+	 *            pojo或map。SINGLE类型的表只有一个元素
+	 */
+	public static void setRecords(PojoMeta m, String id, List<?> records) {
+		if (records == null || records.isEmpty()) {
+			return;
+		}
+		Asserts.notEmpty(id, "key of redis value cannot be null");
+		byte[] value;
+		try {
+			value = m.recordCodec().encode(m, records);
+		} catch (Exception e) {
+			logger.warn(m.getTableName() + " encode failed,delete " + id + " from cache." + e.getMessage(), e);
+			del(m, id);
+			return;
+		}
+		String key = getKey(m, id);
+		String tableName = m.getTableName();
+		RedisPool.get(tableName).setex(key.getBytes(StandardCharsets.UTF_8), m.getTtlSec(), value);
+		NearCaches.evict(m, id);
+		logger.trace("{} >> SET {} , {} records, {} bytes", tableName, key, records.size(), value.length);
+	}
+
+	/**
+	 * 批量操作，调用execute()的时候通过pipeline一次性提交
+	 */
+	public static RecordBatch batch(PojoMeta m) {
+		return new RecordBatch(m);
+	}
+
 	public static void del(PojoMeta m, String id) {
 		String key = getKey(m, id);
 		String tableName = m.getTableName();
 		RedisPool.get(tableName).del(key);
+		NearCaches.evict(m, id);
 		logger.trace("{} >> DELETE {}", tableName, key);
 	}
 
@@ -82,6 +140,9 @@ public final class RecordReq {
 		}
 		String[] keys = getKeys(m, ids);
 		RedisPool.get(m.getTableName()).del(keys);
+		for (String id : ids) {
+			NearCaches.evict(m, id);
+		}
 		if (logger.isTraceEnabled()) {
 			String ks = Arrays.toString(keys);
 			ks = ks.substring(1, ks.length() - 1);
@@ -106,6 +167,61 @@ public final class RecordReq {
 		return ret;
 	}
 
+	/**
+	 * 跟getMultiValue()类似，但返回的是原始字节，可以同时支持json和二进制格式
+	 */
+	public static List<byte[]> getMultiBytes(PojoMeta m, Collection<String> ids) {
+		return getMultiBytes(m, ids, null);
+	}
+
+	/**
+	 * @param pttls
+	 *            不为null的时候，会在同一个pipeline中获取每个key的剩余有效期(毫秒)，并存放在这里。
+	 *            长度要跟ids一致，获取不到的是-1
+	 */
+	public static List<byte[]> getMultiBytes(PojoMeta m, Collection<String> ids, long[] pttls) {
+		if (ids == null || ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		if (!m.getCounter().visit()) {
+			return Collections.emptyList();
+		}
+		byte[][] keys = new byte[ids.size()][];
+		int i = 0;
+		for (String id : ids) {
+			keys[i++] = getKey(m, id).getBytes(StandardCharsets.UTF_8);
+		}
+		Redis redis = RedisPool.get(m.getTableName());
+		List<byte[]> ret;
+		if (pttls != null && SeniorRedis.class.isInstance(redis)) {
+			SeniorRedis sr = (SeniorRedis) redis;
+			ret = sr.exec(jedis -> {
+				Pipeline pipeline = jedis.pipelined();
+				Response<List<byte[]>> values = pipeline.mget(keys);
+				List<Response<Long>> ttls = new ArrayList<>(keys.length);
+				for (byte[] key : keys) {
+					ttls.add(pipeline.pttl(key));
+				}
+				pipeline.sync();
+				for (int k = 0; k < keys.length; k++) {
+					Long ttl = ttls.get(k).get();
+					pttls[k] = ttl == null ? -1 : ttl;
+				}
+				return values.get();
+			}, sr.tryCount());
+		} else {
+			if (pttls != null) {
+				Arrays.fill(pttls, -1);
+			}
+			ret = redis.mget(keys);
+		}
+		if (ret != null && ret.size() > 0) {
+			m.getCounter().incCacheMeet();
+		}
+		return ret;
+	}
+
 	public static void setMultiValue(PojoMeta m, String[] ids, final String[] values) {
 		if (ids == null || ids.length == 0) {
 			return;
@@ -113,13 +229,13 @@ public final class RecordReq {
 		if (ids.length != values.length) {
 			SumkException.throwException(23432, "the length of ids is not equal to values");
 		}
-		String[] keys = getKeys(m, ids);
-		String tableName = m.getTableName();
-		Redis redis = RedisPool.get(tableName);
-		for (int i = 0; i < keys.length; i++) {
-			redis.setex(keys[i], m.getTtlSec(), values[i]);
-			logger.trace("{} >> SET {} = {}", tableName, keys[i], values[i]);
+		RecordBatch batch = batch(m);
+		for (int i = 0; i < ids.length; i++) {
+			if (values[i] != null) {
+				batch.add(ids[i], values[i].getBytes(StandardCharsets.UTF_8));
+			}
 		}
+		batch.execute();
 	}
 
 }
@@ -17,10 +17,12 @@ package org.yx.redis;
 
 import org.yx.redis.command.BinaryJedisCommand;
 import org.yx.redis.command.JedisCommand;
+import org.yx.redis.command.MultiKeyBinaryCommand;
 import org.yx.redis.command.MultiKeyCommand;
 import org.yx.redis.command.ScriptingCommand;
 
-public interface Redis extends BinaryJedisCommand, JedisCommand, MultiKeyCommand, ScriptingCommand {
+public interface Redis
+		extends BinaryJedisCommand, JedisCommand, MultiKeyCommand, MultiKeyBinaryCommand, ScriptingCommand {
 
 	/**
 	 * @return redis的主机地址，如果存在多个，就用逗号分隔
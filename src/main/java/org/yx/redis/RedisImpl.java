@@ -805,6 +805,21 @@ public class RedisImpl extends Redis2 {
 		return execAndRetry(jedis -> jedis.get(key));
 	}
 
+	@Override
+	public String setex(byte[] key, int seconds, byte[] value) {
+		return execAndRetry(jedis -> jedis.setex(key, seconds, value));
+	}
+
+	@Override
+	public Long del(byte[]... keys) {
+		return execAndRetry(jedis -> jedis.del(keys));
+	}
+
+	@Override
+	public List<byte[]> mget(byte[]... keys) {
+		return execAndRetry(jedis -> jedis.mget(keys));
+	}
+
 	@Override
 	public String type(byte[] key) {
 		return execAndRetry(jedis -> jedis.type(key));
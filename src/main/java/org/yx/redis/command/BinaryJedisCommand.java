@@ -26,6 +26,8 @@ public interface BinaryJedisCommand {
 
 	byte[] get(byte[] key);
 
+	String setex(byte[] key, int seconds, byte[] value);
+
 	Boolean exists(byte[] key);
 
 	String type(byte[] key);
@@ -18,4 +18,14 @@ package org.yx.rpc;
 public class ReqProtocol {
 
 	public static final int TEST = 1;
+
+	/**
+	 * 客户端要求流式返回，服务端返回迭代器的时候分片发送
+	 */
+	public static final int STREAM = 2;
+
+	/**
+	 * z的高16位是客户端给出的初始分片额度，为0表示不使用额度控制(对方不支持)
+	 */
+	public static final int WINDOW_SHIFT = 16;
 }
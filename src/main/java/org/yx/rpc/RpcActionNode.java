@@ -15,8 +15,10 @@
  */
 package org.yx.rpc;
 
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 
 import org.yx.annotation.Param;
 import org.yx.asm.ArgPojo;
@@ -29,25 +31,23 @@ import org.yx.util.S;
 public final class RpcActionNode extends CalleeNode {
 	private boolean publish;
 
-	private final Field[] fields;
+	private final Class<?>[] argTypes;
+	private final Type[] genericTypes;
 
 	public RpcActionNode(Object obj, Method method, Class<? extends ArgPojo> argClz, String[] argNames, Param[] params,
 			int toplimit, boolean publish) {
 		super(obj, method, argClz, argNames, params, toplimit);
 		this.publish = publish;
-		if (argNames.length > 0) {
-			this.fields = new Field[argNames.length];
-			try {
-				for (int i = 0; i < this.fields.length; i++) {
-					Field f = this.argClz.getDeclaredField(argNames[i]);
-					f.setAccessible(true);
-					this.fields[i] = f;
-				}
-			} catch (Exception e) {
-				SumkException.throwException(235345, e.getMessage());
+		this.argTypes = new Class<?>[argNames.length];
+		this.genericTypes = new Type[argNames.length];
+		try {
+			for (int i = 0; i < argNames.length; i++) {
+				Field f = this.argClz.getDeclaredField(argNames[i]);
+				this.argTypes[i] = MethodType.methodType(f.getType()).wrap().returnType();
+				this.genericTypes[i] = f.getGenericType();
 			}
-		} else {
-			this.fields = null;
+		} catch (Exception e) {
+			SumkException.throwException(235345, e.getMessage());
 		}
 	}
 
@@ -76,12 +76,53 @@ public final class RpcActionNode extends CalleeNode {
 		}
 
 		ArgPojo pojo = Loader.newInstance(this.argClz);
-		for (int i = 0; i < fields.length; i++) {
+		for (int i = 0; i < genericTypes.length; i++) {
 			if (i >= args.length || args[i] == null) {
 				continue;
 			}
-			Field f = fields[i];
-			f.set(pojo, RpcGson.fromJson(args[i], f.getGenericType()));
+			Object v = RpcGson.fromJson(args[i], genericTypes[i]);
+			if (v != null) {
+				pojo.setParam(i, v);
+			}
+		}
+		return this.execute(pojo);
+	}
+
+	/**
+	 * 进程内调用，直接使用调用方的参数对象，不经过json。参数类型是泛型或者类型对不上的，仍然用json转换
+	 * 
+	 * @param args
+	 *            原始的参数对象
+	 * @param copy
+	 *            为true的时候，所有参数都用json复制一份，被调用方修改参数不会影响调用方
+	 * @return 方法的返回值
+	 * @throws Throwable
+	 *             业务异常
+	 */
+	public Object invokeByObjects(Object[] args, boolean copy) throws Throwable {
+		if (this.isEmptyArgument()) {
+			return this.execute(this.getEmptyArgObj());
+		}
+		if (args == null) {
+			SumkException.throwException(12012, method.getName() + "的参数不能为空");
+		}
+		if (args.length != argNames.length) {
+			Logs.rpc().debug(method.getName() + "需要传递" + argNames.length + "个参数，实际传递" + args.length + "个");
+		}
+
+		ArgPojo pojo = Loader.newInstance(this.argClz);
+		for (int i = 0; i < genericTypes.length; i++) {
+			if (i >= args.length || args[i] == null) {
+				continue;
+			}
+			Object v = args[i];
+			Type type = genericTypes[i];
+			if (copy || !(type instanceof Class) || !argTypes[i].isInstance(v)) {
+				v = RpcGson.fromJson(RpcGson.toJson(v), type);
+			}
+			if (v != null) {
+				pojo.setParam(i, v);
+			}
 		}
 		return this.execute(pojo);
 	}
@@ -35,4 +35,9 @@ public interface RpcErrorCode extends ErrorCode {
 
 	int SERVER_UNKNOW = 770;
 
+	/**
+	 * 对冲请求中被放弃的那一个
+	 */
+	int CANCELLED = 780;
+
 }
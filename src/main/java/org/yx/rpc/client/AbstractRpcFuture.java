@@ -15,18 +15,19 @@
  */
 package org.yx.rpc.client;
 
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
 import org.yx.exception.CodeException;
-import org.yx.util.S;
 
 public abstract class AbstractRpcFuture implements RpcFuture {
 
 	@Override
 	public <T> T getOrException(Class<T> clz) throws CodeException {
-		String json = this.getOrException();
-		if (json == null) {
-			return null;
-		}
-		return S.json().fromJson(json, clz);
+		RpcResult resp = this.awaitForRpcResult();
+		resp.throwIfException();
+		return resp.optResult(clz);
 	}
 
 	@Override
@@ -38,11 +39,8 @@ public abstract class AbstractRpcFuture implements RpcFuture {
 
 	@Override
 	public <T> T opt(Class<T> clz) throws CodeException {
-		String json = this.opt();
-		if (json == null) {
-			return null;
-		}
-		return S.json().fromJson(json, clz);
+		RpcResult resp = this.awaitForRpcResult();
+		return resp.optResult(clz);
 	}
 
 	@Override
@@ -51,4 +49,57 @@ public abstract class AbstractRpcFuture implements RpcFuture {
 		return resp.json();
 	}
 
+	/**
+	 * @return 流式请求的接收器，不是流式请求的时候返回null
+	 */
+	protected RpcStream rpcStream() {
+		return null;
+	}
+
+	@Override
+	public <T> Iterator<T> stream(Type type) {
+		RpcStream s = this.rpcStream();
+		if (s != null) {
+			return s.iterator(type);
+		}
+		return RpcStream.iterate(this.awaitForRpcResult(), type);
+	}
+
+	@Override
+	public CompletableFuture<String> toCompletableFuture() {
+		return this.toCompletableFuture(String.class);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> toCompletableFuture(Type type) {
+		CompletableFuture<T> ret = new CompletableFuture<>();
+		this.rpcResultFuture().whenComplete((resp, e) -> {
+			if (e != null) {
+				ret.completeExceptionally(e);
+				return;
+			}
+			if (resp.exception() != null) {
+				ret.completeExceptionally(resp.exception());
+				return;
+			}
+			try {
+				ret.complete(parse(resp, type));
+			} catch (Throwable ex) {
+				ret.completeExceptionally(ex);
+			}
+		});
+		return ret;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T parse(RpcResult resp, Type type) {
+		if (type == Void.class) {
+			return null;
+		}
+		if (type == String.class) {
+			return (T) resp.json();
+		}
+		return resp.optResult(type);
+	}
+
 }
@@ -33,6 +33,7 @@ import org.yx.rpc.RpcActionNode;
 import org.yx.rpc.RpcActions;
 import org.yx.rpc.RpcErrorCode;
 import org.yx.rpc.RpcGson;
+import org.yx.rpc.SoaExcutors;
 import org.yx.rpc.client.route.HostChecker;
 import org.yx.rpc.client.route.RpcRoutes;
 import org.yx.rpc.codec.Request;
@@ -41,8 +42,6 @@ import org.yx.rpc.server.Response;
 import org.yx.util.Asserts;
 import org.yx.util.S;
 
-import com.google.gson.JsonElement;
-
 public final class Client {
 
 	private static enum ParamType {
@@ -62,6 +61,11 @@ public final class Client {
 	private boolean backup;
 	private static AtomicInteger counter = new AtomicInteger();
 	private Consumer<RpcResult> callback;
+	private Object routeKey;
+	private boolean stream;
+	private int maxRetry = AppInfo.getInt("sumk.rpc.retry", 0);
+	private int retried;
+	private boolean hedge;
 
 	Client(String api) {
 		this.api = api;
@@ -82,19 +86,77 @@ public final class Client {
 		return this;
 	}
 
+	/**
+	 * 接口使用一致性哈希路由(sumk.rpc.router.{api}=hash)的时候，相同的key会尽量发往同一个节点
+	 * 
+	 * @param key
+	 *            比如用户id
+	 * @return 当前对象
+	 */
+	public Client routeKey(Object key) {
+		this.routeKey = key;
+		return this;
+	}
+
+	/**
+	 * 要求服务端流式返回，结果通过RpcFuture.stream()读取
+	 * 
+	 * @return 当前对象
+	 */
+	public Client stream() {
+		this.stream = true;
+		return this;
+	}
+
+	/**
+	 * 发送失败或者被服务端限流拒绝的时候，换一个节点重试。重试受全局的RetryBudget限制
+	 * 
+	 * @param times
+	 *            最多重试的次数，0表示不重试
+	 * @return 当前对象
+	 */
+	public Client retry(int times) {
+		this.maxRetry = times;
+		return this;
+	}
+
+	/**
+	 * 开启对冲。请求在该接口的p95耗时内还没返回，就向另一个节点再发一次，取先返回的结果。
+	 * 对冲请求受全局的RetryBudget.HEDGE限制，不会成倍放大服务端的压力
+	 * 
+	 * @param hedge
+	 *            true表示开启对冲，只对路由方式的非流式请求有效
+	 * @return 当前对象
+	 */
+	public Client hedge(boolean hedge) {
+		this.hedge = hedge;
+		return this;
+	}
+
 	public Client callback(Consumer<RpcResult> callback) {
 		this.callback = callback;
 		return this;
 	}
 
+	/**
+	 * 参数在发送的时候才转为json。本地路由的时候，默认直接把这些对象传给服务端
+	 */
 	public Client paramInArray(Object... args) {
+		this.params = args;
+		this.paramType = ParamType.JSONARRAY;
+		return this;
+	}
+
+	private void fillParams(Req req) {
+		if (this.paramType != ParamType.JSONARRAY || req.getParamArray() != null) {
+			return;
+		}
+		Object[] args = (Object[]) this.params;
 		String[] params = new String[args.length];
 		for (int i = 0; i < args.length; i++) {
 			params[i] = RpcGson.toJson(args[i]);
 		}
-		this.params = params;
-		this.paramType = ParamType.JSONARRAY;
-		return this;
+		req.setParamArray(params);
 	}
 
 	public Client paramInJson(String json) {
@@ -120,19 +182,21 @@ public final class Client {
 		Objects.requireNonNull(this.paramType, "param have not been set");
 		this.totalStart = System.currentTimeMillis();
 		Req req = Rpc.req(this.api);
-		if (this.paramType == ParamType.JSONARRAY) {
-			req.setParamArray((String[]) this.params);
-		} else {
+		if (this.paramType == ParamType.JSON) {
 			req.setJsonedParam((String) this.params);
 		}
+		if (this.stream) {
+			req.setStream(true);
+		}
 		if (this.totalTimeout < 1) {
 			this.totalTimeout = AppInfo.getInt("sumk.rpc.timeout", 30000);
 		}
+		RetryBudget.RETRY.deposit();
 		RpcFuture f = sendAsync(req, this.totalStart + this.totalTimeout);
 		if (f.getClass() == ErrorRpcFuture.class) {
 			ErrorRpcFuture errorFuture = ErrorRpcFuture.class.cast(f);
 			RpcLocker locker = errorFuture.locker;
-			LockHolder.remove(locker.req.getSn());
+			LockHolder.remove(locker.seq);
 			locker.wakeup(errorFuture.rpcResult());
 		}
 		return f;
@@ -178,30 +242,148 @@ public final class Client {
 						(String) null);
 				return new ErrorRpcFuture(ex, locker);
 			}
-			url = route.select();
+			url = route.select(this.routeKey);
 		}
 		if (url == null) {
 			SoaException ex = new SoaException(RpcErrorCode.NO_NODE_AVAILABLE, "route for " + api + " are all disabled",
 					(String) null);
 			return new ErrorRpcFuture(ex, locker);
 		}
+		this.fillParams(req);
 		locker.url(url);
+		if (locker.stream != null) {
+			locker.stream.bind(req, url);
+		}
 		WriteFuture f = null;
+		if (this.maxRetry > 0 && this.directUrls == null) {
+			final Req r = req;
+			locker.retry(result -> this.retry(r, locker, endTime));
+		}
 		try {
 			ReqSession session = ReqSessionHolder.getSession(url);
 			LockHolder.register(locker, endTime);
+			locker.session(session);
 			f = session.write(req);
 		} catch (Exception e) {
 			Logs.rpc().error(e.getLocalizedMessage(), e);
 		}
 		if (f == null) {
+			locker.retry(null);
 			SoaException ex = new SoaException(RpcErrorCode.SEND_FAILED, url + " can not connect", (String) null);
 			return new ErrorRpcFuture(ex, locker);
 		}
 		f.addListener(locker);
+		if (this.hedge && this.directUrls == null && !this.stream) {
+			this.scheduleHedge(req, locker, endTime);
+		}
 		return new RpcFutureImpl(locker);
 	}
 
+	private void scheduleHedge(Req req, RpcLocker primary, long endTime) {
+		RetryBudget.HEDGE.deposit();
+		long delay = Hedges.delay(api);
+		if (delay < 0 || System.currentTimeMillis() + delay >= endTime) {
+			return;
+		}
+		LockHolder.wheel.add(() -> {
+			if (!primary.isWaked()) {
+				SoaExcutors.getClientThreadPool().execute(() -> this.sendHedge(req, primary, endTime));
+			}
+		}, delay);
+	}
+
+	/**
+	 * 向另一个节点发送对冲请求，哪个先成功就用哪个的结果，另一个会被放弃
+	 */
+	private void sendHedge(Req req, RpcLocker primary, long endTime) {
+		if (primary.isWaked() || System.currentTimeMillis() >= endTime || !RetryBudget.HEDGE.tryWithdraw()) {
+			return;
+		}
+		Router<Host> route = RpcRoutes.getRoute(api);
+		if (route == null) {
+			return;
+		}
+		Host url = null;
+		for (int i = 0; i < 3 && url == null; i++) {
+			Host h = route.select();
+			if (h != null && !h.equals(primary.url())) {
+				url = h;
+			}
+		}
+		if (url == null) {
+			return;
+		}
+		RpcLocker locker = new RpcLocker(req.hedgeCopy(), result -> {
+			if (result.exception() == null && LockHolder.remove(primary.seq) != null) {
+				primary.wakeupByHedge(result);
+			}
+		});
+		locker.url(url);
+		primary.hedge(locker);
+		try {
+			ReqSession session = ReqSessionHolder.getSession(url);
+			LockHolder.register(locker, endTime);
+			if (primary.isWaked()) {
+				locker.discard();
+				return;
+			}
+			locker.session(session);
+			WriteFuture f = session.write(locker.req);
+			if (f != null) {
+				Logs.rpc().debug("{} hedge on {}, primary host is {}", api, url, primary.url());
+				f.addListener(locker);
+				return;
+			}
+		} catch (Exception e) {
+			Logs.rpc().error(e.getLocalizedMessage(), e);
+		}
+		locker.discard();
+	}
+
+	/**
+	 * 换一个节点重新发送。调用的时候，上一次发送已经从LockHolder中移除了
+	 */
+	private boolean retry(Req req, RpcLocker locker, long endTime) {
+		if (this.retried >= this.maxRetry || System.currentTimeMillis() >= endTime || !RetryBudget.RETRY.tryWithdraw()) {
+			return false;
+		}
+		Router<Host> route = RpcRoutes.getRoute(api);
+		if (route == null) {
+			return false;
+		}
+		Host failed = locker.url();
+		Host url = null;
+		for (int i = 0; i < 3 && url == null; i++) {
+			Host h = route.select();
+			if (h != null && !h.equals(failed)) {
+				url = h;
+			}
+		}
+		if (url == null) {
+			return false;
+		}
+		this.retried++;
+		try {
+			ReqSession session = ReqSessionHolder.getSession(url);
+			locker.url(url);
+			if (locker.stream != null) {
+				locker.stream.bind(req, url);
+			}
+			LockHolder.register(locker, endTime);
+			locker.session(session);
+			WriteFuture f = session.write(req);
+			if (f != null) {
+				Logs.rpc().debug("{} retry on {}, failed host is {}", api, url, failed);
+				f.addListener(locker);
+				return true;
+			}
+		} catch (Exception e) {
+			Logs.rpc().error(e.getLocalizedMessage(), e);
+		}
+		LockHolder.remove(locker.seq);
+		return false;
+	}
+
 	private RpcFuture tryLocalHandler(Req req, RpcLocker locker, Router<Host> route) {
 		RpcActionNode node = RpcActions.getActionNode(api);
 		if (node == null) {
@@ -212,9 +394,13 @@ public final class Client {
 			return null;
 		}
 
-		JsonElement json = RpcGson.getGson().toJsonTree(req);
-		Request request = RpcGson.getGson().fromJson(json, Request.class);
-
+		boolean direct = this.paramType == ParamType.JSONARRAY && LocalRequestHandler.direct();
+		if (direct) {
+			req.args((Object[]) this.params);
+		} else {
+			this.fillParams(req);
+		}
+		Request request = Request.copyOf(req);
 		request.setJsonedParam(req.getJsonedParam());
 		request.setParamArray(req.getParamArray());
 		req = null;
@@ -225,11 +411,22 @@ public final class Client {
 			locker.url(LOCAL);
 			Response resp = LocalRequestHandler.inst.handler(request, node);
 			ActionContext.recover(context);
-			locker.wakeup(new RpcResult(resp.json(), resp.exception(), request.getSn()));
+			locker.wakeup(localResult(resp, direct, request.getSn()));
 		} finally {
 			ActionContext.recover(context);
 		}
 		return new RpcFutureImpl(locker);
 	}
 
+	private static RpcResult localResult(Response resp, boolean direct, String sn) {
+		if (!direct || resp.exception() != null) {
+			return new RpcResult(resp.json(), resp.exception(), sn);
+		}
+		Object value = resp.value();
+		if (value == null || LocalRequestHandler.copyArgs()) {
+			return new RpcResult(RpcGson.toJson(value), null, sn);
+		}
+		return RpcResult.ofValue(value, sn);
+	}
+
 }
@@ -24,6 +24,8 @@ import org.yx.conf.AppInfo;
 import org.yx.conf.Const;
 import org.yx.exception.SumkException;
 import org.yx.log.Log;
+import org.yx.rpc.client.route.HostChecker;
+import org.yx.rpc.codec.Ping;
 import org.yx.rpc.codec.ProtocolDeserializer;
 import org.yx.rpc.server.Response;
 
@@ -68,13 +70,17 @@ public class ClientHandler implements IoHandler {
 
 	@Override
 	public void messageReceived(IoSession session, Object message) throws Exception {
+		if (Ping.class.isInstance(message)) {
+			HostChecker.get().onPong(session, (Ping) message);
+			return;
+		}
 		Object obj = this.deserializer.deserialize(message);
 		if (obj == null) {
 			return;
 		}
 		if (Response.class.isInstance(obj)) {
 			Response resp = (Response) obj;
-			LockHolder.unLockAndSetResult(resp);
+			LockHolder.unLockAndSetResult(session, resp);
 			return;
 		}
 		SumkException.throwException(458223, obj.getClass().getName() + " has not deserialized");
@@ -15,6 +15,8 @@
  */
 package org.yx.rpc.client;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.yx.exception.CodeException;
 import org.yx.exception.SoaException;
 import org.yx.rpc.RpcErrorCode;
@@ -36,6 +38,11 @@ public class ErrorRpcFuture extends AbstractRpcFuture {
 		return this.rpcResult;
 	}
 
+	@Override
+	public CompletableFuture<RpcResult> rpcResultFuture() {
+		return CompletableFuture.completedFuture(this.rpcResult);
+	}
+
 	@Override
 	public RpcResult rpcResult() {
 		return this.rpcResult;
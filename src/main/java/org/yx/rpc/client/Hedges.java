@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.client;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.yx.conf.AppInfo;
+
+/**
+ * 对冲请求的等待时间。只统计开启了对冲的接口，等待时间是最近一段时间响应耗时的p95
+ */
+final class Hedges {
+
+	private static final ConcurrentMap<String, LatencyWindow> LATENCIES = new ConcurrentHashMap<>();
+
+	static void record(String api, long ms) {
+		LatencyWindow w = LATENCIES.get(api);
+		if (w != null) {
+			w.add(ms);
+		}
+	}
+
+	/**
+	 * @return 发送对冲请求之前要等待的毫秒数，样本不够的时候返回-1
+	 */
+	static long delay(String api) {
+		long p95 = LATENCIES.computeIfAbsent(api, k -> new LatencyWindow()).p95;
+		if (p95 < 0) {
+			return -1;
+		}
+		return Math.max(p95, AppInfo.getInt("sumk.rpc.hedge.min", 5));
+	}
+
+	private static final class LatencyWindow {
+		private static final int SIZE = 512;
+		private static final int MIN_SAMPLES = 32;
+
+		private final int[] samples = new int[SIZE];
+		private final AtomicInteger count = new AtomicInteger();
+		volatile long p95 = -1;
+
+		void add(long ms) {
+			int c = count.getAndIncrement();
+			samples[c & (SIZE - 1)] = (int) Math.min(ms, Integer.MAX_VALUE);
+			if (c + 1 >= MIN_SAMPLES && (c & 31) == 31) {
+				int n = Math.min(c + 1, SIZE);
+				int[] copy = Arrays.copyOf(samples, n);
+				Arrays.sort(copy);
+				p95 = copy[Math.min(n - 1, n * 95 / 100)];
+			}
+		}
+	}
+}
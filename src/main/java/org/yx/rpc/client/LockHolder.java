@@ -16,100 +16,155 @@
 package org.yx.rpc.client;
 
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.apache.mina.core.session.IoSession;
+import org.yx.common.thread.TimeWheel;
+import org.yx.conf.AppInfo;
 import org.yx.exception.CodeException;
 import org.yx.log.Log;
-import org.yx.main.SumkThreadPool;
 import org.yx.rpc.server.Response;
+import org.yx.util.UUIDSeed;
 
+/**
+ * 等待响应的请求。请求的sn由本进程的前缀加上自增的long组成，响应回来后解析出long来查找。<BR>
+ * 在途请求放在以序号取模的槽位里，槽位被占用的时候(在途请求太多)才使用map。超时由时间轮负责
+ */
 public final class LockHolder {
-	private static final ConcurrentHashMap<String, RpcLocker> locks = new ConcurrentHashMap<>();
 
-	static final LockTimeoutMonitor monitor = new LockTimeoutMonitor();
-	static {
-		SumkThreadPool.scheduledExecutor().scheduleWithFixedDelay(monitor, 1000, 500, TimeUnit.MILLISECONDS);
-	}
+	private static final String SN_PREFIX = UUIDSeed.random().substring(0, 6) + "-";
+	private static final AtomicLong SEQ = new AtomicLong();
 
-	static void register(RpcLocker r, long endTime) {
-		Req req = r.req;
-		monitor.add(req.getSn(), endTime);
-		if (locks.putIfAbsent(req.getSn(), r) != null) {
-			throw new CodeException(-111111111, req.getSn() + " duplicate!!!!!!!!!!!!!!!!!!!!!");
-		}
+	private static final int SLOT_MASK = slotSize() - 1;
+	private static final AtomicReferenceArray<RpcLocker> slots = new AtomicReferenceArray<>(SLOT_MASK + 1);
+	private static final ConcurrentHashMap<Long, RpcLocker> overflow = new ConcurrentHashMap<>();
+	private static final AtomicInteger size = new AtomicInteger();
+
+	static final TimeWheel wheel = new TimeWheel("sumk-rpc-timeout", AppInfo.getInt("sumk.rpc.timeout.tick", 10),
+			AppInfo.getInt("sumk.rpc.timeout.wheel", 512));
+
+	private static int slotSize() {
+		int n = Math.max(AppInfo.getInt("sumk.rpc.client.slots", 65536), 16);
+		return Integer.highestOneBit(n - 1) << 1;
 	}
 
-	static void unLockAndSetResult(Response resp) {
-		RpcLocker r = locks.remove(resp.sn());
-		if (r == null) {
-			Log.get("sumk.rpc.client").debug("{} has been removed.maybe is timeout.result:{}", resp.sn(), resp.json());
-			return;
-		}
-		RpcResult result = new RpcResult(resp.json(), resp.exception());
-		r.wakeup(result);
+	static long nextSeq() {
+		return SEQ.incrementAndGet();
 	}
 
-	static RpcLocker remove(String sn) {
-		return locks.remove(sn);
+	static String toSn(long seq) {
+		return SN_PREFIX + Long.toString(seq, 36);
 	}
 
-	static boolean containsKey(String sn) {
-		return locks.containsKey(sn);
+	/**
+	 * @return 不是本进程产生的sn，返回-1
+	 */
+	static long toSeq(String sn) {
+		if (sn == null || !sn.startsWith(SN_PREFIX)) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(sn.substring(SN_PREFIX.length()), 36);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
 	}
 
-	public static int lockSize() {
-		return locks.size();
+	static void register(RpcLocker r, long endTime) {
+		long seq = r.seq;
+		int index = (int) (seq & SLOT_MASK);
+		if (!slots.compareAndSet(index, null, r) && overflow.putIfAbsent(seq, r) != null) {
+			throw new CodeException(-111111111, r.req.getSn() + " duplicate!!!!!!!!!!!!!!!!!!!!!");
+		}
+		size.incrementAndGet();
+		long delay = endTime - System.currentTimeMillis();
+		if (r.stream != null) {
+			r.stream.idle(delay);
+		}
+		r.timeout(schedule(seq, delay));
 	}
 
-	private static class LockTimeoutMonitor implements Runnable {
-
-		private static final DelayQueue<DelayedObject> QUEUE = new DelayQueue<>();
-
-		@Override
-		public void run() {
-			try {
-				DelayedObject delay;
-				while ((delay = QUEUE.poll()) != null) {
-					RpcLocker locker = LockHolder.remove(delay.sn);
-					if (locker != null) {
-						locker.wakeup(RpcResult.timeout(locker.req));
-					}
-				}
-			} catch (Exception e) {
-				Log.printStack("sumk.error", e);
-				return;
+	private static TimeWheel.Timeout schedule(long seq, long delay) {
+		return wheel.add(() -> {
+			RpcLocker locker = LockHolder.remove(seq);
+			if (locker != null) {
+				locker.wakeup(RpcResult.timeout(locker.req));
 			}
+		}, delay);
+	}
 
+	/**
+	 * 流式请求每收到一个分片就重新计算超时，长时间的流不会被单次调用的超时打断
+	 */
+	private static void touch(long seq) {
+		RpcLocker r = get(seq);
+		if (r != null && r.stream != null) {
+			r.timeout(schedule(seq, r.stream.idle()));
 		}
+	}
 
-		void add(String reqId, long endTime) {
-			QUEUE.add(new DelayedObject(reqId, endTime));
+	static void unLockAndSetResult(IoSession session, Response resp) {
+		int st = resp.stream();
+		if (st > 0) {
+			long seq = toSeq(resp.sn());
+			RpcStream.onChunk(session, seq, st, resp.json());
+			touch(seq);
+			return;
+		}
+		if (st < 0) {
+			RpcStream.onEnd(toSeq(resp.sn()), -st - 1);
+		}
+		RpcLocker r = remove(toSeq(resp.sn()));
+		if (r == null) {
+			Log.get("sumk.rpc.client").debug("{} has been removed.maybe is timeout.result:{}", resp.sn(), resp.json());
+			return;
 		}
+		RpcResult result = new RpcResult(resp.json(), resp.exception());
+		r.wakeup(result);
 	}
 
-	private static class DelayedObject implements Delayed {
-
-		private long endTime;
-		final String sn;
-
-		public DelayedObject(String sn, long endTime) {
-			this.endTime = endTime;
-			this.sn = sn;
+	/**
+	 * 移除的同时取消超时任务
+	 */
+	static RpcLocker remove(long seq) {
+		if (seq < 0) {
+			return null;
 		}
-
-		@Override
-		public long getDelay(TimeUnit unit) {
-			return unit.convert(endTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		RpcLocker r = null;
+		int index = (int) (seq & SLOT_MASK);
+		RpcLocker cur = slots.get(index);
+		if (cur != null && cur.seq == seq && slots.compareAndSet(index, cur, null)) {
+			r = cur;
+		} else if (!overflow.isEmpty()) {
+			r = overflow.remove(seq);
+		}
+		if (r != null) {
+			size.decrementAndGet();
+			r.cancelTimeout();
 		}
+		return r;
+	}
 
-		@Override
-		public int compareTo(Delayed other) {
-			long d = other instanceof DelayedObject ? this.endTime - DelayedObject.class.cast(other).endTime
-					: this.getDelay(TimeUnit.MILLISECONDS) - other.getDelay(TimeUnit.MILLISECONDS);
-			return (d == 0) ? 0 : ((d < 0) ? -1 : 1);
+	private static RpcLocker get(long seq) {
+		if (seq < 0) {
+			return null;
+		}
+		RpcLocker cur = slots.get((int) (seq & SLOT_MASK));
+		if (cur != null && cur.seq == seq) {
+			return cur;
 		}
+		return overflow.isEmpty() ? null : overflow.get(seq);
+	}
+
+	static boolean containsKey(long seq) {
+		RpcLocker cur = slots.get((int) (seq & SLOT_MASK));
+		return (cur != null && cur.seq == seq) || overflow.containsKey(seq);
+	}
+
+	public static int lockSize() {
+		return size.get();
 	}
 
 }
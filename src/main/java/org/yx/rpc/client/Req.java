@@ -42,6 +42,13 @@ public class Req {
 
 	private transient String[] p;
 
+	private transient long seq;
+
+	/**
+	 * 进程内调用时调用方传入的原始参数，不为null的时候不解析json参数
+	 */
+	private transient Object[] args;
+
 	private String a;
 
 	private String secret;
@@ -78,6 +85,29 @@ public class Req {
 		this.n = joiner.toString();
 	}
 
+	/**
+	 * @return 客户端内部的请求序号，跟sn一一对应
+	 */
+	long seq() {
+		return this.seq;
+	}
+
+	void seq(long seq) {
+		this.seq = seq;
+	}
+
+	/**
+	 * @return 包含sn、traceId、spanId的完整字符串
+	 */
+	public String fullSn() {
+		return this.n;
+	}
+
+	public void fullSn(String n) {
+		this.n = n;
+		this.sn = null;
+	}
+
 	public String getJsonedParam() {
 		return j;
 	}
@@ -94,6 +124,14 @@ public class Req {
 		this.p = paramArray;
 	}
 
+	public Object[] args() {
+		return args;
+	}
+
+	public void args(Object[] args) {
+		this.args = args;
+	}
+
 	public long getStart() {
 		return s;
 	}
@@ -159,6 +197,26 @@ public class Req {
 		this.z = z | ReqProtocol.TEST;
 	}
 
+	public void setStream(boolean b) {
+		this.z = b ? z | ReqProtocol.STREAM : z & ~ReqProtocol.STREAM;
+	}
+
+	public boolean isStream() {
+		return (z & ReqProtocol.STREAM) != 0;
+	}
+
+	/**
+	 * 流式请求的初始分片额度，服务端发完这么多分片之后要等客户端授予新的额度
+	 */
+	public void setStreamWindow(int window) {
+		int w = Math.min(Math.max(window, 0), 0xFFFF);
+		this.z = (z & ((1 << ReqProtocol.WINDOW_SHIFT) - 1)) | (w << ReqProtocol.WINDOW_SHIFT);
+	}
+
+	public int streamWindow() {
+		return z >>> ReqProtocol.WINDOW_SHIFT;
+	}
+
 	public boolean isTest() {
 		return (z & ReqProtocol.TEST) != 0;
 	}
@@ -179,6 +237,27 @@ public class Req {
 		this.attachments = attachments;
 	}
 
+	/**
+	 * 对冲请求用的副本，参数相同，但是有自己的sn
+	 */
+	Req hedgeCopy() {
+		Req r = new Req();
+		long seq = LockHolder.nextSeq();
+		r.seq(seq);
+		r.setFullSn(LockHolder.toSn(seq), this.getTraceId(), this.getSpanId());
+		r.u = this.u;
+		r.a = this.a;
+		r.secret = this.secret;
+		r.sign = this.sign;
+		r.src = this.src;
+		r.s = this.s;
+		r.z = this.z;
+		r.attachments = this.attachments;
+		r.j = this.j;
+		r.p = this.p;
+		return r;
+	}
+
 	public int paramProtocol() {
 		if (this.j != null) {
 			return Protocols.REQ_PARAM_JSON;
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.IoSession;
+import org.yx.conf.AppInfo;
+
+/**
+ * 客户端合并发送的一批请求。每个请求有自己的WriteFuture，在整个批次写完后一起完成
+ */
+public final class ReqBatch {
+
+	final IoSession session;
+	private final List<Req> reqs;
+	private final List<DefaultWriteFuture> futures;
+
+	/**
+	 * 是否开启客户端的请求合并，只对双方都支持批量帧的连接有效
+	 */
+	public static boolean enabled() {
+		return AppInfo.getBoolean("sumk.rpc.client.batch", false);
+	}
+
+	/**
+	 * @return 一个批次最多包含的请求数，达到后立即发送
+	 */
+	public static int maxSize() {
+		return AppInfo.getInt("sumk.rpc.client.batch.size", 32);
+	}
+
+	/**
+	 * @return 第一个请求最多等待的时间，单位微秒
+	 */
+	public static int windowMicros() {
+		return AppInfo.getInt("sumk.rpc.client.batch.window", 200);
+	}
+
+	ReqBatch(IoSession session) {
+		this.session = session;
+		int size = Math.min(maxSize(), 64);
+		this.reqs = new ArrayList<>(size);
+		this.futures = new ArrayList<>(size);
+	}
+
+	WriteFuture add(Req req) {
+		DefaultWriteFuture f = new DefaultWriteFuture(session);
+		reqs.add(req);
+		futures.add(f);
+		return f;
+	}
+
+	public List<Req> reqs() {
+		return reqs;
+	}
+
+	public int size() {
+		return reqs.size();
+	}
+
+	void send() {
+		if (reqs.size() == 1) {
+			session.write(reqs.get(0)).addListener(f -> complete((WriteFuture) f));
+			return;
+		}
+		session.write(this).addListener(f -> complete((WriteFuture) f));
+	}
+
+	private void complete(WriteFuture written) {
+		Throwable e = written.getException();
+		for (DefaultWriteFuture f : futures) {
+			if (e == null) {
+				f.setWritten();
+			} else {
+				f.setException(e);
+			}
+		}
+	}
+}
@@ -17,6 +17,8 @@ package org.yx.rpc.client;
 
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
@@ -26,8 +28,17 @@ import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.transport.socket.SocketConnector;
 import org.yx.common.Host;
+import org.yx.conf.AppInfo;
+import org.yx.exception.CodeException;
 import org.yx.log.Logs;
+import org.yx.main.SumkThreadPool;
+import org.yx.rpc.RpcErrorCode;
+import org.yx.rpc.SoaExcutors;
 import org.yx.rpc.client.route.HostChecker;
+import org.yx.rpc.client.route.RpcRoutes;
+import org.yx.rpc.codec.BinaryFrames;
+import org.yx.rpc.codec.Compressions;
+import org.yx.rpc.codec.Protocols;
 
 public final class ReqSession {
 
@@ -37,6 +48,28 @@ public final class ReqSession {
 	private Host addr;
 	private final Lock lock = new ReentrantLock();
 
+	/**
+	 * 已发送但还没收到响应的请求数
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * 连续超时的次数，超过阈值的时候换一个新连接，旧连接等在途请求结束后再关闭
+	 */
+	private final AtomicInteger timeouts = new AtomicInteger();
+	private final AtomicBoolean connecting = new AtomicBoolean();
+
+	/**
+	 * 对方是否支持批量帧，在建立连接的时候确定
+	 */
+	private volatile boolean batchable;
+
+	/**
+	 * 正在收集的批次，由batchLock保护
+	 */
+	private ReqBatch batch;
+	private final Object batchLock = new Object();
+
 	public static void setConnectorSupplier(Supplier<SocketConnector> connectorSupplier) {
 		ReqSession.connectorSupplier = Objects.requireNonNull(connectorSupplier);
 	}
@@ -85,6 +118,15 @@ public final class ReqSession {
 			cf.await(connector.getConnectTimeoutMillis() + 1);
 			IoSession se = cf.getSession();
 			if (se != null) {
+				int protocols = RpcRoutes.protocols(addr);
+				boolean binary = BinaryFrames.enabled() && Protocols.hasFeature(protocols, Protocols.FORMAT_BINARY);
+				if (binary) {
+					BinaryFrames.markBinary(se);
+				}
+				this.batchable = binary && Protocols.hasFeature(protocols, Protocols.BATCH);
+				if (Compressions.enabled() && Protocols.hasFeature(protocols, Protocols.COMPRESS_ACCEPT)) {
+					Compressions.markAccepted(se);
+				}
 				this.session = se;
 				return;
 			}
@@ -101,7 +143,129 @@ public final class ReqSession {
 		if (!this.ensureSession()) {
 			return null;
 		}
-		return this.session.write(req);
+		IoSession s = this.session;
+		if (this.batchable && ReqBatch.enabled()) {
+			return this.addToBatch(s, req);
+		}
+		return s.write(req);
+	}
+
+	/**
+	 * 第一个请求会启动一个微秒级的定时器，定时器到期或者请求数达到上限的时候，整批发送
+	 */
+	private WriteFuture addToBatch(IoSession s, Req req) {
+		ReqBatch full = null;
+		ReqBatch stale = null;
+		ReqBatch created = null;
+		WriteFuture f;
+		synchronized (batchLock) {
+			if (batch != null && batch.session != s) {
+				stale = batch;
+				batch = null;
+			}
+			if (batch == null) {
+				batch = created = new ReqBatch(s);
+			}
+			f = batch.add(req);
+			if (batch.size() >= ReqBatch.maxSize()) {
+				full = batch;
+				batch = null;
+			}
+		}
+		if (stale != null) {
+			stale.send();
+		}
+		if (full != null) {
+			full.send();
+		} else if (created != null) {
+			final ReqBatch b = created;
+			SumkThreadPool.scheduledExecutor().schedule(() -> this.flush(b), ReqBatch.windowMicros(),
+					TimeUnit.MICROSECONDS);
+		}
+		return f;
+	}
+
+	private void flush(ReqBatch b) {
+		synchronized (batchLock) {
+			if (batch != b) {
+				return;
+			}
+			batch = null;
+		}
+		b.send();
+	}
+
+	public int pending() {
+		return pending.get();
+	}
+
+	public boolean isConnected() {
+		IoSession s = this.session;
+		return s != null && !s.isClosing();
+	}
+
+	/**
+	 * 在后台建立连接，不阻塞调用者
+	 */
+	void connectInBackground() {
+		if (this.isConnected() || !connecting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			SoaExcutors.getClientThreadPool().execute(() -> {
+				try {
+					this.ensureSession();
+				} finally {
+					connecting.set(false);
+				}
+			});
+		} catch (Exception e) {
+			connecting.set(false);
+			Logs.rpc().debug("{} - pre connect failed,{}", addr, e.toString());
+		}
+	}
+
+	void onSend() {
+		pending.incrementAndGet();
+	}
+
+	void onResult(RpcResult result) {
+		pending.decrementAndGet();
+		CodeException e = result.exception();
+		if (e != null && e.getCode() == RpcErrorCode.CANCELLED) {
+			return;
+		}
+		if (e == null || e.getCode() != RpcErrorCode.TIMEOUT) {
+			timeouts.set(0);
+			return;
+		}
+		if (timeouts.incrementAndGet() >= AppInfo.getInt("sumk.rpc.client.session.evict.timeouts", 5)) {
+			timeouts.set(0);
+			this.drain();
+		}
+	}
+
+	/**
+	 * 不再往旧连接上发送新请求，新请求会建立新的连接。<BR>
+	 * 旧连接不立即关闭，上面在途的请求仍然可以收到响应，sumk.rpc.client.session.drain毫秒之后才关闭
+	 */
+	private void drain() {
+		IoSession s;
+		lock.lock();
+		try {
+			s = this.session;
+			this.session = null;
+		} finally {
+			lock.unlock();
+		}
+		if (s == null) {
+			return;
+		}
+		long delay = AppInfo.getLong("sumk.rpc.client.session.drain", 60000);
+		Logs.rpc().warn("{} - too many timeouts, drain session {} and close it after {}ms", addr, s, delay);
+		SumkThreadPool.scheduledExecutor().schedule(() -> {
+			s.closeOnFlush();
+		}, delay, TimeUnit.MILLISECONDS);
 	}
 
 	public void close() {
@@ -15,43 +15,42 @@
  */
 package org.yx.rpc.client;
 
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.yx.common.Host;
+import org.yx.conf.AppInfo;
 
 public class ReqSessionHolder {
-	private static ConcurrentMap<Host, Object> map = new ConcurrentHashMap<>();
+	private static ConcurrentMap<Host, ReqSessionPool> map = new ConcurrentHashMap<>();
 
 	public static void addClient(Host url, ReqSession s) {
-		map.putIfAbsent(url, s);
+		map.putIfAbsent(url, new ReqSessionPool(s));
 	}
 
 	public static ReqSession getSession(Host url) {
-		Object obj = map.get(url);
-		if (obj == null) {
-			ReqSession ses = createSession(url);
-			Object ses0 = map.putIfAbsent(url, ses);
-			if (ses0 != null) {
-				ses.close();
-				return _getSession(ses0);
+		ReqSessionPool pool = map.get(url);
+		if (pool == null) {
+			pool = createPool(url);
+			ReqSessionPool pool0 = map.putIfAbsent(url, pool);
+			if (pool0 != null) {
+				return pool0.select();
 			}
-			return ses;
+			ReqSession s = pool.select();
+			pool.preConnect(s);
+			return s;
 		}
-		return _getSession(obj);
+		return pool.select();
 	}
 
-	@SuppressWarnings("unchecked")
-	public static ReqSession _getSession(Object obj) {
-		if (ReqSession.class.isInstance(obj)) {
-			return (ReqSession) obj;
-		}
-
-		return ((List<ReqSession>) obj).get(0);
+	public static ReqSessionPool getPool(Host url) {
+		return map.get(url);
 	}
 
-	private static ReqSession createSession(Host url) {
-		return new ReqSession(url);
+	/**
+	 * 每个host的连接数由sumk.rpc.client.session.count设置，默认是2
+	 */
+	private static ReqSessionPool createPool(Host url) {
+		return new ReqSessionPool(url, AppInfo.getInt("sumk.rpc.client.session.count", 2));
 	}
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.yx.common.Host;
+
+/**
+ * 同一个host的多个连接。每次选择未完成请求最少的连接，已断开的连接在后台重连，不会阻塞其它连接上的调用
+ */
+public final class ReqSessionPool {
+
+	private final ReqSession[] sessions;
+	private final AtomicInteger counter = new AtomicInteger();
+
+	public ReqSessionPool(Host host, int size) {
+		this.sessions = new ReqSession[Math.max(size, 1)];
+		for (int i = 0; i < sessions.length; i++) {
+			sessions[i] = new ReqSession(host);
+		}
+	}
+
+	ReqSessionPool(ReqSession session) {
+		this.sessions = new ReqSession[] { session };
+	}
+
+	/**
+	 * 优先选择已连接的、未完成请求最少的连接。都没有连接的时候，返回其中一个，由调用者同步建立连接
+	 */
+	public ReqSession select() {
+		ReqSession[] ss = this.sessions;
+		if (ss.length == 1) {
+			return ss[0];
+		}
+		int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+		ReqSession best = null;
+		int bestPending = Integer.MAX_VALUE;
+		boolean hasBroken = false;
+		for (int i = 0; i < ss.length; i++) {
+			ReqSession s = ss[(start + i) % ss.length];
+			if (!s.isConnected()) {
+				hasBroken = true;
+				continue;
+			}
+			int p = s.pending();
+			if (p < bestPending) {
+				best = s;
+				bestPending = p;
+			}
+		}
+		if (hasBroken) {
+			this.preConnect(best == null ? ss[start % ss.length] : null);
+		}
+		return best != null ? best : ss[start % ss.length];
+	}
+
+	/**
+	 * 在后台连接所有断开的连接
+	 * 
+	 * @param exclude
+	 *            这个连接由调用者自己去连接
+	 */
+	void preConnect(ReqSession exclude) {
+		for (ReqSession s : this.sessions) {
+			if (s != exclude) {
+				s.connectInBackground();
+			}
+		}
+	}
+
+	public int size() {
+		return sessions.length;
+	}
+
+	public int pending() {
+		int sum = 0;
+		for (ReqSession s : sessions) {
+			sum += s.pending();
+		}
+		return sum;
+	}
+
+	public void close() {
+		for (ReqSession s : sessions) {
+			s.close();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.yx.conf.AppInfo;
+import org.yx.exception.CodeException;
+import org.yx.exception.ErrorCode;
+import org.yx.rpc.RpcErrorCode;
+
+/**
+ * 全局的重试预算，防止服务端过载的时候，客户端的重试把负载放大。<BR>
+ * 每个请求存入{prefix}.ratio%个令牌，每次重试消耗一个令牌，令牌最多攒{prefix}.budget个
+ */
+public final class RetryBudget {
+
+	/**
+	 * 失败重试的预算
+	 */
+	public static final RetryBudget RETRY = new RetryBudget("sumk.rpc.retry", 10, 100);
+
+	/**
+	 * 对冲请求的预算
+	 */
+	public static final RetryBudget HEDGE = new RetryBudget("sumk.rpc.hedge", 5, 20);
+
+	private static final int UNIT = 1000;
+
+	/**
+	 * 以千分之一个令牌为单位
+	 */
+	private final AtomicLong tokens = new AtomicLong();
+	private final String prefix;
+	private final int defaultRatio;
+	private final int defaultBudget;
+
+	private RetryBudget(String prefix, int defaultRatio, int defaultBudget) {
+		this.prefix = prefix;
+		this.defaultRatio = defaultRatio;
+		this.defaultBudget = defaultBudget;
+	}
+
+	void deposit() {
+		long max = AppInfo.getInt(prefix + ".budget", defaultBudget) * (long) UNIT;
+		long add = AppInfo.getInt(prefix + ".ratio", defaultRatio) * (long) UNIT / 100;
+		while (true) {
+			long current = tokens.get();
+			if (current >= max) {
+				return;
+			}
+			if (tokens.compareAndSet(current, Math.min(current + add, max))) {
+				return;
+			}
+		}
+	}
+
+	boolean tryWithdraw() {
+		while (true) {
+			long current = tokens.get();
+			if (current < UNIT) {
+				return false;
+			}
+			if (tokens.compareAndSet(current, current - UNIT)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 只有确定服务端没有处理的请求才能重试：发送失败，或者被服务端限流拒绝
+	 */
+	static boolean isRetryable(RpcResult result) {
+		CodeException e = result.exception();
+		if (e == null) {
+			return false;
+		}
+		return e.getCode() == RpcErrorCode.SEND_FAILED || e.getCode() == ErrorCode.THREAD_THRESHOLD_OVER;
+	}
+
+	public long tokens() {
+		return tokens.get() / UNIT;
+	}
+}
@@ -23,7 +23,6 @@ import org.yx.exception.SumkException;
 import org.yx.log.Logs;
 import org.yx.rpc.RpcSettings;
 import org.yx.rpc.client.route.ZkRouteParser;
-import org.yx.util.UUIDSeed;
 
 public final class Rpc {
 	private Rpc() {
@@ -64,7 +63,9 @@ public final class Rpc {
 			req.setTest(true);
 		}
 		req.setStart(System.currentTimeMillis());
-		String sn = UUIDSeed.seq18();
+		long seq = LockHolder.nextSeq();
+		req.seq(seq);
+		String sn = LockHolder.toSn(seq);
 		req.setFullSn(sn, context.traceId(), context.nextSpanId());
 		req.setUserId(context.userId());
 		req.setApi(method);
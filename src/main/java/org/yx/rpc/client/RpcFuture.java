@@ -15,6 +15,10 @@
  */
 package org.yx.rpc.client;
 
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
 import org.yx.exception.CodeException;
 
 public interface RpcFuture {
@@ -38,5 +42,35 @@ public interface RpcFuture {
 
 	RpcResult awaitForRpcResult();
 
+	/**
+	 * 流式读取结果，需要在发送前调用Client.stream()。服务端返回Iterator、Iterable或Stream的时候分片传输，
+	 * 边收边读，不用等全部数据到齐。超时时间是整个流的时间
+	 * 
+	 * @param type
+	 *            元素的类型
+	 * @return 迭代过程中如果发生了异常，会抛出CodeException
+	 */
+	<T> Iterator<T> stream(Type type);
+
 	RpcResult rpcResult();
+
+	/**
+	 * 不阻塞当前线程的获取方式。<BR>
+	 * 后续操作默认在接收响应的线程里执行，比较耗时的操作要使用thenApplyAsync等带Executor的方法
+	 * 
+	 * @return 收到响应或者超时的时候完成，不会以异常的方式结束
+	 */
+	CompletableFuture<RpcResult> rpcResultFuture();
+
+	/**
+	 * @return 成功的时候是返回的json，失败的时候以CodeException结束
+	 */
+	CompletableFuture<String> toCompletableFuture();
+
+	/**
+	 * @param type
+	 *            返回值的类型，可以是Class，也可以是带泛型的Type
+	 * @return 成功的时候是反序列化后的对象，失败的时候以CodeException结束
+	 */
+	<T> CompletableFuture<T> toCompletableFuture(Type type);
 }
@@ -15,6 +15,8 @@
  */
 package org.yx.rpc.client;
 
+import java.util.concurrent.CompletableFuture;
+
 public class RpcFutureImpl extends AbstractRpcFuture {
 	private RpcLocker locker;
 
@@ -33,6 +35,16 @@ public class RpcFutureImpl extends AbstractRpcFuture {
 		return this.result;
 	}
 
+	@Override
+	public CompletableFuture<RpcResult> rpcResultFuture() {
+		return locker.future();
+	}
+
+	@Override
+	protected RpcStream rpcStream() {
+		return locker.stream;
+	}
+
 	@Override
 	public RpcResult rpcResult() {
 		return this.result;
@@ -16,14 +16,19 @@
 package org.yx.rpc.client;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.mina.core.future.IoFutureListener;
 import org.apache.mina.core.future.WriteFuture;
 import org.yx.common.Host;
+import org.yx.common.route.ServerLoad;
+import org.yx.common.thread.TimeWheel;
+import org.yx.exception.CodeException;
 import org.yx.exception.SoaException;
 import org.yx.log.Log;
 import org.yx.rpc.RpcErrorCode;
@@ -36,14 +41,42 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 	private final AtomicReference<RpcResult> result = new AtomicReference<>();
 
 	final Req req;
+	final long seq;
 	private Host url;
+	private ReqSession session;
+	private long sendTime;
+	private volatile TimeWheel.Timeout timeout;
 	final Consumer<RpcResult> callback;
 
+	/**
+	 * 流式请求才有
+	 */
+	final RpcStream stream;
+
+	/**
+	 * 可以重试的失败发生时调用，返回true表示已经重新发送，这次的结果不通知调用方
+	 */
+	private volatile Predicate<RpcResult> retry;
+
+	/**
+	 * 为本请求发出的对冲请求，本请求先结束的时候要放弃它
+	 */
+	private volatile RpcLocker hedge;
+
+	/**
+	 * 对冲请求赢了，本请求所在节点的这次发送按取消统计
+	 */
+	private volatile boolean hedgeWon;
+
 	private final AtomicReference<Thread> awaitThread = new AtomicReference<>();
 
+	private final CompletableFuture<RpcResult> future = new CompletableFuture<>();
+
 	RpcLocker(Req req, Consumer<RpcResult> callback) {
 		this.req = req;
+		this.seq = req.seq();
 		this.callback = callback;
+		this.stream = req.isStream() ? RpcStream.open(seq) : null;
 	}
 
 	public void url(Host url) {
@@ -54,6 +87,100 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 		return url;
 	}
 
+	/**
+	 * 设置新的超时任务，原来的会被取消
+	 */
+	void timeout(TimeWheel.Timeout timeout) {
+		TimeWheel.Timeout old = this.timeout;
+		this.timeout = timeout;
+		if (old != null) {
+			old.cancel();
+		}
+	}
+
+	void cancelTimeout() {
+		TimeWheel.Timeout t = this.timeout;
+		if (t != null) {
+			t.cancel();
+		}
+	}
+
+	/**
+	 * 记录请求是通过哪个连接发送的，用于统计连接和节点上未完成的请求数
+	 */
+	void session(ReqSession session) {
+		this.session = session;
+		this.sendTime = System.currentTimeMillis();
+		session.onSend();
+		ServerLoad.of(url).begin();
+	}
+
+	void retry(Predicate<RpcResult> retry) {
+		this.retry = retry;
+	}
+
+	void hedge(RpcLocker hedge) {
+		this.hedge = hedge;
+	}
+
+	/**
+	 * 放弃这个请求，不通知调用方，迟到的响应会被丢弃
+	 */
+	void discard() {
+		if (LockHolder.remove(seq) == null) {
+			return;
+		}
+		RpcResult r = this.cancelled();
+		if (this.result.compareAndSet(null, r)) {
+			this.endAttempt(r, System.currentTimeMillis());
+			this.future.complete(r);
+		}
+	}
+
+	private RpcResult cancelled() {
+		return new RpcResult(null,
+				new SoaException(RpcErrorCode.CANCELLED, "request cancelled", "cancelled by hedge,sn=" + req.getSn()),
+				req.getSn());
+	}
+
+	/**
+	 * 对冲请求先成功的时候调用。结果交给调用方，但是本请求所在的节点并没有返回结果，按取消统计
+	 */
+	void wakeupByHedge(RpcResult result) {
+		this.hedgeWon = true;
+		this.wakeup(result);
+	}
+
+	/**
+	 * 结束当前这一次发送的统计，重试的时候每次发送都会调用一次。<BR>
+	 * 被取消的发送只减少在途数，不计入耗时和节点的成败
+	 */
+	private void endAttempt(RpcResult result, long receiveTime) {
+		ReqSession s;
+		synchronized (this) {
+			s = this.session;
+			this.session = null;
+		}
+		if (s == null) {
+			return;
+		}
+		s.onResult(result);
+		CodeException e = result.exception();
+		if (e != null && e.getCode() == RpcErrorCode.CANCELLED) {
+			ServerLoad.of(url).cancel();
+			return;
+		}
+		ServerLoad.of(url).end(receiveTime - sendTime);
+		HostChecker.get().record(url, req.getApi(), e, receiveTime - sendTime);
+	}
+
+	/**
+	 * @return 在wakeup的时候完成，不会以异常的方式结束
+	 */
+	CompletableFuture<RpcResult> future() {
+		return this.future;
+	}
+
 	public boolean isWaked() {
 		return this.result.get() != null;
 	}
@@ -64,9 +191,27 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 		if (this.isWaked()) {
 			return;
 		}
+		Predicate<RpcResult> retry = this.retry;
+		if (retry != null && RetryBudget.isRetryable(result)) {
+			this.endAttempt(result, receiveTime);
+			if (retry.test(result)) {
+				return;
+			}
+		}
 		if (!this.result.compareAndSet(null, result)) {
 			return;
 		}
+		if (this.stream != null) {
+			this.stream.finish(result);
+		}
+		this.endAttempt(this.hedgeWon ? this.cancelled() : result, receiveTime);
+		RpcLocker h = this.hedge;
+		if (h != null) {
+			h.discard();
+		}
+		if (result.exception() == null) {
+			Hedges.record(req.getApi(), receiveTime - req.getStart());
+		}
 		Thread thread = awaitThread.getAndSet(null);
 		if (thread != null) {
 			LockSupport.unpark(thread);
@@ -79,6 +224,7 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 			}
 		}
 		RpcLogs.clientLog(this.url, this.req, result, receiveTime);
+		this.future.complete(result);
 	}
 
 	@Override
@@ -87,7 +233,7 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 			return;
 		}
 		SoaExcutors.getClientThreadPool().execute(() -> {
-			if (LockHolder.remove(req.getSn()) == null) {
+			if (LockHolder.remove(seq) == null) {
 				return;
 			}
 			if (url != null) {
@@ -117,4 +263,4 @@ public final class RpcLocker implements IoFutureListener<WriteFuture> {
 		}
 		return rpcResult;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
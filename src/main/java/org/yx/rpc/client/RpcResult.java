@@ -15,10 +15,13 @@
  */
 package org.yx.rpc.client;
 
+import java.lang.reflect.Type;
+
 import org.yx.exception.BizException;
 import org.yx.exception.CodeException;
 import org.yx.exception.SoaException;
 import org.yx.rpc.RpcErrorCode;
+import org.yx.rpc.RpcGson;
 import org.yx.util.S;
 
 public final class RpcResult {
@@ -36,7 +39,12 @@ public final class RpcResult {
 		return new RpcResult(null, parseException(e), req == null ? null : req.getSn());
 	}
 
-	private final String json;
+	private String json;
+
+	/**
+	 * 本地路由直接调用时的返回值。这时json是第一次用到的时候才生成的
+	 */
+	private final Object value;
 	private final CodeException exception;
 	private String sn;
 
@@ -58,9 +66,20 @@ public final class RpcResult {
 
 	RpcResult(String json, CodeException exception) {
 		this.json = exception != null ? null : json;
+		this.value = null;
 		this.exception = parseException(exception);
 	}
 
+	private RpcResult(Object value, String sn) {
+		this.value = value;
+		this.exception = null;
+		this.sn = sn;
+	}
+
+	static RpcResult ofValue(Object value, String sn) {
+		return new RpcResult(value, sn);
+	}
+
 	RpcResult(String json, CodeException exception, String sn) {
 		this(json, exception);
 		this.sn = sn;
@@ -81,14 +100,33 @@ public final class RpcResult {
 	}
 
 	public String json() {
+		if (json == null && value != null) {
+			json = RpcGson.toJson(value);
+		}
 		return json;
 	}
 
+	Object value() {
+		return value;
+	}
+
 	public <T> T optResult(Class<T> clz) {
-		if (this.json == null) {
+		return this.optResult((Type) clz);
+	}
+
+	/**
+	 * 本地直接调用的返回值如果是type的实例，就直接返回它。type是泛型的时候，元素类型无法校验，仍然从json解析
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T optResult(Type type) {
+		if (value != null && type instanceof Class && ((Class<?>) type).isInstance(value)) {
+			return (T) value;
+		}
+		String json = this.json();
+		if (json == null) {
 			return null;
 		}
-		return S.json().fromJson(json, clz);
+		return S.json().fromJson(json, type);
 	}
 
 	@Override
@@ -96,6 +134,7 @@ public final class RpcResult {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((exception == null) ? 0 : exception.hashCode());
+		String json = this.json();
 		result = prime * result + ((json == null) ? 0 : json.hashCode());
 		return result;
 	}
@@ -114,10 +153,11 @@ public final class RpcResult {
 				return false;
 		} else if (!exception.equals(other.exception))
 			return false;
+		String json = this.json();
 		if (json == null) {
-			if (other.json != null)
+			if (other.json() != null)
 				return false;
-		} else if (!json.equals(other.json))
+		} else if (!json.equals(other.json()))
 			return false;
 		return true;
 	}
@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.client;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.BaseStream;
+
+import org.apache.mina.core.session.IoSession;
+import org.yx.common.Host;
+import org.yx.conf.AppInfo;
+import org.yx.rpc.client.route.RpcRoutes;
+import org.yx.rpc.codec.Protocols;
+import org.yx.rpc.codec.StreamCredit;
+import org.yx.util.S;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * 客户端接收流式响应。分片可能乱序到达，这里按序号重新排好。<BR>
+ * 请求里带上sumk.rpc.stream.client.buffer个分片的初始额度，每读走一半就通过StreamCredit帧补给服务端，
+ * 积压的分片不会超过这个数。服务端不支持额度控制的时候，由服务端按连接的发送队列控制
+ */
+final class RpcStream {
+
+	private static final ConcurrentMap<Long, RpcStream> STREAMS = new ConcurrentHashMap<>();
+
+	private final long seq;
+
+	/**
+	 * 收到分片之后，超时时间重新从这一刻开始算
+	 */
+	private volatile long idle;
+
+	/**
+	 * 以下字段都由this保护
+	 */
+	private final ArrayDeque<String> ready = new ArrayDeque<>();
+	private final Map<Integer, String> early = new HashMap<>();
+	private int next = 1;
+	private int total = -1;
+	private RpcResult result;
+	private boolean resultTaken;
+	private IoSession session;
+	private int window;
+	private int consumed;
+
+	private RpcStream(long seq) {
+		this.seq = seq;
+	}
+
+	static RpcStream open(long seq) {
+		RpcStream s = new RpcStream(seq);
+		STREAMS.put(seq, s);
+		return s;
+	}
+
+	static void onChunk(IoSession session, long seq, int index, String json) {
+		RpcStream s = STREAMS.get(seq);
+		if (s != null) {
+			s.add(session, index, json);
+		}
+	}
+
+	static void onEnd(long seq, int chunks) {
+		RpcStream s = STREAMS.get(seq);
+		if (s != null) {
+			s.expect(chunks);
+		}
+	}
+
+	private static int bufferSize() {
+		return AppInfo.getInt("sumk.rpc.stream.client.buffer", 64);
+	}
+
+	/**
+	 * 发送前调用，对方支持额度控制的时候才在请求里带上初始额度
+	 */
+	synchronized void bind(Req req, Host url) {
+		int w = Protocols.hasFeature(RpcRoutes.protocols(url), Protocols.CREDIT) ? bufferSize() : 0;
+		req.setStreamWindow(w);
+		this.window = req.streamWindow();
+		this.consumed = 0;
+	}
+
+	void idle(long idle) {
+		this.idle = idle;
+	}
+
+	long idle() {
+		return this.idle;
+	}
+
+	private synchronized void add(IoSession session, int index, String json) {
+		if (this.result != null && this.result.exception() != null) {
+			return;
+		}
+		this.session = session;
+		if (index != next) {
+			early.put(index, json);
+		} else {
+			ready.add(json);
+			next++;
+			String s;
+			while ((s = early.remove(next)) != null) {
+				ready.add(s);
+				next++;
+			}
+		}
+		this.notifyAll();
+	}
+
+	private synchronized void expect(int chunks) {
+		this.total = chunks;
+		this.notifyAll();
+	}
+
+	/**
+	 * 在RpcLocker.wakeup中调用，不管是正常结束、异常还是超时
+	 */
+	synchronized void finish(RpcResult result) {
+		this.result = result;
+		if (result.exception() != null || total < 0) {
+			this.total = next - 1;
+			this.early.clear();
+		}
+		this.checkComplete();
+		this.notifyAll();
+	}
+
+	private void checkComplete() {
+		if (result != null && next > total) {
+			STREAMS.remove(seq, this);
+		}
+	}
+
+	/**
+	 * 读走的分片攒够半个窗口，就把额度还给服务端
+	 */
+	private void consumed() {
+		if (window <= 0 || ++consumed < Math.max(window / 2, 1)) {
+			return;
+		}
+		IoSession s = this.session;
+		if (result == null && s != null && s.isConnected()) {
+			s.write(new StreamCredit(LockHolder.toSn(seq), consumed));
+		}
+		consumed = 0;
+	}
+
+	/**
+	 * @return 下一段数据，是json数组或者RpcResult。没有了返回null
+	 */
+	private synchronized Object take() throws InterruptedException {
+		while (true) {
+			String json = ready.poll();
+			if (json != null) {
+				this.consumed();
+				return json;
+			}
+			if (result != null && next > total) {
+				this.checkComplete();
+				if (resultTaken) {
+					return null;
+				}
+				resultTaken = true;
+				return result;
+			}
+			this.wait(1000);
+		}
+	}
+
+	<T> Iterator<T> iterator(Type type) {
+		return new ChunkIterator<>(this, type);
+	}
+
+	/**
+	 * 非流式的结果也可以当成流来读，比如本地调用或者服务端返回的是普通列表
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Iterator<T> iterate(RpcResult result, Type type) {
+		result.throwIfException();
+		Object value = result.value();
+		if (value != null) {
+			if (value instanceof Iterator) {
+				return (Iterator<T>) value;
+			}
+			if (value instanceof Iterable) {
+				return ((Iterable<T>) value).iterator();
+			}
+			if (value instanceof BaseStream) {
+				return ((BaseStream<T, ?>) value).iterator();
+			}
+			if (value.getClass().isArray()) {
+				int len = Array.getLength(value);
+				Object[] objs = new Object[len];
+				for (int i = 0; i < len; i++) {
+					objs[i] = Array.get(value, i);
+				}
+				return (Iterator<T>) Arrays.asList(objs).iterator();
+			}
+			return Collections.singletonList((T) value).iterator();
+		}
+		return parse(result.json(), type);
+	}
+
+	private static <T> Iterator<T> parse(String json, Type type) {
+		if (json == null) {
+			return Collections.emptyIterator();
+		}
+		String s = json.trim();
+		if (s.isEmpty() || "null".equals(s)) {
+			return Collections.emptyIterator();
+		}
+		if (s.charAt(0) != '[') {
+			T t = S.json().fromJson(s, type);
+			return Collections.singletonList(t).iterator();
+		}
+		List<T> list = S.json().fromJson(s, TypeToken.getParameterized(List.class, type).getType());
+		return list == null ? Collections.emptyIterator() : list.iterator();
+	}
+
+	private static final class ChunkIterator<T> implements Iterator<T> {
+		private final RpcStream stream;
+		private final Type type;
+		private Iterator<T> current;
+		private boolean end;
+
+		ChunkIterator(RpcStream stream, Type type) {
+			this.stream = stream;
+			this.type = type;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (current == null || !current.hasNext()) {
+				if (end) {
+					return false;
+				}
+				Object obj;
+				try {
+					obj = stream.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("interrupted while reading rpc stream", e);
+				}
+				if (obj == null) {
+					end = true;
+					return false;
+				}
+				if (obj instanceof RpcResult) {
+					end = true;
+					current = iterate((RpcResult) obj, type);
+				} else {
+					current = parse((String) obj, type);
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return current.next();
+		}
+	}
+}
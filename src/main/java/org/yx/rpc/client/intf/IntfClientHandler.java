@@ -17,17 +17,19 @@ package org.yx.rpc.client.intf;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.yx.annotation.rpc.SoaClient;
 import org.yx.common.JsonTypes;
 import org.yx.rpc.client.Client;
 import org.yx.rpc.client.Rpc;
+import org.yx.rpc.client.RpcResult;
 import org.yx.util.ExceptionUtil;
-import org.yx.util.S;
 
 public class IntfClientHandler implements InvocationHandler {
 
@@ -72,15 +74,36 @@ public class IntfClientHandler implements InvocationHandler {
 		if (timeout > 0) {
 			client.timeout(timeout);
 		}
-		String json = client.execute().getOrException();
-		if (json == null || method.getReturnType() == Void.TYPE) {
+		if (sc != null && sc.hedge()) {
+			client.hedge(true);
+		}
+		Class<?> returnType = method.getReturnType();
+		if (returnType != Object.class && returnType.isAssignableFrom(CompletableFuture.class)) {
+			return client.execute().toCompletableFuture(futureType(method));
+		}
+		RpcResult result = client.execute().awaitForRpcResult();
+		result.throwIfException();
+		if (method.getReturnType() == Void.TYPE) {
 			return null;
 		}
 		String gen = method.getGenericReturnType().getTypeName();
 		Type type = JsonTypes.get(gen);
 		if (type == null) {
-			return S.json().fromJson(json, method.getReturnType());
+			return result.optResult(method.getReturnType());
+		}
+		return result.optResult(type);
+	}
+
+	/**
+	 * 返回值是CompletableFuture、CompletionStage或Future的时候，解析泛型里的类型
+	 */
+	protected Type futureType(Method method) {
+		Type ret = method.getGenericReturnType();
+		if (!(ret instanceof ParameterizedType)) {
+			return String.class;
 		}
-		return S.json().fromJson(json, type);
+		Type type = ((ParameterizedType) ret).getActualTypeArguments()[0];
+		Type registed = JsonTypes.get(type.getTypeName());
+		return registed != null ? registed : type;
 	}
 }
@@ -15,22 +15,40 @@
  */
 package org.yx.rpc.client.route;
 
-import java.net.Socket;
-import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.session.IoSession;
 import org.yx.common.Host;
 import org.yx.conf.AppInfo;
+import org.yx.exception.CodeException;
 import org.yx.log.Logs;
 import org.yx.main.SumkThreadPool;
+import org.yx.rpc.RpcErrorCode;
+import org.yx.rpc.client.ReqSession;
+import org.yx.rpc.codec.Ping;
+import org.yx.rpc.codec.Protocols;
 
+/**
+ * 节点的健康检查。<BR>
+ * 连接失败、连续出错、超时比例过高或者同一个接口的耗时明显高于其它节点的，会被摘除一段时间，多次摘除的时间按指数增长。
+ * 摘除到期后异步探活，对方支持PING帧的就用PING，否则只检查能否连上。恢复的节点有一段预热期，权重逐渐增加
+ */
 public class HostChecker {
 
 	private static final HostChecker holder = new HostChecker();
 
+	private static final String PROBE_HOST = "sumk.rpc.probe.host";
+
 	private HostChecker() {
 		SumkThreadPool.scheduledExecutor().scheduleWithFixedDelay(new Checker(), 5,
 				AppInfo.getInt("sumk.rpc.hosts.check.period", 3), TimeUnit.SECONDS);
@@ -40,7 +58,14 @@ public class HostChecker {
 		return holder;
 	}
 
-	private ConcurrentHashMap<Host, Long> downUrls = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Host, Ejection> downUrls = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Host, HostStat> stats = new ConcurrentHashMap<>();
+
+	/**
+	 * 处于预热期的节点，value是恢复的时间
+	 */
+	private final ConcurrentHashMap<Host, Long> warmUps = new ConcurrentHashMap<>();
 
 	public boolean isDowned(Host url) {
 		return downUrls.containsKey(url);
@@ -57,47 +82,321 @@ public class HostChecker {
 		return avas;
 	}
 
+	/**
+	 * 连接或者写入失败，立即摘除
+	 */
 	public void addDownUrl(Host url) {
-		downUrls.putIfAbsent(url, System.currentTimeMillis());
-		Logs.rpc().info("{} is down", url);
+		this.eject(url, "connect failed", false);
 	}
 
-	private class Checker implements Runnable {
+	/**
+	 * 记录一次请求的结果，用于被动的异常检测
+	 * 
+	 * @param url
+	 *            请求发往的节点
+	 * @param api
+	 *            请求的接口名，耗时只在同一个接口的节点之间比较
+	 * @param e
+	 *            请求的异常，成功的时候为null
+	 * @param costMs
+	 *            请求的耗时
+	 */
+	public void record(Host url, String api, CodeException e, long costMs) {
+		if (url == null) {
+			return;
+		}
+		int code = e == null ? 0 : e.getCode();
+		if (code == RpcErrorCode.CANCELLED) {
+			return;
+		}
+		HostStat stat = stats.computeIfAbsent(url, k -> new HostStat());
+		if (!isHostError(code)) {
+			stat.success(api, costMs);
+			return;
+		}
+		int errors = stat.fail(api, code == RpcErrorCode.TIMEOUT, costMs);
+		if (errors >= AppInfo.getInt("sumk.rpc.outlier.errors", 5)) {
+			this.eject(url, errors + " consecutive errors", true);
+		}
+	}
+
+	/**
+	 * 业务异常说明节点是正常的，只有这些错误才算节点的问题
+	 */
+	private static boolean isHostError(int code) {
+		return code == RpcErrorCode.TIMEOUT || code == RpcErrorCode.SEND_FAILED
+				|| code == RpcErrorCode.SERVER_UNKNOW;
+	}
+
+	/**
+	 * @return 预热期内按恢复时间的比例降低权重，最低是十分之一
+	 */
+	public int warmUpWeight(Host url, int weight) {
+		if (warmUps.isEmpty()) {
+			return weight;
+		}
+		Long begin = warmUps.get(url);
+		if (begin == null) {
+			return weight;
+		}
+		long warm = AppInfo.getLong("sumk.rpc.warmup", 30000);
+		long elapsed = System.currentTimeMillis() - begin;
+		if (elapsed >= warm) {
+			warmUps.remove(url, begin);
+			return weight;
+		}
+		return Math.max(1, (int) (weight * Math.max(elapsed, warm / 10) / warm));
+	}
+
+	/**
+	 * @param passive
+	 *            被动检测出来的异常，受sumk.rpc.outlier.max.percent的限制，防止把节点都摘光
+	 */
+	private void eject(Host url, String reason, boolean passive) {
+		if (downUrls.containsKey(url)) {
+			return;
+		}
+		if (passive) {
+			int known = Math.max(RpcRoutes.hostSize(), 1);
+			if ((downUrls.size() + 1) * 100 > known * AppInfo.getInt("sumk.rpc.outlier.max.percent", 50)) {
+				Logs.rpc().debug("{} not ejected,because too many hosts are down. {}", url, reason);
+				return;
+			}
+		}
+		HostStat stat = stats.computeIfAbsent(url, k -> new HostStat());
+		long max = AppInfo.getLong("sumk.rpc.outlier.eject.max", 300_000);
+		long now = System.currentTimeMillis();
+		if (now - stat.lastEjected > max * 2) {
+			stat.ejections.set(0);
+		}
+		stat.lastEjected = now;
+		int times = Math.min(stat.ejections.incrementAndGet(), 20);
+		long base = AppInfo.getLong("sumk.rpc.outlier.eject.base", 3000);
+		long period = Math.min(base << (times - 1), max);
+		if (downUrls.putIfAbsent(url, new Ejection(period)) == null) {
+			warmUps.remove(url);
+			Logs.rpc().info("{} is down,{}. ejected for {}ms", url, reason, period);
+		}
+	}
 
-		private int getTimeOut(int urlSize) {
-			if (urlSize == 1) {
-				return AppInfo.getInt("sumk.rpc.socket.connecttimeout.1", 3000);
-			} else if (urlSize == 2) {
-				return AppInfo.getInt("sumk.rpc.socket.connecttimeout.2", 2500);
-			} else if (urlSize > 5) {
-				return AppInfo.getInt("sumk.rpc.socket.connecttimeout.5", 1000);
+	private void recover(Host url, Ejection e, String how) {
+		if (!downUrls.remove(url, e)) {
+			return;
+		}
+		HostStat stat = stats.get(url);
+		if (stat != null) {
+			stat.reset();
+		}
+		warmUps.put(url, System.currentTimeMillis());
+		Logs.rpc().info("{} recovered by {}", url, how);
+	}
+
+	/**
+	 * 探活连接收到了PONG
+	 */
+	public void onPong(IoSession session, Ping pong) {
+		Object url = session.getAttribute(PROBE_HOST);
+		session.closeNow();
+		if (url == null) {
+			return;
+		}
+		Ejection e = downUrls.get(url);
+		if (e != null) {
+			this.recover((Host) url, e, "ping in " + (System.currentTimeMillis() - pong.time()) + "ms");
+		}
+	}
+
+	/**
+	 * 异步探活，连接建立和等待PONG都不会阻塞检查线程
+	 */
+	private void probe(Host url, Ejection e) {
+		ConnectFuture cf;
+		try {
+			cf = ReqSession.getConnectorSupplier().get().connect(url.toInetSocketAddress());
+		} catch (Exception ex) {
+			Logs.rpc().error(url + " probe failed," + ex.getMessage(), ex);
+			e.probeFailed();
+			return;
+		}
+		cf.addListener(f -> {
+			if (!cf.isConnected()) {
+				e.probeFailed();
+				return;
+			}
+			IoSession session = cf.getSession();
+			if (!Protocols.hasFeature(RpcRoutes.protocols(url), Protocols.PING)) {
+				session.closeNow();
+				this.recover(url, e, "connect");
+				return;
 			}
-			return AppInfo.getInt("sumk.rpc.socket.connecttimeout.3", 2000);
+			session.setAttribute(PROBE_HOST, url);
+			session.write(Ping.ping());
+			SumkThreadPool.scheduledExecutor().schedule(() -> {
+				session.closeNow();
+				if (downUrls.get(url) == e) {
+					e.probeFailed();
+				}
+			}, AppInfo.getLong("sumk.rpc.ping.timeout", 2000), TimeUnit.MILLISECONDS);
+		});
+	}
+
+	private static final class Ejection {
+		private final long period;
+		private volatile long until;
+		private final AtomicBoolean probing = new AtomicBoolean();
+
+		Ejection(long period) {
+			this.period = period;
+			this.until = System.currentTimeMillis() + period;
 		}
 
+		/**
+		 * 探活失败，再等一个周期
+		 */
+		void probeFailed() {
+			this.until = System.currentTimeMillis() + period;
+			this.probing.set(false);
+		}
+	}
+
+	private static final class ApiCost {
+		final AtomicInteger requests = new AtomicInteger();
+		final AtomicLong costs = new AtomicLong();
+	}
+
+	private static final class HostStat {
+		final AtomicInteger consecutiveErrors = new AtomicInteger();
+		final AtomicInteger ejections = new AtomicInteger();
+		final AtomicInteger requests = new AtomicInteger();
+		final AtomicInteger timeouts = new AtomicInteger();
+
+		/**
+		 * 按接口统计的耗时，不同接口的耗时本来就不一样，不能混在一起比较
+		 */
+		final ConcurrentHashMap<String, ApiCost> apiCosts = new ConcurrentHashMap<>();
+		volatile long lastActive = System.currentTimeMillis();
+
+		/**
+		 * 长时间没有被摘除过，摘除次数就清零
+		 */
+		volatile long lastEjected;
+
+		void success(String api, long costMs) {
+			consecutiveErrors.set(0);
+			requests.incrementAndGet();
+			cost(api, costMs);
+			lastActive = System.currentTimeMillis();
+		}
+
+		int fail(String api, boolean timeout, long costMs) {
+			requests.incrementAndGet();
+			cost(api, costMs);
+			if (timeout) {
+				timeouts.incrementAndGet();
+			}
+			lastActive = System.currentTimeMillis();
+			return consecutiveErrors.incrementAndGet();
+		}
+
+		private void cost(String api, long costMs) {
+			if (api == null) {
+				return;
+			}
+			ApiCost c = apiCosts.computeIfAbsent(api, k -> new ApiCost());
+			c.requests.incrementAndGet();
+			c.costs.addAndGet(costMs);
+		}
+
+		void reset() {
+			consecutiveErrors.set(0);
+			requests.set(0);
+			timeouts.set(0);
+			apiCosts.clear();
+		}
+	}
+
+	private class Checker implements Runnable {
+
 		@Override
 		public void run() {
-			if (downUrls.isEmpty()) {
-				return;
+			try {
+				this.detectOutliers();
+				this.probeEjected();
+			} catch (Throwable e) {
+				Logs.rpc().error("host check failed," + e.getMessage(), e);
 			}
-			Host[] urls = downUrls.keySet().toArray(new Host[0]);
-			int timeout = getTimeOut(urls.length);
-			for (Host url : urls) {
-				try (Socket socket = new Socket()) {
-
-					socket.connect(url.toInetSocketAddress(), timeout);
-					if (socket.isConnected()) {
-						downUrls.remove(url);
-						Logs.rpc().info("{} reconected", url);
-					}
-				} catch (UnknownHostException e) {
-					Logs.rpc().error(e.getMessage(), e);
-				} catch (Exception e) {
+		}
+
+		private void probeEjected() {
+			long now = System.currentTimeMillis();
+			for (Map.Entry<Host, Ejection> en : downUrls.entrySet()) {
+				Ejection e = en.getValue();
+				if (e.until <= now && e.probing.compareAndSet(false, true)) {
+					probe(en.getKey(), e);
 				}
 			}
+		}
 
+		/**
+		 * 统计上一个周期内每个节点的超时比例，以及每个接口在各节点上的平均耗时。
+		 * 超时比例按节点判断，耗时只跟提供同一个接口的其它节点比较
+		 */
+		private void detectOutliers() {
+			int minRequests = AppInfo.getInt("sumk.rpc.outlier.requests", 20);
+			double timeoutRatio = AppInfo.getInt("sumk.rpc.outlier.timeout.percent", 50) / 100d;
+			long now = System.currentTimeMillis();
+			Map<String, List<Host>> apiHosts = new HashMap<>();
+			Map<String, List<Long>> apiAvgs = new HashMap<>();
+			for (Map.Entry<Host, HostStat> en : stats.entrySet()) {
+				HostStat s = en.getValue();
+				int requests = s.requests.getAndSet(0);
+				int timeouts = s.timeouts.getAndSet(0);
+				boolean compare = requests >= minRequests && timeouts <= requests * timeoutRatio;
+				for (Map.Entry<String, ApiCost> ac : s.apiCosts.entrySet()) {
+					int apiRequests = ac.getValue().requests.getAndSet(0);
+					long costs = ac.getValue().costs.getAndSet(0);
+					if (apiRequests == 0) {
+						s.apiCosts.remove(ac.getKey(), ac.getValue());
+						continue;
+					}
+					if (compare && apiRequests >= minRequests) {
+						apiHosts.computeIfAbsent(ac.getKey(), k -> new ArrayList<>()).add(en.getKey());
+						apiAvgs.computeIfAbsent(ac.getKey(), k -> new ArrayList<>()).add(costs / apiRequests);
+					}
+				}
+				if (requests == 0) {
+					if (now - s.lastActive > 600_000 && !downUrls.containsKey(en.getKey())) {
+						stats.remove(en.getKey(), s);
+					}
+					continue;
+				}
+				if (requests >= minRequests && timeouts > requests * timeoutRatio) {
+					eject(en.getKey(), "timeout " + timeouts + "/" + requests, true);
+				}
+			}
+			for (Map.Entry<String, List<Host>> en : apiHosts.entrySet()) {
+				this.detectLatency(en.getKey(), en.getValue(), apiAvgs.get(en.getKey()));
+			}
 		}
 
+		private void detectLatency(String api, List<Host> hosts, List<Long> avgs) {
+			if (hosts.size() < 3) {
+				return;
+			}
+			long[] sorted = new long[avgs.size()];
+			for (int i = 0; i < sorted.length; i++) {
+				sorted[i] = avgs.get(i);
+			}
+			Arrays.sort(sorted);
+			long median = sorted[sorted.length / 2];
+			long limit = Math.max(median * AppInfo.getInt("sumk.rpc.outlier.latency.factor", 3),
+					AppInfo.getLong("sumk.rpc.outlier.latency.min", 100));
+			for (int i = 0; i < hosts.size(); i++) {
+				if (avgs.get(i) > limit) {
+					eject(hosts.get(i), api + " latency " + avgs.get(i) + "ms,median is " + median + "ms", true);
+				}
+			}
+		}
 	}
 
 }
@@ -23,11 +23,16 @@ import org.yx.common.Host;
 import org.yx.common.route.Router;
 import org.yx.common.route.Routes;
 import org.yx.common.route.WeightedServer;
+import org.yx.conf.AppInfo;
 
 public final class RouteHolder {
 
+	/**
+	 * 默认按sumk.rpc.router.{api}选择路由策略，没有配置的时候使用sumk.rpc.router，默认是加权轮询
+	 */
 	private static BiFunction<String, Collection<WeightedServer<Host>>, Router<Host>> routerFactory = (api,
-			servers) -> Routes.createWeightedRouter(servers);
+			servers) -> Routes.create(AppInfo.get("sumk.rpc.router." + api, AppInfo.get("sumk.rpc.router", null)),
+					servers);
 
 	public static void set(BiFunction<String, Collection<WeightedServer<Host>>, Router<Host>> factory) {
 		RouteHolder.routerFactory = Objects.requireNonNull(factory);
@@ -18,32 +18,42 @@ package org.yx.rpc.client.route;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.yx.common.Host;
 import org.yx.common.route.Router;
 import org.yx.common.route.WeightedServer;
 import org.yx.log.Log;
+import org.yx.rpc.data.IntfInfo;
 import org.yx.rpc.data.RouteInfo;
 
+/**
+ * 客户端的路由表。每个接口的Router和节点集合都是不可变的，修改的时候整体替换，读取不需要加锁
+ */
 public final class RpcRoutes {
-	private final Map<String, Router<Host>> rpcRoutes;
-	private final List<RouteInfo> zkDatas;
+	private final Map<Host, RouteInfo> zkDatas = new ConcurrentHashMap<>();
+	private final Map<String, Router<Host>> rpcRoutes = new ConcurrentHashMap<>();
+	private final Map<String, Set<Host>> apiHosts = new ConcurrentHashMap<>();
 
-	private RpcRoutes(List<RouteInfo> zkDatas, Map<String, Router<Host>> routes) {
-		this.zkDatas = Objects.requireNonNull(zkDatas);
-		this.rpcRoutes = Objects.requireNonNull(routes);
+	private RpcRoutes() {
 	}
 
-	private static volatile RpcRoutes ROUTE = new RpcRoutes(Collections.emptyList(), Collections.emptyMap());
+	private static volatile RpcRoutes ROUTE = new RpcRoutes();
 
 	public static List<RouteInfo> currentDatas() {
-		return Collections.unmodifiableList(ROUTE.zkDatas);
+		return Collections.unmodifiableList(new ArrayList<>(ROUTE.zkDatas.values()));
+	}
+
+	/**
+	 * @return 服务端支持的协议，找不到的时候返回0
+	 */
+	public static int protocols(Host host) {
+		RouteInfo info = ROUTE.zkDatas.get(host);
+		return info == null ? 0 : info.protocols();
 	}
 
 	public static Router<Host> getRoute(String api) {
@@ -54,53 +64,141 @@ public final class RpcRoutes {
 		return ROUTE.rpcRoutes.size();
 	}
 
-	private static void _refresh(Collection<RouteInfo> rawData, Map<String, Router<Host>> route) {
-		List<RouteInfo> data = new ArrayList<>(rawData);
-		RpcRoutes r = new RpcRoutes(data, route);
+	/**
+	 * @return 注册中心上的节点数，不需要像currentDatas()那样复制一份
+	 */
+	public static int hostSize() {
+		return ROUTE.zkDatas.size();
+	}
+
+	/**
+	 * 全量重建路由表
+	 */
+	public static synchronized void refresh(Collection<RouteInfo> datas) {
+		RpcRoutes r = new RpcRoutes();
+		for (RouteInfo info : datas) {
+			r.zkDatas.put(info.host(), info);
+			for (IntfInfo intf : info.intfs()) {
+				r.apiHosts.computeIfAbsent(intf.getName(), k -> new HashSet<>()).add(info.host());
+			}
+		}
+		for (String api : r.apiHosts.keySet()) {
+			r.rebuild(api);
+		}
 		RpcRoutes.ROUTE = r;
 		if (Log.get("sumk.rpc.client").isTraceEnabled()) {
 			StringBuilder sb = new StringBuilder("微服务源:");
-			for (RouteInfo d : data) {
-				sb.append("  ").append(d.host());
+			for (Host h : r.zkDatas.keySet()) {
+				sb.append("  ").append(h);
 			}
 			Log.get("sumk.rpc.client").trace(sb.toString());
 		}
 	}
 
-	public static synchronized void refresh(Collection<RouteInfo> datas) {
-		Map<String, Set<WeightedServer<Host>>> map = new HashMap<>();
-		for (RouteInfo r : datas) {
-			Map<String, WeightedServer<Host>> ms = createServerMachine(r);
-			ms.forEach((m, serverMachine) -> {
-				Set<WeightedServer<Host>> server = map.get(m);
-				if (server == null) {
-					server = new HashSet<>();
-					map.put(m, server);
-				}
-				server.add(serverMachine);
-			});
+	/**
+	 * 增量更新，只重建节点列表或者权重有变化的接口
+	 * 
+	 * @param changed
+	 *            新增或者修改过的节点
+	 * @param removed
+	 *            下线的节点
+	 */
+	public static synchronized void update(Collection<RouteInfo> changed, Collection<Host> removed) {
+		RpcRoutes r = ROUTE;
+		Set<String> affected = new HashSet<>();
+		for (Host host : removed) {
+			RouteInfo old = r.zkDatas.remove(host);
+			if (old == null) {
+				continue;
+			}
+			for (String api : apis(old)) {
+				r.removeHost(api, host);
+				affected.add(api);
+			}
 		}
-		Map<String, Router<Host>> routes = new HashMap<>();
-		map.forEach((method, servers) -> {
-			if (servers == null || servers.isEmpty()) {
-				return;
+		for (RouteInfo info : changed) {
+			Host host = info.host();
+			RouteInfo old = r.zkDatas.put(host, info);
+			Set<String> oldApis = apis(old);
+			Set<String> newApis = apis(info);
+			boolean weightChanged = old != null && weight(old) != weight(info);
+			for (String api : oldApis) {
+				if (!newApis.contains(api)) {
+					r.removeHost(api, host);
+					affected.add(api);
+				}
 			}
-			Router<Host> route = RouteHolder.createRouter(method, servers);
-			if (route != null) {
-				routes.put(method, route);
+			for (String api : newApis) {
+				if (!oldApis.contains(api)) {
+					r.addHost(api, host);
+					affected.add(api);
+				} else if (weightChanged) {
+					affected.add(api);
+				}
 			}
-		});
-		_refresh(datas, routes);
+		}
+		for (String api : affected) {
+			r.rebuild(api);
+		}
+		Log.get("sumk.rpc.client").debug("{} hosts changed, {} hosts removed, {} routes rebuilt", changed.size(),
+				removed.size(), affected.size());
+	}
+
+	private static Set<String> apis(RouteInfo info) {
+		if (info == null) {
+			return Collections.emptySet();
+		}
+		Set<String> apis = new HashSet<>();
+		for (IntfInfo intf : info.intfs()) {
+			apis.add(intf.getName());
+		}
+		return apis;
+	}
+
+	private static int weight(RouteInfo info) {
+		return info.weight() > 0 ? info.weight() : 100;
+	}
+
+	private void addHost(String api, Host host) {
+		Set<Host> old = apiHosts.get(api);
+		Set<Host> hosts = old == null ? new HashSet<>() : new HashSet<>(old);
+		hosts.add(host);
+		apiHosts.put(api, hosts);
 	}
 
-	private static Map<String, WeightedServer<Host>> createServerMachine(RouteInfo data) {
-		Map<String, WeightedServer<Host>> servers = new HashMap<>();
-		int weight = data.weight() > 0 ? data.weight() : 100;
-		data.intfs().forEach(intf -> {
-			WeightedServer<Host> server = new WeightedHost(data.host(), weight);
-			servers.put(intf.getName(), server);
-		});
-		return servers;
+	private void removeHost(String api, Host host) {
+		Set<Host> old = apiHosts.get(api);
+		if (old == null || !old.contains(host)) {
+			return;
+		}
+		Set<Host> hosts = new HashSet<>(old);
+		hosts.remove(host);
+		if (hosts.isEmpty()) {
+			apiHosts.remove(api);
+		} else {
+			apiHosts.put(api, hosts);
+		}
+	}
+
+	private void rebuild(String api) {
+		Set<Host> hosts = apiHosts.get(api);
+		if (hosts == null || hosts.isEmpty()) {
+			rpcRoutes.remove(api);
+			return;
+		}
+		List<WeightedServer<Host>> servers = new ArrayList<>(hosts.size());
+		for (Host h : hosts) {
+			RouteInfo info = zkDatas.get(h);
+			if (info != null) {
+				servers.add(new WeightedHost(h, weight(info)));
+			}
+		}
+		Router<Host> route = servers.isEmpty() ? null : RouteHolder.createRouter(api, servers);
+		if (route == null) {
+			rpcRoutes.remove(api);
+		} else {
+			rpcRoutes.put(api, route);
+		}
 	}
 
 }
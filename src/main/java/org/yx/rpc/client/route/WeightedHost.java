@@ -30,4 +30,17 @@ public class WeightedHost extends AbstractWeightedServer<Host> {
 		return !HostChecker.get().isDowned(this.source);
 	}
 
+	/**
+	 * 刚恢复的节点处于预热期，权重从小逐渐增加到配置的值
+	 */
+	@Override
+	public int getWeight() {
+		return HostChecker.get().warmUpWeight(this.source, super.getWeight());
+	}
+
+	@Override
+	public boolean dynamicWeight() {
+		return true;
+	}
+
 }
@@ -20,13 +20,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
 import org.I0Itec.zkclient.IZkChildListener;
@@ -52,9 +53,13 @@ public final class ZkRouteParser {
 	private final Predicate<String> excludes;
 	private final String SOA_ROOT = AppInfo.get("sumk.rpc.zk.route", "sumk.rpc.client.zk.route", ZKConst.SUMK_SOA_ROOT);
 	private Logger logger = Log.get("sumk.rpc.client");
-	private final ThreadPoolExecutor executor;
 	private final BlockingQueue<RouteEvent> queue = new LinkedBlockingQueue<>();
 
+	/**
+	 * 已经安排了合并处理。一段时间内的事件会被合并成一次增量更新
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
 	private ZkRouteParser(String zkUrl) {
 		this.zkUrl = zkUrl;
 		String temp = AppInfo.getLatin("sumk.rpc.server.includes");
@@ -62,9 +67,6 @@ public final class ZkRouteParser {
 
 		temp = AppInfo.getLatin("sumk.rpc.server.excludes");
 		excludes = StringUtil.isEmpty(temp) ? null : Matchers.createWildcardMatcher(temp, 1);
-		executor = new ThreadPoolExecutor(1, 1, 5000L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(10000),
-				SumkThreadPool.createThreadFactory("rpc-client-"), new ThreadPoolExecutor.DiscardPolicy());
-		executor.allowCoreThreadTimeOut(true);
 	}
 
 	public static ZkRouteParser get(String zkUrl) {
@@ -200,28 +202,46 @@ public final class ZkRouteParser {
 			return;
 		}
 		queue.offer(event);
-		this.executor.execute(() -> {
-			if (queue.isEmpty()) {
+		if (scheduled.compareAndSet(false, true)) {
+			long debounce = AppInfo.getLong("sumk.rpc.route.debounce", 100);
+			SumkThreadPool.scheduledExecutor().schedule(this::flush, debounce, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * 合并这段时间内的事件，同一个节点只保留最后一个，然后增量更新路由
+	 */
+	private synchronized void flush() {
+		scheduled.set(false);
+		List<RouteEvent> list = new ArrayList<>();
+		queue.drainTo(list);
+		if (list.isEmpty()) {
+			return;
+		}
+		try {
+			Map<Host, RouteInfo> data = new LinkedHashMap<>();
+			if (handleData(data, list) == 0) {
 				return;
 			}
-			synchronized (ZkRouteParser.this) {
-				List<RouteEvent> list = new ArrayList<>();
-				queue.drainTo(list);
-				if (list.isEmpty()) {
-					return;
-				}
-				List<RouteInfo> data = RpcRoutes.currentDatas();
-				Map<Host, RouteInfo> map = new HashMap<>();
-				for (RouteInfo r : data) {
-					map.put(r.host(), r);
+			List<RouteInfo> changed = new ArrayList<>();
+			List<Host> removed = new ArrayList<>();
+			data.forEach((host, info) -> {
+				if (info == null) {
+					removed.add(host);
+				} else {
+					changed.add(info);
 				}
-				if (handleData(map, list) > 0) {
-					RpcRoutes.refresh(map.values());
-				}
-			}
-		});
+			});
+			RpcRoutes.update(changed, removed);
+		} catch (Exception e) {
+			logger.error("rpc route update failed," + e.getMessage(), e);
+		}
 	}
 
+	/**
+	 * @param data
+	 *            key是节点，value为null表示节点被删除
+	 */
 	private int handleData(Map<Host, RouteInfo> data, List<RouteEvent> list) {
 		int count = 0;
 		for (RouteEvent event : list) {
@@ -241,11 +261,9 @@ public final class ZkRouteParser {
 				count++;
 				break;
 			case DELETE:
-
-				if (data.remove(event.getUrl()) != null) {
-					logger.debug("{}: {} {}", count, event.getType(), event.getUrl());
-					count++;
-				}
+				logger.debug("{}: {} {}", count, event.getType(), event.getUrl());
+				data.put(event.getUrl(), null);
+				count++;
 				break;
 			default:
 				break;
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.session.IoSession;
+import org.yx.conf.AppInfo;
+import org.yx.rpc.Profile;
+
+/**
+ * 二进制帧的读写工具。帧的格式是：4字节的协议头 + 4字节的长度 + 数据。<BR>
+ * 数据部分的整数用varint编码，字符串是varint(长度+1)加上utf-8字节，长度为0表示null。<BR>
+ * 连接的一方收到二进制帧后，这个连接上发往对方的消息也使用二进制帧
+ */
+public final class BinaryFrames {
+
+	public static final int HEADER_LENGTH = 8;
+
+	private static final String SESSION_KEY = "sumk.rpc.binary";
+
+	public static boolean enabled() {
+		return AppInfo.getBoolean("sumk.rpc.binary", true);
+	}
+
+	public static boolean isBinary(IoSession session) {
+		return session != null && session.getAttribute(SESSION_KEY) != null;
+	}
+
+	public static void markBinary(IoSession session) {
+		if (session.getAttribute(SESSION_KEY) == null) {
+			session.setAttribute(SESSION_KEY, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * @return 已经预留了帧头的缓冲区
+	 */
+	public static IoBuffer allocate(int capacity) {
+		IoBuffer buffer = IoBuffer.allocate(capacity + HEADER_LENGTH).setAutoExpand(true);
+		buffer.position(HEADER_LENGTH);
+		return buffer;
+	}
+
+	public static void putVarint(IoBuffer buffer, int v) {
+		while ((v & ~0x7F) != 0) {
+			buffer.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		buffer.put((byte) v);
+	}
+
+	public static void putVarlong(IoBuffer buffer, long v) {
+		while ((v & ~0x7FL) != 0) {
+			buffer.put((byte) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		buffer.put((byte) v);
+	}
+
+	public static int getVarint(IoBuffer buffer) {
+		int v = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer.get();
+			v |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return v;
+			}
+		}
+		throw new IllegalArgumentException("malformed varint");
+	}
+
+	public static long getVarlong(IoBuffer buffer) {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			v |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return v;
+			}
+		}
+		throw new IllegalArgumentException("malformed varlong");
+	}
+
+	public static void putString(IoBuffer buffer, String s) {
+		if (s == null) {
+			buffer.put((byte) 0);
+			return;
+		}
+		byte[] bs = s.getBytes(Profile.UTF8);
+		putVarint(buffer, bs.length + 1);
+		buffer.put(bs);
+	}
+
+	/**
+	 * 直接从缓冲区的底层数组解码，不产生中间的byte数组
+	 */
+	public static String getString(IoBuffer buffer) {
+		int len = getVarint(buffer) - 1;
+		if (len < 0) {
+			return null;
+		}
+		if (len > buffer.remaining()) {
+			throw new IllegalArgumentException("string length " + len + " exceeds " + buffer.remaining());
+		}
+		if (buffer.hasArray()) {
+			String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len, Profile.UTF8);
+			buffer.skip(len);
+			return s;
+		}
+		byte[] bs = new byte[len];
+		buffer.get(bs);
+		return new String(bs, Profile.UTF8);
+	}
+
+	/**
+	 * 分配数组或集合之前校验元素个数，防止畸形的帧导致分配超大的内存
+	 * 
+	 * @param unit
+	 *            每个元素至少占用的字节数
+	 */
+	public static void checkSize(IoBuffer buffer, int size, int unit) {
+		if (size < 0 || size > buffer.remaining() / unit) {
+			throw new IllegalArgumentException("size " + size + " exceeds " + buffer.remaining());
+		}
+	}
+
+	public static void putStringMap(IoBuffer buffer, Map<String, String> map) {
+		if (map == null) {
+			buffer.put((byte) 0);
+			return;
+		}
+		putVarint(buffer, map.size() + 1);
+		for (Map.Entry<String, String> en : map.entrySet()) {
+			putString(buffer, en.getKey());
+			putString(buffer, en.getValue());
+		}
+	}
+
+	public static Map<String, String> getStringMap(IoBuffer buffer) {
+		int size = getVarint(buffer) - 1;
+		if (size < 0) {
+			return null;
+		}
+		checkSize(buffer, size, 2);
+		Map<String, String> map = new HashMap<>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			String k = getString(buffer);
+			map.put(k, getString(buffer));
+		}
+		return map;
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.mina.core.session.IoSession;
+import org.yx.conf.AppInfo;
+
+/**
+ * 大帧的压缩，使用jdk自带的deflate。<BR>
+ * 帧头带有COMPRESS_ACCEPT表示发送方能够解压，收到这种帧之后，本连接发往对方的大帧就会被压缩。<BR>
+ * 压缩后的数据是：4字节的原始长度 + deflate数据。<BR>
+ * Deflater和Inflater占用本地内存，放在池里复用，池满了或者系统关闭的时候调用end()释放
+ */
+public final class Compressions {
+
+	private static final String SESSION_KEY = "sumk.rpc.compress";
+
+	private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<>();
+	private static final Queue<Inflater> INFLATERS = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger DEFLATER_COUNT = new AtomicInteger();
+	private static final AtomicInteger INFLATER_COUNT = new AtomicInteger();
+
+	public static boolean enabled() {
+		return AppInfo.getBoolean("sumk.rpc.compress", true);
+	}
+
+	/**
+	 * @return 数据超过这个字节数才压缩
+	 */
+	public static int threshold() {
+		return AppInfo.getInt("sumk.rpc.compress.threshold", 8192);
+	}
+
+	/**
+	 * @return 解压后允许的最大字节数，防止很小的压缩帧声明一个超大的原始长度
+	 */
+	public static int maxLength() {
+		return Math.min(AppInfo.getInt("sumk.rpc.compress.max", 64 * 1024 * 1024), Protocols.MAX_LENGTH);
+	}
+
+	private static int poolSize() {
+		return AppInfo.getInt("sumk.rpc.compress.pool", 32);
+	}
+
+	private static Deflater borrowDeflater() {
+		Deflater d = DEFLATERS.poll();
+		if (d != null) {
+			DEFLATER_COUNT.decrementAndGet();
+			return d;
+		}
+		return new Deflater(AppInfo.getInt("sumk.rpc.compress.level", Deflater.BEST_SPEED), true);
+	}
+
+	private static void release(Deflater d) {
+		if (DEFLATER_COUNT.incrementAndGet() > poolSize()) {
+			DEFLATER_COUNT.decrementAndGet();
+			d.end();
+			return;
+		}
+		d.reset();
+		DEFLATERS.offer(d);
+	}
+
+	private static Inflater borrowInflater() {
+		Inflater i = INFLATERS.poll();
+		if (i != null) {
+			INFLATER_COUNT.decrementAndGet();
+			return i;
+		}
+		return new Inflater(true);
+	}
+
+	private static void release(Inflater i) {
+		if (INFLATER_COUNT.incrementAndGet() > poolSize()) {
+			INFLATER_COUNT.decrementAndGet();
+			i.end();
+			return;
+		}
+		i.reset();
+		INFLATERS.offer(i);
+	}
+
+	/**
+	 * 释放池里所有的Deflater和Inflater，在系统关闭的时候调用
+	 */
+	public static void shutdown() {
+		Deflater d;
+		while ((d = DEFLATERS.poll()) != null) {
+			DEFLATER_COUNT.decrementAndGet();
+			d.end();
+		}
+		Inflater i;
+		while ((i = INFLATERS.poll()) != null) {
+			INFLATER_COUNT.decrementAndGet();
+			i.end();
+		}
+	}
+
+	public static boolean isAccepted(IoSession session) {
+		return session != null && session.getAttribute(SESSION_KEY) != null;
+	}
+
+	public static void markAccepted(IoSession session) {
+		if (session.getAttribute(SESSION_KEY) == null) {
+			session.setAttribute(SESSION_KEY, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * @return 是否应该压缩这么大的数据
+	 */
+	public static boolean shouldCompress(IoSession session, int size) {
+		return size > threshold() && enabled() && isAccepted(session);
+	}
+
+	/**
+	 * @return 压缩后的数据，如果压缩后没有变小，就返回null
+	 */
+	public static byte[] compress(byte[] src, int offset, int length) {
+		if (length <= 4) {
+			return null;
+		}
+		Deflater deflater = borrowDeflater();
+		byte[] dest = new byte[length];
+		int pos = 4;
+		try {
+			deflater.setInput(src, offset, length);
+			deflater.finish();
+			dest[0] = (byte) (length >>> 24);
+			dest[1] = (byte) (length >>> 16);
+			dest[2] = (byte) (length >>> 8);
+			dest[3] = (byte) length;
+			while (!deflater.finished()) {
+				if (pos >= dest.length) {
+					return null;
+				}
+				pos += deflater.deflate(dest, pos, dest.length - pos);
+			}
+		} finally {
+			release(deflater);
+		}
+		byte[] ret = new byte[pos];
+		System.arraycopy(dest, 0, ret, 0, pos);
+		return ret;
+	}
+
+	public static byte[] decompress(byte[] src) throws DataFormatException {
+		if (src.length < 4) {
+			throw new DataFormatException("compressed data too short");
+		}
+		int length = ((src[0] & 0xFF) << 24) | ((src[1] & 0xFF) << 16) | ((src[2] & 0xFF) << 8) | (src[3] & 0xFF);
+		if (length < 0 || length > maxLength()) {
+			throw new DataFormatException("error uncompressed length:" + length);
+		}
+		byte[] dest = new byte[length];
+		int pos = 0;
+		Inflater inflater = borrowInflater();
+		try {
+			inflater.setInput(src, 4, src.length - 4);
+			while (pos < length) {
+				int n = inflater.inflate(dest, pos, length - pos);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				pos += n;
+			}
+		} finally {
+			release(inflater);
+		}
+		if (pos != length) {
+			throw new DataFormatException("uncompressed length " + pos + " not equals " + length);
+		}
+		return dest;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+/**
+ * 探活用的帧，不经过序列化。客户端发出PING，服务端收到后原样返回PONG
+ */
+public final class Ping {
+
+	public static final int LENGTH = 8;
+
+	private final boolean pong;
+	private final long time;
+
+	public Ping(boolean pong, long time) {
+		this.pong = pong;
+		this.time = time;
+	}
+
+	public static Ping ping() {
+		return new Ping(false, System.currentTimeMillis());
+	}
+
+	public Ping pong() {
+		return new Ping(true, this.time);
+	}
+
+	public boolean isPong() {
+		return pong;
+	}
+
+	/**
+	 * @return 发送PING的时间，PONG帧里是原样带回来的
+	 */
+	public long time() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return (pong ? "pong:" : "ping:") + time;
+	}
+}
@@ -20,6 +20,7 @@ import org.yx.annotation.Bean;
 import org.yx.annotation.Inject;
 import org.yx.exception.SumkException;
 import org.yx.rpc.codec.decoders.SumkMinaDeserializer;
+import org.yx.rpc.server.Response;
 
 @Bean
 public class ProtocolDeserializerImpl implements ProtocolDeserializer {
@@ -32,6 +33,9 @@ public class ProtocolDeserializerImpl implements ProtocolDeserializer {
 		if (message == null) {
 			return null;
 		}
+		if (Request.class.isInstance(message) || Response.class.isInstance(message)) {
+			return message;
+		}
 		if (!ProtocolObject.class.isInstance(message)) {
 			SumkException.throwException(458223, message.getClass().getName() + " is error type");
 		}
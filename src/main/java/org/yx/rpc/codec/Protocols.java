@@ -23,6 +23,38 @@ public final class Protocols {
 
 	public static final int FORMAT_JSON = 0x010000;
 
+	/**
+	 * 二进制帧，头部字段用varint编码，参数和返回值是原始的字节段。只有双方都支持的时候才会使用
+	 */
+	public static final int FORMAT_BINARY = 0x020000;
+
+	/**
+	 * 一个二进制帧里包含多个请求，服务端拆开后各自处理，响应仍然是一个一个返回的
+	 */
+	public static final int BATCH = 0x040000;
+
+	/**
+	 * 发送方能够解压，对方可以给它发送压缩过的大帧
+	 */
+	public static final int COMPRESS_ACCEPT = 0x080000;
+
+	/**
+	 * 本帧的数据是压缩过的，见Compressions
+	 */
+	public static final int COMPRESSED = 0x100000;
+
+	/**
+	 * 探活帧，只有8个字节的时间戳，对方原样返回PONG帧，见Ping
+	 */
+	public static final int PING = 0x200000;
+
+	public static final int PONG = 0x400000;
+
+	/**
+	 * 流式响应的额度帧，客户端每消费掉一批分片就授予服务端同样数量的额度，见StreamCredit
+	 */
+	public static final int CREDIT = 0x800000;
+
 	public static final int RESPONSE_JSON = 0x1000;
 
 	public static final int REQ_PARAM_JSON = 0x0100;
@@ -30,7 +62,14 @@ public final class Protocols {
 	public static final int REQ_PARAM_ORDER = 0x0200;
 
 	public static int profile() {
-		return ONE | TWO | FOUR | FORMAT_JSON | REQ_PARAM_JSON | REQ_PARAM_ORDER | RESPONSE_JSON;
+		int v = ONE | TWO | FOUR | FORMAT_JSON | REQ_PARAM_JSON | REQ_PARAM_ORDER | RESPONSE_JSON | PING | CREDIT;
+		if (BinaryFrames.enabled()) {
+			v |= FORMAT_BINARY | BATCH;
+		}
+		if (Compressions.enabled()) {
+			v |= COMPRESS_ACCEPT;
+		}
+		return v;
 	}
 
 	public static boolean hasFeature(int protocol, int feature) {
@@ -15,6 +15,7 @@
  */
 package org.yx.rpc.codec;
 
+import org.yx.common.CalleeNode;
 import org.yx.exception.SumkException;
 import org.yx.rpc.client.Req;
 
@@ -26,6 +27,11 @@ public class Request extends Req {
 
 	private int protocol;
 
+	/**
+	 * 在I/O线程里已经拿到了许可的节点，响应写出之后由ServerHandler释放
+	 */
+	private transient CalleeNode admitted;
+
 	public int protocol() {
 		return this.protocol;
 	}
@@ -37,8 +43,37 @@ public class Request extends Req {
 		this.protocol = protocol;
 	}
 
+	/**
+	 * 本地路由的时候复制请求头，json参数不在这里复制，直接传递的参数对象会一起复制
+	 */
+	public static Request copyOf(Req req) {
+		Request r = new Request();
+		r.fullSn(req.fullSn());
+		r.setApi(req.getApi());
+		r.setUserId(req.getUserId());
+		r.setSrc(req.getSrc());
+		r.setSecret(req.getSecret());
+		r.setSign(req.getSign());
+		r.setStart(req.getStart());
+		if (req.isTest()) {
+			r.setTest(true);
+		}
+		r.setStream(req.isStream());
+		r.setAttachments(req.getAttachments());
+		r.args(req.args());
+		return r;
+	}
+
 	public long getStartInServer() {
 		return startInServer;
 	}
 
+	public CalleeNode admitted() {
+		return admitted;
+	}
+
+	public void admitted(CalleeNode node) {
+		this.admitted = node;
+	}
+
 }
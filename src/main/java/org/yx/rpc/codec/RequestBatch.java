@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+import java.util.List;
+
+/**
+ * 服务端从一个批量帧中解析出来的请求
+ */
+public final class RequestBatch {
+
+	private final List<Request> requests;
+
+	public RequestBatch(List<Request> requests) {
+		this.requests = requests;
+	}
+
+	public List<Request> getRequests() {
+		return requests;
+	}
+
+	public int size() {
+		return requests.size();
+	}
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+/**
+ * 流式响应的额度帧，不经过序列化。客户端每读走一批分片，就通过它告诉服务端可以再发多少个分片
+ */
+public final class StreamCredit {
+
+	private final String sn;
+	private final int credits;
+
+	public StreamCredit(String sn, int credits) {
+		this.sn = sn;
+		this.credits = credits;
+	}
+
+	public String sn() {
+		return sn;
+	}
+
+	public int credits() {
+		return credits;
+	}
+
+	@Override
+	public String toString() {
+		return "credit:" + sn + "+" + credits;
+	}
+}
@@ -16,6 +16,7 @@
 package org.yx.rpc.codec;
 
 import java.nio.charset.CharacterCodingException;
+import java.util.zip.DataFormatException;
 
 import org.apache.mina.core.buffer.BufferDataException;
 import org.apache.mina.core.buffer.IoBuffer;
@@ -24,13 +25,18 @@ import org.apache.mina.filter.codec.CumulativeProtocolDecoder;
 import org.apache.mina.filter.codec.ProtocolDecoderException;
 import org.apache.mina.filter.codec.ProtocolDecoderOutput;
 import org.yx.annotation.Bean;
+import org.yx.annotation.Inject;
 import org.yx.conf.AppInfo;
 import org.yx.log.Logs;
 import org.yx.rpc.Profile;
+import org.yx.rpc.codec.decoders.SumkMinaDeserializer;
 
 @Bean
 public class SumkProtocolDecoder extends CumulativeProtocolDecoder {
 
+	@Inject
+	private SumkMinaDeserializer<?>[] decoders;
+
 	protected boolean innerDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
 			throws CharacterCodingException, ProtocolDecoderException {
 		int protocol = in.getInt();
@@ -78,13 +84,75 @@ public class SumkProtocolDecoder extends CumulativeProtocolDecoder {
 		if (in.remaining() < dataSize) {
 			return false;
 		}
+		if (Protocols.hasFeature(protocol, Protocols.PING | Protocols.PONG)) {
+			if (dataSize != Ping.LENGTH) {
+				throw new ProtocolDecoderException("error ping length," + dataSize);
+			}
+			out.write(new Ping(Protocols.hasFeature(protocol, Protocols.PONG), in.getLong()));
+			return true;
+		}
+		if (Protocols.hasFeature(protocol, Protocols.CREDIT)) {
+			if (dataSize < 4) {
+				throw new ProtocolDecoderException("error credit length," + dataSize);
+			}
+			int credits = in.getInt();
+			byte[] sn = new byte[dataSize - 4];
+			in.get(sn);
+			out.write(new StreamCredit(new String(sn, Profile.UTF8), credits));
+			return true;
+		}
 
+		if (Protocols.hasFeature(protocol, Protocols.COMPRESS_ACCEPT) && Compressions.enabled()) {
+			Compressions.markAccepted(session);
+		}
+		if (Protocols.hasFeature(protocol, Protocols.COMPRESSED)) {
+			byte[] bs = new byte[dataSize];
+			in.get(bs);
+			try {
+				bs = Compressions.decompress(bs);
+			} catch (DataFormatException e) {
+				throw new ProtocolDecoderException(e);
+			}
+			if (Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY)) {
+				BinaryFrames.markBinary(session);
+				out.write(this.decodeBinary(protocol, IoBuffer.wrap(bs)));
+				return true;
+			}
+			out.write(new ProtocolObject(protocol, bs));
+			return true;
+		}
+		if (Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY)) {
+			BinaryFrames.markBinary(session);
+			int limit = in.limit();
+			int end = in.position() + dataSize;
+			in.limit(end);
+			try {
+				out.write(this.decodeBinary(protocol, in));
+			} finally {
+				in.limit(limit);
+				in.position(end);
+			}
+			return true;
+		}
 		byte[] bs = new byte[dataSize];
 		in.get(bs);
 		out.write(new ProtocolObject(protocol, bs));
 		return true;
 	}
 
+	private Object decodeBinary(int protocol, IoBuffer in) throws ProtocolDecoderException {
+		for (SumkMinaDeserializer<?> decoder : this.decoders) {
+			if (decoder.accept(protocol)) {
+				try {
+					return decoder.decode(protocol, in);
+				} catch (Exception e) {
+					throw new ProtocolDecoderException(e);
+				}
+			}
+		}
+		throw new ProtocolDecoderException("no sumk decoder:" + Integer.toHexString(protocol));
+	}
+
 	@Override
 	protected boolean doDecode(IoSession session, IoBuffer in, ProtocolDecoderOutput out)
 			throws ProtocolDecoderException, CharacterCodingException {
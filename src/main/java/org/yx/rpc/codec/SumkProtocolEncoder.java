@@ -45,6 +45,14 @@ public class SumkProtocolEncoder implements ProtocolEncoder {
 			encodeString(0, session, (String) message, out);
 			return;
 		}
+		if (Ping.class.isInstance(message)) {
+			encodePing((Ping) message, out);
+			return;
+		}
+		if (StreamCredit.class.isInstance(message)) {
+			encodeCredit((StreamCredit) message, out);
+			return;
+		}
 		Class<?> clz = message.getClass();
 		for (SumkMinaEncoder encoder : this.encoders) {
 			if (encoder.accept(clz)) {
@@ -74,10 +82,34 @@ public class SumkProtocolEncoder implements ProtocolEncoder {
 		}
 	}
 
+	private static int withCompressAccept(int code) {
+		return Compressions.enabled() ? code | Protocols.COMPRESS_ACCEPT : code;
+	}
+
+	/**
+	 * 写出压缩后的帧，长度前缀固定是4个字节
+	 */
+	private static void writeCompressed(int code, byte[] data, ProtocolEncoderOutput out) {
+		IoBuffer buffer = IoBuffer.allocate(data.length + 8);
+		buffer.putInt(Protocols.FOUR | code | Protocols.COMPRESSED | Protocols.MAGIC);
+		buffer.putInt(data.length);
+		buffer.put(data);
+		buffer.flip();
+		out.write(buffer);
+	}
+
 	public static void encodeString(int code, IoSession session, CharSequence message, ProtocolEncoderOutput out)
 			throws CharacterCodingException, ProtocolEncoderException {
-		code = code | Protocols.FORMAT_JSON;
+		code = withCompressAccept(code | Protocols.FORMAT_JSON);
 		int size = message.length();
+		if (Compressions.shouldCompress(session, size)) {
+			byte[] bs = message.toString().getBytes(Profile.UTF8);
+			byte[] compressed = Compressions.compress(bs, 0, bs.length);
+			if (compressed != null) {
+				writeCompressed(code, compressed, out);
+				return;
+			}
+		}
 		int prefixLength = size <= (Protocols.MAX_ONE / CHAR_BYTE) ? 1
 				: size <= (Protocols.MAX_TWO / CHAR_BYTE) ? 2 : 4;
 
@@ -90,6 +122,50 @@ public class SumkProtocolEncoder implements ProtocolEncoder {
 		out.write(buffer);
 	}
 
+	/**
+	 * 输出二进制帧。buffer是BinaryFrames.allocate()创建的，长度前缀固定是4个字节，在这里回填
+	 */
+	public static void encodeBinary(int code, IoSession session, IoBuffer buffer, ProtocolEncoderOutput out)
+			throws ProtocolEncoderException {
+		int size = buffer.position() - BinaryFrames.HEADER_LENGTH;
+		if (size > Protocols.MAX_LENGTH) {
+			throw new ProtocolEncoderException("data too large:" + size);
+		}
+		code = withCompressAccept(code);
+		if (Compressions.shouldCompress(session, size) && buffer.hasArray()) {
+			byte[] compressed = Compressions.compress(buffer.array(),
+					buffer.arrayOffset() + BinaryFrames.HEADER_LENGTH, size);
+			if (compressed != null) {
+				writeCompressed(code | Protocols.FORMAT_BINARY, compressed, out);
+				return;
+			}
+		}
+		buffer.putInt(0, Protocols.FOUR | code | Protocols.FORMAT_BINARY | Protocols.MAGIC);
+		buffer.putInt(4, size);
+		buffer.flip();
+		out.write(buffer);
+	}
+
+	private static void encodePing(Ping ping, ProtocolEncoderOutput out) {
+		IoBuffer buffer = IoBuffer.allocate(16);
+		buffer.putInt(Protocols.FOUR | (ping.isPong() ? Protocols.PONG : Protocols.PING) | Protocols.MAGIC);
+		buffer.putInt(Ping.LENGTH);
+		buffer.putLong(ping.time());
+		buffer.flip();
+		out.write(buffer);
+	}
+
+	private static void encodeCredit(StreamCredit credit, ProtocolEncoderOutput out) {
+		byte[] sn = credit.sn().getBytes(Profile.UTF8);
+		IoBuffer buffer = IoBuffer.allocate(sn.length + 12);
+		buffer.putInt(Protocols.FOUR | Protocols.CREDIT | Protocols.MAGIC);
+		buffer.putInt(sn.length + 4);
+		buffer.putInt(credit.credits());
+		buffer.put(sn);
+		buffer.flip();
+		out.write(buffer);
+	}
+
 	@Override
 	public void dispose(IoSession session) throws Exception {
 
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec.decoders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.yx.annotation.Bean;
+import org.yx.rpc.codec.BinaryFrames;
+import org.yx.rpc.codec.Protocols;
+import org.yx.rpc.codec.Request;
+import org.yx.rpc.codec.RequestBatch;
+
+/**
+ * 批量请求，格式是：varint(请求数)，然后每个请求是varint(参数协议) + 跟单个二进制请求相同的字段
+ */
+@Bean
+public class BinaryBatchDeserializer implements SumkMinaDeserializer<RequestBatch> {
+
+	@Override
+	public boolean accept(int protocol) {
+		return Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY) && Protocols.hasFeature(protocol, Protocols.BATCH);
+	}
+
+	@Override
+	public RequestBatch decode(int protocol, byte[] data) throws Exception {
+		return decode(protocol, IoBuffer.wrap(data));
+	}
+
+	@Override
+	public RequestBatch decode(int protocol, IoBuffer in) throws Exception {
+		int count = BinaryFrames.getVarint(in);
+		if (count < 0 || count > in.remaining()) {
+			throw new IllegalArgumentException("batch size " + count + " exceeds " + in.remaining());
+		}
+		List<Request> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int p = BinaryFrames.getVarint(in);
+			list.add(BinaryReqDeserializer.read(p | Protocols.FORMAT_BINARY, in));
+		}
+		return new RequestBatch(list);
+	}
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec.decoders;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.yx.annotation.Bean;
+import org.yx.rpc.ReqProtocol;
+import org.yx.rpc.codec.BinaryFrames;
+import org.yx.rpc.codec.Protocols;
+import org.yx.rpc.codec.Request;
+
+/**
+ * 二进制格式的请求，字段顺序要跟ReqEncoder保持一致
+ */
+@Bean
+public class BinaryReqDeserializer implements SumkMinaDeserializer<Request> {
+
+	@Override
+	public boolean accept(int protocol) {
+		return Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY)
+				&& (Protocols.hasFeature(protocol, Protocols.REQ_PARAM_ORDER)
+						|| Protocols.hasFeature(protocol, Protocols.REQ_PARAM_JSON));
+	}
+
+	@Override
+	public Request decode(int protocol, byte[] data) throws Exception {
+		return decode(protocol, IoBuffer.wrap(data));
+	}
+
+	@Override
+	public Request decode(int protocol, IoBuffer in) throws Exception {
+		return read(protocol, in);
+	}
+
+	static Request read(int protocol, IoBuffer in) {
+		Request req = new Request();
+		req.fullSn(BinaryFrames.getString(in));
+		req.setApi(BinaryFrames.getString(in));
+		req.setUserId(BinaryFrames.getString(in));
+		req.setSrc(BinaryFrames.getString(in));
+		req.setSecret(BinaryFrames.getString(in));
+		req.setSign(BinaryFrames.getString(in));
+		req.setStart(BinaryFrames.getVarlong(in));
+		int flag = in.get();
+		if ((flag & ReqProtocol.TEST) != 0) {
+			req.setTest(true);
+		}
+		if ((flag & ReqProtocol.STREAM) != 0) {
+			req.setStream(true);
+			req.setStreamWindow(BinaryFrames.getVarint(in));
+		}
+		req.setAttachments(BinaryFrames.getStringMap(in));
+		int len = BinaryFrames.getVarint(in);
+		if (Protocols.hasFeature(protocol, Protocols.REQ_PARAM_JSON)) {
+			req.setJsonedParam(len > 0 ? BinaryFrames.getString(in) : null);
+		} else {
+			BinaryFrames.checkSize(in, len, 1);
+			String[] params = new String[len];
+			for (int i = 0; i < len; i++) {
+				params[i] = BinaryFrames.getString(in);
+			}
+			req.setParamArray(params);
+		}
+		req.protocol(protocol);
+		return req;
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec.decoders;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.yx.annotation.Bean;
+import org.yx.exception.SoaException;
+import org.yx.rpc.RpcGson;
+import org.yx.rpc.codec.BinaryFrames;
+import org.yx.rpc.codec.Protocols;
+import org.yx.rpc.server.Response;
+
+/**
+ * 二进制格式的响应，字段顺序要跟ResponseEncoder保持一致
+ */
+@Bean
+public class BinaryResponseDeserializer implements SumkMinaDeserializer<Response> {
+
+	@Override
+	public boolean accept(int protocol) {
+		return Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY)
+				&& Protocols.hasFeature(protocol, Protocols.RESPONSE_JSON);
+	}
+
+	@Override
+	public Response decode(int protocol, byte[] data) throws Exception {
+		return decode(protocol, IoBuffer.wrap(data));
+	}
+
+	@Override
+	public Response decode(int protocol, IoBuffer in) throws Exception {
+		Response resp = new Response(BinaryFrames.getString(in));
+		resp.serviceInvokeMilTime(BinaryFrames.getVarlong(in) - 1);
+		resp.json(BinaryFrames.getString(in));
+		String exception = BinaryFrames.getString(in);
+		if (exception != null) {
+			resp.exception(RpcGson.fromJson(exception, SoaException.class));
+		}
+		if (in.hasRemaining()) {
+			int st = BinaryFrames.getVarint(in);
+			resp.stream((st >>> 1) ^ -(st & 1));
+		}
+		return resp;
+	}
+
+}
@@ -27,7 +27,8 @@ public class JsonParamDeserializer implements SumkMinaDeserializer<Request> {
 
 	@Override
 	public boolean accept(int protocol) {
-		return Protocols.hasFeature(protocol, Protocols.REQ_PARAM_JSON);
+		return Protocols.hasFeature(protocol, Protocols.REQ_PARAM_JSON)
+				&& !Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY);
 	}
 
 	@Override
@@ -26,7 +26,8 @@ public class JsonResponseDeserializer implements SumkMinaDeserializer<Response>
 
 	@Override
 	public boolean accept(int protocol) {
-		return Protocols.hasFeature(protocol, Protocols.RESPONSE_JSON);
+		return Protocols.hasFeature(protocol, Protocols.RESPONSE_JSON)
+				&& !Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY);
 	}
 
 	@Override
@@ -26,7 +26,8 @@ public class OrderedParamDeserializer implements SumkMinaDeserializer<Request> {
 
 	@Override
 	public boolean accept(int protocol) {
-		return Protocols.hasFeature(protocol, Protocols.REQ_PARAM_ORDER);
+		return Protocols.hasFeature(protocol, Protocols.REQ_PARAM_ORDER)
+				&& !Protocols.hasFeature(protocol, Protocols.FORMAT_BINARY);
 	}
 
 	@Override
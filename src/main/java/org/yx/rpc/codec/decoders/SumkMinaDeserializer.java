@@ -15,9 +15,20 @@
  */
 package org.yx.rpc.codec.decoders;
 
+import org.apache.mina.core.buffer.IoBuffer;
+
 public interface SumkMinaDeserializer<T> {
 
 	boolean accept(int protocol);
 
 	public T decode(int protocol, byte[] data) throws Exception;
+
+	/**
+	 * 二进制帧在解码线程里直接从缓冲区解析，data的limit就是本帧的结束位置
+	 */
+	default T decode(int protocol, IoBuffer data) throws Exception {
+		byte[] bs = new byte[data.remaining()];
+		data.get(bs);
+		return decode(protocol, bs);
+	}
 }
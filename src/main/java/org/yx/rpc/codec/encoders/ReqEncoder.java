@@ -15,14 +15,18 @@
  */
 package org.yx.rpc.codec.encoders;
 
+import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 import org.slf4j.Logger;
 import org.yx.annotation.Bean;
 import org.yx.log.Log;
 import org.yx.log.Logs;
+import org.yx.rpc.ReqProtocol;
 import org.yx.rpc.RpcGson;
 import org.yx.rpc.client.Req;
+import org.yx.rpc.client.ReqBatch;
+import org.yx.rpc.codec.BinaryFrames;
 import org.yx.rpc.codec.Protocols;
 import org.yx.rpc.codec.SumkProtocolEncoder;
 
@@ -33,15 +37,23 @@ public class ReqEncoder implements SumkMinaEncoder {
 
 	@Override
 	public boolean accept(Class<?> messageClz) {
-		return messageClz == Req.class;
+		return messageClz == Req.class || messageClz == ReqBatch.class;
 	}
 
 	@Override
 	public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
+		if (message.getClass() == ReqBatch.class) {
+			this.encodeBatch(session, (ReqBatch) message, out);
+			return;
+		}
 		Req req = Req.class.cast(message);
 		String jsonedArg = req.getJsonedParam();
 		String[] params = req.getParamArray();
 		int paramProtocal = req.paramProtocol();
+		if (BinaryFrames.isBinary(session)) {
+			this.encodeBinary(session, req, paramProtocal, out);
+			return;
+		}
 
 		if (paramProtocal == Protocols.REQ_PARAM_JSON) {
 			String json_req = String.join(Protocols.LINE_SPLIT, RpcGson.toJson(req), jsonedArg);
@@ -66,4 +78,78 @@ public class ReqEncoder implements SumkMinaEncoder {
 		SumkProtocolEncoder.encodeString(paramProtocal, session, json_req, out);
 	}
 
+	private static int estimateSize(Req req) {
+		String[] params = req.getParamArray();
+		String jsonedArg = req.getJsonedParam();
+		int size = 128;
+		if (jsonedArg != null) {
+			size += jsonedArg.length();
+		} else if (params != null) {
+			for (String p : params) {
+				size += p == null ? 1 : p.length() + 2;
+			}
+		}
+		return size;
+	}
+
+	private void encodeBinary(IoSession session, Req req, int paramProtocal, ProtocolEncoderOutput out)
+			throws Exception {
+		IoBuffer buffer = BinaryFrames.allocate(estimateSize(req));
+		writeBody(buffer, req, paramProtocal);
+		if (Log.isON(log)) {
+			log.trace("req in binary: {}, {} bytes", req.getApi(), buffer.position());
+		}
+		SumkProtocolEncoder.encodeBinary(paramProtocal, session, buffer, out);
+	}
+
+	/**
+	 * 多个请求合成一个帧，每个请求前面是它自己的参数协议
+	 */
+	private void encodeBatch(IoSession session, ReqBatch batch, ProtocolEncoderOutput out) throws Exception {
+		int size = 8;
+		for (Req req : batch.reqs()) {
+			size += estimateSize(req);
+		}
+		IoBuffer buffer = BinaryFrames.allocate(size);
+		BinaryFrames.putVarint(buffer, batch.size());
+		for (Req req : batch.reqs()) {
+			int paramProtocal = req.paramProtocol();
+			BinaryFrames.putVarint(buffer, paramProtocal);
+			writeBody(buffer, req, paramProtocal);
+		}
+		if (Log.isON(log)) {
+			log.trace("req batch in binary: {} reqs, {} bytes", batch.size(), buffer.position());
+		}
+		SumkProtocolEncoder.encodeBinary(Protocols.BATCH, session, buffer, out);
+	}
+
+	private static void writeBody(IoBuffer buffer, Req req, int paramProtocal) {
+		String[] params = req.getParamArray();
+		String jsonedArg = req.getJsonedParam();
+		BinaryFrames.putString(buffer, req.fullSn());
+		BinaryFrames.putString(buffer, req.getApi());
+		BinaryFrames.putString(buffer, req.getUserId());
+		BinaryFrames.putString(buffer, req.getSrc());
+		BinaryFrames.putString(buffer, req.getSecret());
+		BinaryFrames.putString(buffer, req.getSign());
+		BinaryFrames.putVarlong(buffer, req.getStart());
+		int flag = (req.isTest() ? ReqProtocol.TEST : 0) | (req.isStream() ? ReqProtocol.STREAM : 0);
+		buffer.put((byte) flag);
+		if (req.isStream()) {
+			BinaryFrames.putVarint(buffer, req.streamWindow());
+		}
+		BinaryFrames.putStringMap(buffer, req.getAttachments());
+		if (paramProtocal == Protocols.REQ_PARAM_JSON) {
+			BinaryFrames.putVarint(buffer, 1);
+			BinaryFrames.putString(buffer, jsonedArg);
+		} else if (params == null) {
+			BinaryFrames.putVarint(buffer, 0);
+		} else {
+			BinaryFrames.putVarint(buffer, params.length);
+			for (String p : params) {
+				BinaryFrames.putString(buffer, p);
+			}
+		}
+	}
+
 }
@@ -15,10 +15,12 @@
  */
 package org.yx.rpc.codec.encoders;
 
+import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.filter.codec.ProtocolEncoderOutput;
 import org.yx.annotation.Bean;
 import org.yx.rpc.RpcGson;
+import org.yx.rpc.codec.BinaryFrames;
 import org.yx.rpc.codec.Protocols;
 import org.yx.rpc.codec.SumkProtocolEncoder;
 import org.yx.rpc.server.Response;
@@ -33,6 +35,21 @@ public class ResponseEncoder implements SumkMinaEncoder {
 
 	@Override
 	public void encode(IoSession session, Object message, ProtocolEncoderOutput out) throws Exception {
+		if (BinaryFrames.isBinary(session)) {
+			Response resp = (Response) message;
+			String json = resp.json();
+			IoBuffer buffer = BinaryFrames.allocate(json == null ? 64 : json.length() + 64);
+			BinaryFrames.putString(buffer, resp.sn());
+			BinaryFrames.putVarlong(buffer, resp.serviceInvokeMilTime() + 1);
+			BinaryFrames.putString(buffer, json);
+			BinaryFrames.putString(buffer, resp.exception() == null ? null : RpcGson.toJson(resp.exception()));
+			if (resp.stream() != 0) {
+				int st = resp.stream();
+				BinaryFrames.putVarint(buffer, (st << 1) ^ (st >> 31));
+			}
+			SumkProtocolEncoder.encodeBinary(Protocols.RESPONSE_JSON, session, buffer, out);
+			return;
+		}
 		SumkProtocolEncoder.encodeString(Protocols.RESPONSE_JSON, session, RpcGson.toJson(message), out);
 	}
 
@@ -25,6 +25,7 @@ public class RouteInfo {
 	private Collection<IntfInfo> intfs = new ArrayList<IntfInfo>();
 	private int weight;
 	private int clientCount;
+	private long feature;
 	private final Host host;
 
 	public RouteInfo(Host url) {
@@ -53,6 +54,20 @@ public class RouteInfo {
 		this.clientCount = Integer.parseInt(w);
 	}
 
+	void setFeature(String f) {
+		if (StringUtil.isEmpty(f)) {
+			return;
+		}
+		this.feature = Long.parseLong(f, 16);
+	}
+
+	/**
+	 * @return 服务端支持的协议，参见Protocols
+	 */
+	public int protocols() {
+		return (int) this.feature;
+	}
+
 	public int weight() {
 		return this.weight;
 	}
@@ -54,6 +54,7 @@ public class ZkDataOperatorImpl implements ZkDataOperator {
 		}
 		RouteInfo info = new RouteInfo(host);
 		info.setWeight(map.get(ZKConst.WEIGHT));
+		info.setFeature(map.get(ZKConst.FEATURE));
 		methodMap.forEach((m, value) -> {
 			if (m.length() == 0) {
 				return;
@@ -20,6 +20,7 @@ import static org.yx.conf.AppInfo.LN;
 import org.slf4j.Logger;
 import org.yx.exception.BizException;
 import org.yx.log.Log;
+import org.yx.rpc.RpcGson;
 import org.yx.rpc.RpcSettings;
 import org.yx.rpc.client.Req;
 import org.yx.rpc.client.RpcResult;
@@ -43,6 +44,22 @@ public class PlainRpcLogHandler implements RpcLogHandler {
 				|| (logger.isWarnEnabled() && totalTime >= RpcSettings.warnTime());
 	}
 
+	/**
+	 * 本地直接传递参数对象的时候没有json参数，这时候按远程调用的格式把参数对象转成json数组
+	 */
+	protected String[] paramArray(Req req) {
+		String[] params = req.getParamArray();
+		Object[] args = req.args();
+		if (params != null || args == null) {
+			return params;
+		}
+		params = new String[args.length];
+		for (int i = 0; i < args.length; i++) {
+			params[i] = RpcGson.toJson(args[i]);
+		}
+		return params;
+	}
+
 	@Override
 	public void clientLog(RpcLog rpcLog) {
 		if (RpcSettings.isClientLogDisable() || rpcLog == null) {
@@ -62,7 +79,7 @@ public class PlainRpcLogHandler implements RpcLogHandler {
 		if (req.getJsonedParam() != null) {
 			sb.append("   param(json): ").append(req.getJsonedParam());
 		} else {
-			sb.append("   param(array): ").append(S.json().toJson(req.getParamArray()));
+			sb.append("   param(array): ").append(S.json().toJson(this.paramArray(req)));
 		}
 		if (result != null) {
 			if (e == null) {
@@ -102,7 +119,7 @@ public class PlainRpcLogHandler implements RpcLogHandler {
 			if (req.getJsonedParam() != null) {
 				sb.append("   param(json): ").append(req.getJsonedParam());
 			} else {
-				sb.append("   param(array): ").append(S.json().toJson(req.getParamArray()));
+				sb.append("   param(array): ").append(S.json().toJson(this.paramArray(req)));
 			}
 		}
 		String json = resp.json();
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.yx.bean.IOC;
+import org.yx.common.context.ActionContext;
+import org.yx.exception.BizException;
+import org.yx.log.Log;
+import org.yx.rpc.InnerRpcKit;
+import org.yx.rpc.RpcActionNode;
+import org.yx.rpc.RpcActions;
+import org.yx.rpc.codec.ProtocolDeserializer;
+import org.yx.rpc.codec.ProtocolObject;
+import org.yx.rpc.codec.Request;
+import org.yx.rpc.codec.RequestBatch;
+import org.yx.rpc.log.RpcLogs;
+import org.yx.rpc.server.impl.ServerExceptionHandler;
+
+/**
+ * 放在threadpool前面，在I/O线程里做限流检查。<BR>
+ * 请求进入线程池队列之前就要拿到许可，拿不到的直接在I/O线程里返回THREAD_THRESHOLD_OVER，
+ * 这样排队的请求也占着许可，突发流量不会把线程池的队列堆满。许可在响应写出之后由ServerHandler释放。<BR>
+ * 拿到许可的请求最多sumk.limit.max个，远小于线程池队列的长度，所以不会出现拿了许可却被队列拒绝的情况
+ */
+public class AdmissionFilter extends IoFilterAdapter {
+
+	private final ProtocolDeserializer deserializer = IOC.get(ProtocolDeserializer.class);
+
+	@Override
+	public void messageReceived(NextFilter nextFilter, IoSession session, Object message) throws Exception {
+		if (ProtocolObject.class.isInstance(message)) {
+			Object obj = this.decode(message);
+			if (obj != null) {
+				message = obj;
+			}
+		}
+		if (Request.class.isInstance(message)) {
+			if (!this.admit(session, (Request) message)) {
+				return;
+			}
+		} else if (RequestBatch.class.isInstance(message)) {
+			List<Request> reqs = ((RequestBatch) message).getRequests();
+			List<Request> admitted = new ArrayList<>(reqs.size());
+			for (Request req : reqs) {
+				if (this.admit(session, req)) {
+					admitted.add(req);
+				}
+			}
+			if (admitted.isEmpty()) {
+				return;
+			}
+			if (admitted.size() < reqs.size()) {
+				message = new RequestBatch(admitted);
+			}
+		}
+		nextFilter.messageReceived(session, message);
+	}
+
+	/**
+	 * 解析失败的话返回null，原样交给ServerHandler，由它按原来的方式返回错误
+	 */
+	private Object decode(Object message) {
+		try {
+			return this.deserializer.deserialize(message);
+		} catch (Exception e) {
+			Log.get("sumk.rpc.server").debug("decode in io thread failed,{}", e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * @return 能够继续处理的返回true。接口不存在的也返回true，由后面的handler报错
+	 */
+	protected boolean admit(IoSession session, Request req) {
+		RpcActionNode node = RpcActions.getActionNode(req.getApi());
+		if (node == null) {
+			return true;
+		}
+		try {
+			node.checkThreshold();
+		} catch (BizException e) {
+			this.reject(session, req, e);
+			return false;
+		}
+		req.admitted(node);
+		return true;
+	}
+
+	protected void reject(IoSession session, Request req, BizException e) {
+		Response resp = new Response();
+		try {
+			InnerRpcKit.rpcContext(req, req.isTest());
+			resp.sn(req.getSn());
+			ServerExceptionHandler.handle(req, resp, e);
+			resp.serviceInvokeMilTime(System.currentTimeMillis() - req.getStartInServer());
+			session.write(resp);
+		} finally {
+			RpcLogs.serverLog(req, resp);
+			ActionContext.remove();
+		}
+	}
+}
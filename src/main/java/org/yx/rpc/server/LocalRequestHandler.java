@@ -18,6 +18,7 @@ package org.yx.rpc.server;
 import java.util.List;
 
 import org.yx.bean.IOC;
+import org.yx.conf.AppInfo;
 import org.yx.exception.SoaException;
 import org.yx.rpc.RpcActionNode;
 import org.yx.rpc.RpcErrorCode;
@@ -35,6 +36,20 @@ public class LocalRequestHandler {
 		this.handlers = handlers;
 	}
 
+	/**
+	 * @return 本地路由的时候，是否直接把参数对象传给服务端，不经过json
+	 */
+	public static boolean direct() {
+		return AppInfo.getBoolean("sumk.rpc.localroute.direct", true);
+	}
+
+	/**
+	 * @return 直接传递对象的时候，是否用json复制参数和返回值，防止双方共用同一个对象
+	 */
+	public static boolean copyArgs() {
+		return AppInfo.getBoolean("sumk.rpc.localroute.copy", false);
+	}
+
 	private LocalRequestHandler() {
 		handlers = IOC.getBeans(RequestHandler.class);
 	}
@@ -45,6 +60,7 @@ public class LocalRequestHandler {
 		try {
 			for (RequestHandler h : this.handlers) {
 				if (h.handle(request, resp)) {
+					StreamResponses.materialize(resp);
 					resp.serviceInvokeMilTime(System.currentTimeMillis() - request.getStartInServer());
 					return resp;
 				}
@@ -96,6 +96,8 @@ public class MinaServer implements Runnable {
 
 			chain.addLast("codec", new ProtocolCodecFilter(IOC.get(SumkCodecFactory.class)));
 
+			chain.addLast("admission", new AdmissionFilter());
+
 			chain.addLast("threadpool", new ExecutorFilter(SoaExcutors.getServerThreadPool()));
 
 			acceptor.setHandler(handler);
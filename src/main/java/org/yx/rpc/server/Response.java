@@ -25,6 +25,21 @@ public class Response {
 
 	private long ms = -1;
 
+	/**
+	 * 流式响应的标记。正数表示第几个分片(从1开始)，负数表示最后一帧，它的绝对值是之前的分片数加1
+	 */
+	private Integer st;
+
+	/**
+	 * 服务端要流式发送的数据，不参与序列化
+	 */
+	private transient Object source;
+
+	/**
+	 * 进程内直接调用时的返回值，不参与序列化
+	 */
+	private transient Object value;
+
 	public String sn() {
 		return sn;
 	}
@@ -45,6 +60,30 @@ public class Response {
 		this.json = json;
 	}
 
+	public int stream() {
+		return st == null ? 0 : st;
+	}
+
+	public void stream(int st) {
+		this.st = st == 0 ? null : st;
+	}
+
+	public Object source() {
+		return source;
+	}
+
+	public void source(Object source) {
+		this.source = source;
+	}
+
+	public Object value() {
+		return value;
+	}
+
+	public void value(Object value) {
+		this.value = value;
+	}
+
 	public void serviceInvokeMilTime(long ms) {
 		this.ms = ms;
 	}
@@ -32,8 +32,12 @@ import org.yx.log.Log;
 import org.yx.rpc.InnerRpcKit;
 import org.yx.rpc.RpcErrorCode;
 import org.yx.rpc.RpcGson;
+import org.yx.rpc.SoaExcutors;
+import org.yx.rpc.codec.Ping;
 import org.yx.rpc.codec.ProtocolDeserializer;
 import org.yx.rpc.codec.Request;
+import org.yx.rpc.codec.RequestBatch;
+import org.yx.rpc.codec.StreamCredit;
 import org.yx.rpc.log.RpcLogs;
 
 public class ServerHandler implements IoHandler {
@@ -92,6 +96,42 @@ public class ServerHandler implements IoHandler {
 
 	@Override
 	public void messageReceived(IoSession session, Object message) throws Exception {
+		if (RequestBatch.class.isInstance(message)) {
+			this.dispatchBatch(session, (RequestBatch) message);
+			return;
+		}
+		if (Ping.class.isInstance(message)) {
+			session.write(((Ping) message).pong());
+			return;
+		}
+		if (StreamCredit.class.isInstance(message)) {
+			StreamResponses.grant(session, (StreamCredit) message);
+			return;
+		}
+		this.handleMessage(session, message);
+	}
+
+	/**
+	 * 批量请求拆开后并行处理，最后一个在当前线程执行。每个请求处理完就立即写回响应，不等其它请求
+	 */
+	protected void dispatchBatch(IoSession session, RequestBatch batch) {
+		List<Request> reqs = batch.getRequests();
+		int last = reqs.size() - 1;
+		for (int i = 0; i < last; i++) {
+			Request req = reqs.get(i);
+			try {
+				SoaExcutors.getServerThreadPool().execute(() -> this.handleMessage(session, req));
+			} catch (Exception e) {
+				log.warn("batch request {} run in current thread,because {}", req.getApi(), e.toString());
+				this.handleMessage(session, req);
+			}
+		}
+		if (last >= 0) {
+			this.handleMessage(session, reqs.get(last));
+		}
+	}
+
+	protected void handleMessage(IoSession session, Object message) {
 		Response resp = new Response();
 		Request req = null;
 		try {
@@ -104,6 +144,10 @@ public class ServerHandler implements IoHandler {
 				InnerRpcKit.rpcContext(req, req.isTest());
 				for (RequestHandler h : handlers) {
 					if (h.handle(req, resp)) {
+						if (resp.source() != null) {
+							StreamResponses.write(session, req, resp);
+							return;
+						}
 						resp.serviceInvokeMilTime(System.currentTimeMillis() - req.getStartInServer());
 						session.write(resp);
 						return;
@@ -116,6 +160,9 @@ public class ServerHandler implements IoHandler {
 			resp.exception(new SoaException(RpcErrorCode.SERVER_UNKNOW, "server handler error", e));
 			session.write(RpcGson.toJson(resp));
 		} finally {
+			if (req != null && req.admitted() != null) {
+				req.admitted().release(req.getStartInServer());
+			}
 			RpcLogs.serverLog(req, resp);
 			ActionContext.remove();
 		}
@@ -135,4 +182,4 @@ public class ServerHandler implements IoHandler {
 	public void event(IoSession session, FilterEvent event) throws Exception {
 
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
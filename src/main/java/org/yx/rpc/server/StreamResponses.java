@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.server;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.BaseStream;
+
+import org.apache.mina.core.session.IoSession;
+import org.yx.conf.AppInfo;
+import org.yx.exception.SoaException;
+import org.yx.log.Logs;
+import org.yx.rpc.RpcErrorCode;
+import org.yx.rpc.RpcGson;
+import org.yx.rpc.codec.Request;
+import org.yx.rpc.codec.StreamCredit;
+import org.yx.rpc.server.impl.ServerExceptionHandler;
+
+/**
+ * 流式响应。客户端要求流式返回，并且服务端返回的是Iterator、Iterable或Stream的时候，
+ * 每sumk.rpc.stream.chunk个元素组成一个分片，分片的json是数组。<BR>
+ * 客户端在请求里带上初始额度，每发一个分片消耗一个额度，额度用完就等客户端通过StreamCredit帧授予新的额度。
+ * 不支持额度的老客户端，在连接的待发送字节数超过sumk.rpc.stream.buffer的时候暂停生产
+ */
+public final class StreamResponses {
+
+	private static final String CREDITS = "sumk.rpc.stream.credits";
+
+	public static int chunkSize() {
+		return AppInfo.getInt("sumk.rpc.stream.chunk", 100);
+	}
+
+	public static long maxScheduledBytes() {
+		return AppInfo.getLong("sumk.rpc.stream.buffer", 4L * 1024 * 1024);
+	}
+
+	/**
+	 * 等待客户端额度的最长时间，超过了就认为客户端已经不再读取，结束这个流
+	 */
+	public static long creditTimeout() {
+		return AppInfo.getLong("sumk.rpc.stream.credit.timeout", 60000);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ConcurrentMap<String, Semaphore> credits(IoSession session) {
+		Object obj = session.getAttribute(CREDITS);
+		if (obj == null) {
+			session.setAttributeIfAbsent(CREDITS, new ConcurrentHashMap<String, Semaphore>());
+			obj = session.getAttribute(CREDITS);
+		}
+		return (ConcurrentMap<String, Semaphore>) obj;
+	}
+
+	/**
+	 * 收到客户端的额度帧。流已经结束的话直接丢弃
+	 */
+	public static void grant(IoSession session, StreamCredit credit) {
+		Semaphore s = credits(session).get(credit.sn());
+		if (s != null && credit.credits() > 0) {
+			s.release(credit.credits());
+		}
+	}
+
+	/**
+	 * @return 可以分片发送的返回值，转化为迭代器。其它类型返回null
+	 */
+	public static Iterator<?> toIterator(Object ret) {
+		if (ret instanceof Iterator) {
+			return (Iterator<?>) ret;
+		}
+		if (ret instanceof Iterable) {
+			return ((Iterable<?>) ret).iterator();
+		}
+		if (ret instanceof BaseStream) {
+			return ((BaseStream<?, ?>) ret).iterator();
+		}
+		if (ret != null && ret.getClass().isArray()) {
+			int len = Array.getLength(ret);
+			List<Object> list = new ArrayList<>(len);
+			for (int i = 0; i < len; i++) {
+				list.add(Array.get(ret, i));
+			}
+			return list.iterator();
+		}
+		return null;
+	}
+
+	/**
+	 * 客户端要求流式返回的时候记录迭代器，由ServerHandler分片发送。<BR>
+	 * 否则直接转为json，Iterator和Stream会先收集成List
+	 */
+	public static void fill(Request req, Response resp, Object ret) {
+		if (req.isStream() && toIterator(ret) != null) {
+			resp.source(ret);
+			return;
+		}
+		resp.json(RpcGson.toJson(materialize(ret)));
+	}
+
+	public static Object materialize(Object ret) {
+		if (!(ret instanceof Iterator) && !(ret instanceof BaseStream)) {
+			return ret;
+		}
+		List<Object> list = new ArrayList<>();
+		try {
+			Iterator<?> it = toIterator(ret);
+			while (it.hasNext()) {
+				list.add(it.next());
+			}
+		} finally {
+			close(ret);
+		}
+		return list;
+	}
+
+	/**
+	 * 本地调用的时候，把迭代器收集成json数组
+	 */
+	public static void materialize(Response resp) {
+		Object source = resp.source();
+		if (source == null) {
+			return;
+		}
+		resp.source(null);
+		try {
+			resp.json(RpcGson.toJson(materialize(source)));
+		} catch (Throwable e) {
+			resp.json(null);
+			resp.exception(new SoaException(RpcErrorCode.SERVER_HANDLE_ERROR, e.getMessage(), e));
+		}
+	}
+
+	/**
+	 * 分片发送。最后一帧包含剩余的元素和异常信息，客户端收到它之后结束本次请求
+	 */
+	public static void write(IoSession session, Request req, Response resp) {
+		Object source = resp.source();
+		resp.source(null);
+		int size = chunkSize();
+		List<Object> buf = new ArrayList<>(size);
+		int index = 0;
+		Response last = new Response(req.getSn());
+		Semaphore credit = null;
+		if (req.streamWindow() > 0) {
+			credit = new Semaphore(req.streamWindow());
+			credits(session).put(req.getSn(), credit);
+		}
+		try {
+			Iterator<?> it = toIterator(source);
+			while (it.hasNext()) {
+				buf.add(it.next());
+				if (buf.size() < size) {
+					continue;
+				}
+				if (!awaitCredit(session, req, credit) || !awaitWritable(session)) {
+					Logs.rpc().debug("{} closed,stream {} stopped at chunk {}", session, req.getSn(), index);
+					return;
+				}
+				Response chunk = new Response(req.getSn());
+				chunk.json(RpcGson.toJson(buf));
+				chunk.stream(++index);
+				session.write(chunk);
+				buf.clear();
+			}
+			last.json(RpcGson.toJson(buf));
+		} catch (Throwable e) {
+			ServerExceptionHandler.handle(req, last, e);
+		} finally {
+			if (credit != null) {
+				credits(session).remove(req.getSn(), credit);
+			}
+			close(source);
+		}
+		last.stream(-(index + 1));
+		last.serviceInvokeMilTime(System.currentTimeMillis() - req.getStartInServer());
+		resp.json(last.json());
+		resp.exception(last.exception());
+		resp.serviceInvokeMilTime(last.serviceInvokeMilTime());
+		session.write(last);
+	}
+
+	/**
+	 * 等待客户端授予额度，结束帧不需要额度
+	 * 
+	 * @return 连接已经关闭的时候返回false
+	 */
+	private static boolean awaitCredit(IoSession session, Request req, Semaphore credit) throws InterruptedException {
+		if (credit == null) {
+			return true;
+		}
+		long end = System.currentTimeMillis() + creditTimeout();
+		while (!credit.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+			if (!session.isConnected() || session.isClosing()) {
+				return false;
+			}
+			if (System.currentTimeMillis() > end) {
+				throw new SoaException(RpcErrorCode.TIMEOUT, "client stopped reading stream " + req.getSn(),
+						"wait credit timeout");
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 等待连接的发送队列降下来
+	 * 
+	 * @return 连接已经关闭的时候返回false
+	 */
+	private static boolean awaitWritable(IoSession session) {
+		long max = maxScheduledBytes();
+		while (session.getScheduledWriteBytes() > max) {
+			if (!session.isConnected() || session.isClosing()) {
+				return false;
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		return session.isConnected();
+	}
+
+	private static void close(Object obj) {
+		if (obj instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) obj).close();
+			} catch (Exception e) {
+				Logs.rpc().debug("close {} failed,{}", obj.getClass().getName(), e.toString());
+			}
+		}
+	}
+}
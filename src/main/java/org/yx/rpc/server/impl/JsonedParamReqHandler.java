@@ -19,12 +19,12 @@ import org.yx.annotation.Bean;
 import org.yx.common.CalleeNode;
 import org.yx.rpc.RpcActionNode;
 import org.yx.rpc.RpcActions;
-import org.yx.rpc.RpcGson;
 import org.yx.rpc.codec.Protocols;
 import org.yx.rpc.codec.Request;
 import org.yx.rpc.server.RequestHandler;
 import org.yx.rpc.server.Response;
 import org.yx.rpc.server.RpcVisitor;
+import org.yx.rpc.server.StreamResponses;
 
 @Bean
 public class JsonedParamReqHandler implements RequestHandler {
@@ -38,9 +38,18 @@ public class JsonedParamReqHandler implements RequestHandler {
 		try {
 			String api = req.getApi();
 			RpcActionNode node = RpcActions.getActionNode(api);
-			CalleeNode.checkNode(api, node);
-			Object ret = RpcHandler.handle(node, new JsonedRpcVisitor(req));
-			resp.json(RpcGson.toJson(ret));
+			boolean admitted = req.admitted() != null;
+			if (!admitted) {
+				CalleeNode.checkNode(api, node);
+			}
+			try {
+				Object ret = RpcHandler.handle(node, new JsonedRpcVisitor(req));
+				StreamResponses.fill(req, resp, ret);
+			} finally {
+				if (!admitted) {
+					node.release(req.getStartInServer());
+				}
+			}
 		} catch (Throwable e) {
 			ServerExceptionHandler.handle(req, resp, e);
 		}
@@ -19,12 +19,13 @@ import org.yx.annotation.Bean;
 import org.yx.common.CalleeNode;
 import org.yx.rpc.RpcActionNode;
 import org.yx.rpc.RpcActions;
-import org.yx.rpc.RpcGson;
 import org.yx.rpc.codec.Protocols;
 import org.yx.rpc.codec.Request;
+import org.yx.rpc.server.LocalRequestHandler;
 import org.yx.rpc.server.RequestHandler;
 import org.yx.rpc.server.Response;
 import org.yx.rpc.server.RpcVisitor;
+import org.yx.rpc.server.StreamResponses;
 
 @Bean
 public class OrderedParamReqHandler implements RequestHandler {
@@ -38,9 +39,22 @@ public class OrderedParamReqHandler implements RequestHandler {
 		try {
 			String api = req.getApi();
 			RpcActionNode node = RpcActions.getActionNode(api);
-			CalleeNode.checkNode(api, node);
-			Object ret = RpcHandler.handle(node, new OrderedRpcVisitor(req));
-			resp.json(RpcGson.toJson(ret));
+			boolean admitted = req.admitted() != null;
+			if (!admitted) {
+				CalleeNode.checkNode(api, node);
+			}
+			try {
+				Object ret = RpcHandler.handle(node, new OrderedRpcVisitor(req));
+				if (req.args() != null) {
+					resp.value(ret);
+				} else {
+					StreamResponses.fill(req, resp, ret);
+				}
+			} finally {
+				if (!admitted) {
+					node.release(req.getStartInServer());
+				}
+			}
 			resp.exception(null);
 		} catch (Throwable e) {
 			ServerExceptionHandler.handle(req, resp, e);
@@ -56,6 +70,9 @@ public class OrderedParamReqHandler implements RequestHandler {
 
 		@Override
 		public Object visit(RpcActionNode info) throws Throwable {
+			if (req.args() != null) {
+				return info.invokeByObjects(req.args(), LocalRequestHandler.copyArgs());
+			}
 			return info.invokeByOrder(req.getParamArray());
 		}
 
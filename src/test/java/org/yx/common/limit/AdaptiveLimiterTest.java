@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.limit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 使用默认配置：初始上限50，最小4，最大1000，窗口20个样本
+ */
+public class AdaptiveLimiterTest {
+
+	/**
+	 * 把许可都拿光，然后全部按指定耗时释放，相当于一直满负荷运行
+	 */
+	private static void fullLoad(AdaptiveLimiter limiter, long rtt, int rounds) {
+		for (int r = 0; r < rounds; r++) {
+			int acquired = 0;
+			while (limiter.tryAcquire()) {
+				acquired++;
+			}
+			for (int i = 0; i < acquired; i++) {
+				limiter.release(rtt);
+			}
+		}
+	}
+
+	@Test
+	public void permitRelease() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("release");
+		int limit = limiter.limit();
+		Assert.assertEquals(50, limit);
+		for (int i = 0; i < limit; i++) {
+			Assert.assertTrue(limiter.tryAcquire());
+		}
+		Assert.assertFalse(limiter.tryAcquire());
+		Assert.assertEquals(limit, limiter.inflight());
+
+		limiter.release(10);
+		Assert.assertEquals(limit - 1, limiter.inflight());
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertFalse(limiter.tryAcquire());
+
+		for (int i = 0; i < limit; i++) {
+			limiter.release(10);
+		}
+		Assert.assertEquals(0, limiter.inflight());
+		Assert.assertTrue(limiter.tryAcquire());
+		Assert.assertEquals(1, limiter.inflight());
+	}
+
+	@Test
+	public void growWhenLatencyStable() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("grow");
+		int initial = limiter.limit();
+		fullLoad(limiter, 10, 20);
+		Assert.assertTrue("limit:" + limiter.limit(), limiter.limit() > initial);
+		Assert.assertEquals(0, limiter.inflight());
+	}
+
+	@Test
+	public void shrinkWhenLatencyRises() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("shrink");
+		fullLoad(limiter, 10, 5);
+		int before = limiter.limit();
+		fullLoad(limiter, 100, 5);
+		int after = limiter.limit();
+		Assert.assertTrue(before + " -> " + after, after < before);
+
+		fullLoad(limiter, 1000, 200);
+		Assert.assertTrue("limit:" + limiter.limit(), limiter.limit() >= 4);
+		Assert.assertTrue("limit:" + limiter.limit(), limiter.limit() < after);
+	}
+
+	/**
+	 * 并发量不到上限一半的时候，说明上限不是瓶颈，不调整
+	 */
+	@Test
+	public void keepWhenIdle() {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("idle");
+		int initial = limiter.limit();
+		for (int i = 0; i < 200; i++) {
+			Assert.assertTrue(limiter.tryAcquire());
+			limiter.release(i % 2 == 0 ? 10 : 500);
+		}
+		Assert.assertEquals(initial, limiter.limit());
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.yx.common.route.WeightedRouterTest.Server;
+
+public class ConsistentHashRouterTest {
+
+	private static List<WeightedServer<String>> servers(int count) {
+		List<WeightedServer<String>> list = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			list.add(new Server("192.168.0." + i + ":8080", 1));
+		}
+		return list;
+	}
+
+	@Test
+	public void sameKeySameServer() {
+		ConsistentHashRouter<String> r1 = new ConsistentHashRouter<>(servers(5));
+		ConsistentHashRouter<String> r2 = new ConsistentHashRouter<>(servers(5));
+		for (int i = 0; i < 1000; i++) {
+			String key = "user" + i;
+			Assert.assertEquals(r1.select(key), r1.select(key));
+			Assert.assertEquals(r1.select(key), r2.select(key));
+		}
+	}
+
+	@Test
+	public void disabledNodeOnlyMovesItsKeys() {
+		List<WeightedServer<String>> list = servers(5);
+		ConsistentHashRouter<String> router = new ConsistentHashRouter<>(list);
+		Map<String, String> before = new HashMap<>();
+		for (int i = 0; i < 2000; i++) {
+			before.put("k" + i, router.select("k" + i));
+		}
+		Server down = (Server) list.get(2);
+		down.enable = false;
+		int moved = 0;
+		for (Map.Entry<String, String> en : before.entrySet()) {
+			String now = router.select(en.getKey());
+			Assert.assertNotEquals(down.getSource(), now);
+			if (!now.equals(en.getValue())) {
+				Assert.assertEquals(down.getSource(), en.getValue());
+				moved++;
+			}
+		}
+		Assert.assertTrue(moved > 0);
+	}
+
+	@Test
+	public void addNodeMovesFewKeys() {
+		ConsistentHashRouter<String> r5 = new ConsistentHashRouter<>(servers(5));
+		ConsistentHashRouter<String> r6 = new ConsistentHashRouter<>(servers(6));
+		int moved = 0, total = 5000;
+		for (int i = 0; i < total; i++) {
+			if (!r5.select("k" + i).equals(r6.select("k" + i))) {
+				moved++;
+			}
+		}
+		Assert.assertTrue("moved:" + moved, moved < total * 0.3);
+	}
+
+	@Test
+	public void balance() {
+		ConsistentHashRouter<String> router = new ConsistentHashRouter<>(servers(4));
+		Map<String, Integer> count = new HashMap<>();
+		int total = 40000;
+		for (int i = 0; i < total; i++) {
+			count.merge(router.select("order-" + i), 1, Integer::sum);
+		}
+		Assert.assertEquals(4, count.size());
+		for (int c : count.values()) {
+			Assert.assertTrue("count:" + c, c > total / 4 * 0.7 && c < total / 4 * 1.3);
+		}
+	}
+
+	@Test
+	public void allDisabled() {
+		List<WeightedServer<String>> list = servers(3);
+		ConsistentHashRouter<String> router = new ConsistentHashRouter<>(list);
+		for (WeightedServer<String> s : list) {
+			((Server) s).enable = false;
+		}
+		Assert.assertNull(router.select("a"));
+		Assert.assertNull(router.select());
+	}
+}
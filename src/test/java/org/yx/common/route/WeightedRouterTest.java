@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedRouterTest {
+
+	static class Server extends AbstractWeightedServer<String> {
+		volatile boolean enable = true;
+
+		Server(String source, int weight) {
+			super(source);
+			this.setWeight(weight);
+		}
+
+		@Override
+		public boolean isEnable() {
+			return enable;
+		}
+	}
+
+	private static List<WeightedServer<String>> servers(Server... ss) {
+		return new ArrayList<>(Arrays.asList(ss));
+	}
+
+	@Test
+	public void proportional() {
+		Router<String> router = new WeightedRouter<>(servers(new Server("a", 50), new Server("b", 30),
+				new Server("c", 20)));
+		Map<String, Integer> count = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			count.merge(router.select(), 1, Integer::sum);
+		}
+		Assert.assertEquals(Integer.valueOf(500), count.get("a"));
+		Assert.assertEquals(Integer.valueOf(300), count.get("b"));
+		Assert.assertEquals(Integer.valueOf(200), count.get("c"));
+	}
+
+	@Test
+	public void skipDisabled() {
+		Server b = new Server("b", 1);
+		Router<String> router = new WeightedRouter<>(servers(new Server("a", 1), b, new Server("c", 1)));
+		b.enable = false;
+		for (int i = 0; i < 100; i++) {
+			Assert.assertNotEquals("b", router.select());
+		}
+		Assert.assertEquals(Arrays.asList("a", "c"), router.aliveSources());
+	}
+
+	@Test
+	public void allDisabled() {
+		Server a = new Server("a", 2);
+		Server b = new Server("b", 1);
+		Router<String> router = new WeightedRouter<>(servers(a, b));
+		a.enable = false;
+		b.enable = false;
+		Assert.assertNull(router.select());
+	}
+
+	/**
+	 * 下标和权重打包在一个AtomicLong里，并发选择的时候每次选择都只前进一步，总的分布仍然是精确的
+	 */
+	@Test
+	public void concurrentCursor() throws InterruptedException {
+		Router<String> router = new WeightedRouter<>(servers(new Server("a", 4), new Server("b", 2),
+				new Server("c", 1), new Server("d", 1)));
+		Map<String, AtomicInteger> count = new ConcurrentHashMap<>();
+		int threads = 8, loop = 8000;
+		CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			new Thread(() -> {
+				for (int i = 0; i < loop; i++) {
+					count.computeIfAbsent(router.select(), k -> new AtomicInteger()).incrementAndGet();
+				}
+				latch.countDown();
+			}).start();
+		}
+		latch.await();
+		int total = threads * loop;
+		Assert.assertEquals(total / 2, count.get("a").get());
+		Assert.assertEquals(total / 4, count.get("b").get());
+		Assert.assertEquals(total / 8, count.get("c").get());
+		Assert.assertEquals(total / 8, count.get("d").get());
+	}
+
+	@Test
+	public void unknownTypeFallback() {
+		Router<String> router = Routes.create("wieghted", servers(new Server("a", 1), new Server("b", 1)));
+		Assert.assertEquals(WeightedRouter.class, router.getClass());
+		Assert.assertEquals(EwmaRouter.class, Routes.create("EWMA", servers(new Server("a", 1), new Server("b", 1)))
+				.getClass());
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.common.thread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimeWheelTest {
+
+	/**
+	 * 每格10毫秒，8格，转一圈是80毫秒
+	 */
+	private final TimeWheel wheel = new TimeWheel("test-wheel", 10, 8);
+
+	@Test
+	public void expireAcrossRounds() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicLong shortCost = new AtomicLong();
+		AtomicLong longCost = new AtomicLong();
+		long begin = System.nanoTime();
+		TimeWheel.Timeout t1 = wheel.add(() -> {
+			longCost.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+			latch.countDown();
+		}, 250);
+		TimeWheel.Timeout t2 = wheel.add(() -> {
+			shortCost.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+			latch.countDown();
+		}, 30);
+		Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Assert.assertTrue("fired too early:" + shortCost, shortCost.get() >= 30);
+		Assert.assertTrue("fired too early:" + longCost, longCost.get() >= 250);
+		Assert.assertTrue(t1.isExpired());
+		Assert.assertTrue(t2.isExpired());
+		Assert.assertFalse(t1.cancel());
+	}
+
+	@Test
+	public void cancelAfterRounds() throws InterruptedException {
+		AtomicBoolean fired = new AtomicBoolean();
+		CountDownLatch latch = new CountDownLatch(1);
+		TimeWheel.Timeout t = wheel.add(() -> fired.set(true), 200);
+		wheel.add(latch::countDown, 300);
+		Thread.sleep(120);
+		Assert.assertTrue(t.cancel());
+		Assert.assertTrue(t.isCancelled());
+		Assert.assertFalse(t.cancel());
+		Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Assert.assertFalse(fired.get());
+		Assert.assertFalse(t.isExpired());
+	}
+
+	@Test
+	public void zeroDelay() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		wheel.add(latch::countDown, -5);
+		Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+	}
+}
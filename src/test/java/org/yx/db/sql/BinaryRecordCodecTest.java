@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.db.sql;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.yx.annotation.db.Column;
+import org.yx.annotation.db.Table;
+import org.yx.db.enums.ColumnType;
+
+public class BinaryRecordCodecTest {
+
+	private static PojoMeta pm;
+
+	@BeforeClass
+	public static void init() {
+		PojoMetaHolder.resolve(Rec.class);
+		pm = PojoMetaHolder.getPojoMeta(Rec.class);
+	}
+
+	private static Rec rec(long id, String name, Integer age) {
+		Rec r = new Rec();
+		r.id = id;
+		r.name = name;
+		r.age = age;
+		return r;
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		Rec a = rec(Long.MIN_VALUE, "中文abc", -1);
+		a.score = 3.25;
+		a.amount = new BigDecimal("-12345.678");
+		a.enable = true;
+		Timestamp ts = new Timestamp(1234567890123L);
+		ts.setNanos(123456789);
+		a.createTime = ts;
+		a.updateTime = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999);
+		Rec b = rec(Long.MAX_VALUE, "", Integer.MIN_VALUE);
+		Rec c = rec(0, null, null);
+
+		byte[] data = BinaryRecordCodec.inst.encode(pm, Arrays.asList(a, b, c));
+		Assert.assertTrue(BinaryRecordCodec.isBinary(data));
+		List<Object> list = BinaryRecordCodec.inst.decode(pm, data);
+		Assert.assertEquals(Arrays.asList(a, b, c), list);
+	}
+
+	@Test
+	public void nulls() throws Exception {
+		Rec r = new Rec();
+		byte[] data = BinaryRecordCodec.inst.encode(pm, Collections.singletonList(r));
+		Rec ret = (Rec) BinaryRecordCodec.inst.decode(pm, data).get(0);
+		Assert.assertEquals(r, ret);
+		Assert.assertNull(ret.id);
+		Assert.assertNull(ret.name);
+		Assert.assertNull(ret.createTime);
+	}
+
+	@Test
+	public void zigzag() throws Exception {
+		byte[] small = BinaryRecordCodec.inst.encode(pm, Collections.singletonList(rec(-1, null, -1)));
+		byte[] big = BinaryRecordCodec.inst.encode(pm, Collections.singletonList(rec(Long.MIN_VALUE, null, -1)));
+
+		Assert.assertEquals(9, big.length - small.length);
+		Rec r = (Rec) BinaryRecordCodec.inst.decode(pm, small).get(0);
+		Assert.assertEquals(Long.valueOf(-1), r.id);
+		Assert.assertEquals(Integer.valueOf(-1), r.age);
+	}
+
+	@Test
+	public void empty() throws Exception {
+		byte[] data = BinaryRecordCodec.inst.encode(pm, Collections.emptyList());
+		Assert.assertTrue(BinaryRecordCodec.inst.decode(pm, data).isEmpty());
+	}
+
+	@Test
+	public void fingerprintMismatch() throws Exception {
+		byte[] data = BinaryRecordCodec.inst.encode(pm, Collections.singletonList(rec(1, "a", 2)));
+		data[2] ^= 1;
+		Assert.assertNull(BinaryRecordCodec.inst.decode(pm, data));
+	}
+
+	@Test
+	public void notBinary() throws Exception {
+		Assert.assertFalse(BinaryRecordCodec.isBinary("[{\"id\":1}]".getBytes()));
+		Assert.assertNull(BinaryRecordCodec.inst.decode(pm, "[{\"id\":1}]".getBytes()));
+	}
+
+	@Table
+	public static class Rec {
+		@Column(type = ColumnType.ID_BOTH)
+		private Long id;
+		private String name;
+		private Integer age;
+		private Double score;
+		private BigDecimal amount;
+		private Boolean enable;
+		private Timestamp createTime;
+		private LocalDateTime updateTime;
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Rec)) {
+				return false;
+			}
+			return Arrays.equals(values(), ((Rec) obj).values());
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(values());
+		}
+
+		private Object[] values() {
+			return new Object[] { id, name, age, score, amount, enable, createTime, updateTime };
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2016 - 2030 youtongluan.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.yx.rpc.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.mina.core.buffer.IoBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BinaryFramesTest {
+
+	private static IoBuffer flip(IoBuffer buf) {
+		buf.flip();
+		return buf;
+	}
+
+	@Test
+	public void varint() {
+		int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE };
+		IoBuffer buf = IoBuffer.allocate(64).setAutoExpand(true);
+		for (int v : values) {
+			BinaryFrames.putVarint(buf, v);
+		}
+		flip(buf);
+		for (int v : values) {
+			Assert.assertEquals(v, BinaryFrames.getVarint(buf));
+		}
+		Assert.assertFalse(buf.hasRemaining());
+
+		buf = IoBuffer.allocate(8);
+		BinaryFrames.putVarint(buf, 127);
+		Assert.assertEquals(1, buf.position());
+		BinaryFrames.putVarint(buf, 128);
+		Assert.assertEquals(3, buf.position());
+	}
+
+	@Test
+	public void varlong() {
+		long[] values = { 0, 1, 300, System.currentTimeMillis(), Long.MAX_VALUE, -1, Long.MIN_VALUE };
+		IoBuffer buf = IoBuffer.allocate(128).setAutoExpand(true);
+		for (long v : values) {
+			BinaryFrames.putVarlong(buf, v);
+		}
+		flip(buf);
+		for (long v : values) {
+			Assert.assertEquals(v, BinaryFrames.getVarlong(buf));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void malformedVarint() {
+		IoBuffer buf = IoBuffer.wrap(new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+				(byte) 0x80 });
+		BinaryFrames.getVarint(buf);
+	}
+
+	@Test
+	public void string() {
+		IoBuffer buf = IoBuffer.allocate(64).setAutoExpand(true);
+		BinaryFrames.putString(buf, null);
+		BinaryFrames.putString(buf, "");
+		BinaryFrames.putString(buf, "abc中文");
+		flip(buf);
+		Assert.assertNull(BinaryFrames.getString(buf));
+		Assert.assertEquals("", BinaryFrames.getString(buf));
+		Assert.assertEquals("abc中文", BinaryFrames.getString(buf));
+		Assert.assertFalse(buf.hasRemaining());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void stringTooLong() {
+		IoBuffer buf = IoBuffer.allocate(16);
+		BinaryFrames.putVarint(buf, 101);
+		buf.put(new byte[] { 'a', 'b' });
+		BinaryFrames.getString(flip(buf));
+	}
+
+	@Test
+	public void stringMap() {
+		Map<String, String> map = new HashMap<>();
+		map.put("a", "1");
+		map.put("b", null);
+		map.put("中", "文");
+		IoBuffer buf = IoBuffer.allocate(64).setAutoExpand(true);
+		BinaryFrames.putStringMap(buf, map);
+		BinaryFrames.putStringMap(buf, null);
+		flip(buf);
+		Assert.assertEquals(map, BinaryFrames.getStringMap(buf));
+		Assert.assertNull(BinaryFrames.getStringMap(buf));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void stringMapTooLarge() {
+		IoBuffer buf = IoBuffer.allocate(16);
+		BinaryFrames.putVarint(buf, Integer.MAX_VALUE);
+		BinaryFrames.getStringMap(flip(buf));
+	}
+}